@@ -0,0 +1,57 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * The data used by the benchmarks. The data only depends on its parameters,
+ * so every run of a benchmark measures the same work.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+final class BenchmarkData {
+    /** The seed of the items */
+    static final long SEED = 12345;
+
+    private BenchmarkData(){
+    }
+
+    /**
+     * Create items whose dimensions are uniformly distributed between
+     * <code>minSize</code> and <code>maxSize</code>.
+     * @param numItems the number of items
+     * @param minSize the smallest dimension
+     * @param maxSize the largest dimension
+     * @return the items
+     */
+    static ArrayList<Rect> createItems(int numItems, int minSize, int maxSize){
+        Random rng = new Random(SEED);
+        ArrayList<Rect> items = new ArrayList<>(numItems);
+        for(int i=0; i<numItems; i++)
+            items.add(new Rect(minSize + rng.nextInt(maxSize - minSize + 1), minSize + rng.nextInt(maxSize - minSize + 1)));
+        return items;
+    }
+
+    /**
+     * Create a bin holding the items that can be inserted in it, in order,
+     * using the best area fit heuristic.
+     * @param binWidth width of the bin
+     * @param binHeight height of the bin
+     * @param config the configuration of the bin
+     * @param items the items
+     * @return the bin
+     */
+    static MaxSpaceBin createFilledBin(int binWidth, int binHeight, PackingConfig config, List<Rect> items){
+        MaxSpaceBin bin = new MaxSpaceBin(binWidth, binHeight);
+        bin.setConfig(config);
+        bin.init();
+        Placement placement = new Placement();
+        for(Rect item : items){
+            placement.clear();
+            if(bin.evaluatePacking(item.width, item.height, PackingHeuristic.BestAreaFit, placement))
+                bin.insert(placement);
+        }
+        return bin;
+    }
+}
@@ -0,0 +1,105 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * Benchmark of the maintenance of the maximal spaces of a bin
+ * ({@link MaxSpaceBin#generateFreeSpaces(Rect)} and
+ * {@link MaxSpaceBin#pruneMaxSpaces()}) and of {@link Bin#isFeasible()}.
+ * <p>
+ * The bin is filled with up to <code>numItems</code> items and a probe item is
+ * then placed in it. Before every operation, the free rects of the bin are set
+ * back to their state before the step being measured. The free rects are not
+ * modified by the two steps, only the list holding them is, so restoring them
+ * copies references and does not allocate; its cost is measured by
+ * {@link #restoreFreeRects()}.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinBenchmark {
+    @Param({"20", "100", "500"})
+    public int numItems;
+
+    @Param({"false", "true"})
+    public boolean canRotate;
+
+    private MaxSpaceBin bin;
+    /** The probe item, placed in the bin */
+    private Rect rect;
+    /** The free rects before generating the free spaces of the probe item */
+    private ArrayList<Rect> freeRects;
+    /** The free rects after generating the free spaces of the probe item */
+    private ArrayList<Rect> generatedFreeRects;
+    private int firstNewFreeRect;
+
+    @Setup
+    public void setUp(){
+        bin = BenchmarkData.createFilledBin(1000, 1000, PackingConfig.DEFAULT.withRotation(canRotate),
+                BenchmarkData.createItems(numItems, 10, 100));
+        Placement placement = new Placement();
+        for(Rect probe : BenchmarkData.createItems(64, 1, 30)){
+            placement.clear();
+            if(bin.evaluatePacking(probe.width, probe.height, PackingHeuristic.BestAreaFit, placement)) break;
+        }
+        if(placement.x < 0) throw new IllegalStateException("No probe item fits in the bin");
+        rect = placement.createRect();
+        freeRects = new ArrayList<>(bin.freeRects);
+        bin.generateFreeSpaces(rect);
+        generatedFreeRects = new ArrayList<>(bin.freeRects);
+        firstNewFreeRect = bin.firstNewFreeRect;
+        restore(freeRects);
+    }
+
+    /**
+     * Set the free rects of the bin without allocating.
+     */
+    private void restore(ArrayList<Rect> rects){
+        bin.freeRects.clear();
+        for(int i=0; i<rects.size(); i++)
+            bin.freeRects.add(rects.get(i));
+    }
+
+    @Benchmark
+    public int restoreFreeRects(){
+        restore(freeRects);
+        return bin.freeRects.size();
+    }
+
+    @Benchmark
+    public int generateFreeSpaces(){
+        restore(freeRects);
+        bin.generateFreeSpaces(rect);
+        return bin.freeRects.size();
+    }
+
+    @Benchmark
+    public int pruneMaxSpaces(){
+        restore(generatedFreeRects);
+        bin.firstNewFreeRect = firstNewFreeRect;
+        bin.pruneMaxSpaces();
+        return bin.freeRects.size();
+    }
+
+    @Benchmark
+    public boolean isFeasible(){
+        return bin.isFeasible();
+    }
+}
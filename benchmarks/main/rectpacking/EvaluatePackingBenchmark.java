@@ -0,0 +1,71 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * Benchmark of {@link MaxSpaceBin#evaluatePacking(int, int, PackingHeuristic, Placement)}
+ * for every packing heuristic.
+ * <p>
+ * The bin is filled with up to <code>numItems</code> items, so the number of
+ * free rects scanned grows with <code>numItems</code>. Every operation
+ * evaluates the packing of all the items of a small probe set.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatePackingBenchmark {
+    @Param({"20", "100", "500"})
+    public int numItems;
+
+    @Param({"false", "true"})
+    public boolean canRotate;
+
+    @Param({"BestAreaFit", "TouchingPerimeter", "TopRightCornerDistance"})
+    public PackingHeuristic heur;
+
+    private MaxSpaceBin bin;
+    private int[] widths;
+    private int[] heights;
+    private Placement placement;
+
+    @Setup
+    public void setUp(){
+        bin = BenchmarkData.createFilledBin(1000, 1000, PackingConfig.DEFAULT.withRotation(canRotate),
+                BenchmarkData.createItems(numItems, 10, 100));
+        ArrayList<Rect> probes = BenchmarkData.createItems(16, 5, 60);
+        widths = new int[probes.size()];
+        heights = new int[probes.size()];
+        for(int i=0; i<probes.size(); i++){
+            widths[i] = probes.get(i).width;
+            heights[i] = probes.get(i).height;
+        }
+        placement = new Placement();
+    }
+
+    @Benchmark
+    public int evaluatePacking(){
+        int numFits = 0;
+        for(int i=0; i<widths.length; i++){
+            placement.clear();
+            if(bin.evaluatePacking(widths[i], heights[i], heur, placement)) numFits++;
+        }
+        return numFits;
+    }
+}
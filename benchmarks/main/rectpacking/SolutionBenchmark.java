@@ -0,0 +1,72 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * Benchmark of packing a whole instance ({@link RBPSolution#pack(java.util.List, PackingHeuristic)}
+ * and {@link RBPSolution#packFirst(java.util.List, PackingHeuristic)}) and of
+ * copying a solution.
+ * <p>
+ * The instances look like those of the dataset: the bins are 100x100 and the
+ * items, sorted by decreasing area, are between 10 and 50 wide and high.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionBenchmark {
+    @Param({"20", "100", "500"})
+    public int numItems;
+
+    @Param({"false", "true"})
+    public boolean canRotate;
+
+    private PackingConfig config;
+    private ArrayList<Rect> items;
+    /** A solution packing all the items, to be copied */
+    private RBPSolution solution;
+
+    @Setup
+    public void setUp(){
+        config = PackingConfig.DEFAULT.withRotation(canRotate);
+        items = BenchmarkData.createItems(numItems, 10, 50);
+        items.sort(new RectAreaComparator());
+        solution = new RBPSolution(100, 100, config);
+        solution.pack(items, PackingHeuristic.BestAreaFit);
+    }
+
+    @Benchmark
+    public RBPSolution pack(){
+        RBPSolution sol = new RBPSolution(100, 100, config);
+        sol.pack(items, PackingHeuristic.BestAreaFit);
+        return sol;
+    }
+
+    @Benchmark
+    public RBPSolution packFirst(){
+        RBPSolution sol = new RBPSolution(100, 100, config);
+        sol.packFirst(items, PackingHeuristic.BestAreaFit);
+        return sol;
+    }
+
+    @Benchmark
+    public RBPSolution copy(){
+        return new RBPSolution(solution);
+    }
+}
@@ -0,0 +1,286 @@
+package rectpacking;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import rectpacking.RectPacking.BinType;
+import rectpacking.RectPacking.PackMode;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A benchmark solving every instance of a dataset with several packing
+ * heuristics and packing modes.
+ * <p>
+ * The dataset is a directory holding the class files (<code>Class_XX.2bp</code>,
+ * 10 files of 50 instances each). Every instance is packed with every chosen
+ * heuristic and mode, the items being sorted by decreasing area, so the number
+ * of bins does not depend on the run. The packings run on a thread pool and
+ * the results are reported in the order of the classes, the instances, the
+ * heuristics and the modes, with the number of bins, the lower bound on the
+ * number of bins, the gap between them and the time of the packing.
+ * <p>
+ * Usage: <code>BatchRunner datasetDirectory output.csv [heuristics] [modes] [threads]</code>
+ * where the heuristics and the modes are comma-separated names (or
+ * <code>all</code>, the default).
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class BatchRunner {
+
+    /**
+     * The result of a packing.
+     */
+    public static final class Result {
+        public final String className;
+        public final int instanceID;
+        public final PackingHeuristic heur;
+        public final PackMode mode;
+        public final int numItems;
+        public final int numBins;
+        public final int lowerBound;
+        /** Time of the packing in nanoseconds */
+        public final long time;
+
+        Result(String className, int instanceID, PackingHeuristic heur, PackMode mode,
+                int numItems, int numBins, int lowerBound, long time){
+            this.className = className;
+            this.instanceID = instanceID;
+            this.heur = heur;
+            this.mode = mode;
+            this.numItems = numItems;
+            this.numBins = numBins;
+            this.lowerBound = lowerBound;
+            this.time = time;
+        }
+
+        /**
+         * The relative gap between the number of bins and the lower bound.
+         * @return (bins - lower bound) / lower bound, or 0 if the instance has
+         * no items
+         */
+        public double getGap(){
+            if(lowerBound == 0) return 0;
+            return (double) (numBins - lowerBound)/lowerBound;
+        }
+    }
+
+    private final Path datasetDirectory;
+    private List<PackingHeuristic> heuristics;
+    private List<PackMode> modes;
+    private int numThreads;
+    private PackingConfig config;
+    /** The cache of the class files, or null to always parse them */
+    private InstanceCache instanceCache;
+
+    /**
+     * Create a benchmark using all the heuristics and modes, a thread per
+     * available processor and maximal space bins.
+     * @param datasetDirectory the directory of the class files
+     */
+    public BatchRunner(Path datasetDirectory){
+        this.datasetDirectory = datasetDirectory;
+        heuristics = Arrays.asList(PackingHeuristic.values());
+        modes = Arrays.asList(PackMode.values());
+        numThreads = Runtime.getRuntime().availableProcessors();
+        config = PackingConfig.DEFAULT;
+    }
+
+    /**
+     * Solve all the instances of the dataset.
+     * @return the results in the order of the classes, the instances, the
+     * heuristics and the modes
+     * @throws IOException if a class file cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * for the packings
+     */
+    public List<Result> run() throws IOException, InterruptedException{
+        List<Path> classFiles = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(datasetDirectory, "Class_*.2bp")){
+            for(Path file : files) classFiles.add(file);
+        }
+        Collections.sort(classFiles);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try{
+            List<Future<Result>> futures = new ArrayList<>();
+            for(Path classFile : classFiles){
+                String fileName = classFile.getFileName().toString();
+                String className = fileName.substring(0, fileName.length() - ".2bp".length());
+                RectPacking problem = new RectPacking(0);
+                problem.setInstanceCache(instanceCache);
+                problem.read(classFile.toString());
+                for(int i=0; i<problem.getNumberOfInstances(); i++){
+                    Instance instance = problem.getInstance(i);
+                    int instanceID = i;
+                    for(PackingHeuristic heur : heuristics)
+                        for(PackMode mode : modes)
+                            futures.add(executor.submit(() -> solve(className, instanceID, instance, heur, mode)));
+                }
+            }
+            List<Result> results = new ArrayList<>(futures.size());
+            for(Future<Result> future : futures){
+                try{
+                    results.add(future.get());
+                }
+                catch(ExecutionException ex){
+                    //Rethrow the unchecked exceptions of a packing as they are
+                    Throwable cause = ex.getCause();
+                    if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if(cause instanceof Error) throw (Error) cause;
+                    throw new RuntimeException(cause);
+                }
+            }
+            return results;
+        }
+        finally{
+            executor.shutdownNow();
+        }
+    }
+
+    private Result solve(String className, int instanceID, Instance instance, PackingHeuristic heur, PackMode mode){
+        long start = System.nanoTime();
+        List<Item> itemList = new ArrayList<>(instance.getItems());
+        itemList.sort(new RectAreaComparator());
+        RBPSolution sol = new RBPSolution(instance.binWidth, instance.binHeight,
+                config.withHeuristic(heur).withPackMode(mode));
+        sol.pack(itemList);
+        long time = System.nanoTime() - start;
+        return new Result(className, instanceID, heur, mode, instance.size(), sol.getNumberOfBin(),
+                sol.computeLowerBound(itemList), time);
+    }
+
+    /**
+     * Write results to a CSV file with a header line.
+     * @param results the results
+     * @param path path to the CSV file
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCsv(List<Result> results, Path path) throws IOException{
+        try(BufferedWriter writer = Files.newBufferedWriter(path)){
+            writer.write("class,instance,heuristic,mode,items,bins,lower_bound,gap,time_ms");
+            writer.newLine();
+            for(Result result : results){
+                writer.write(String.format(Locale.ROOT, "%s,%d,%s,%s,%d,%d,%d,%.4f,%.3f",
+                        result.className, result.instanceID, result.heur, result.mode, result.numItems,
+                        result.numBins, result.lowerBound, result.getGap(), result.time/1e6));
+                writer.newLine();
+            }
+        }
+    }
+
+    public List<PackingHeuristic> getHeuristics(){
+        return heuristics;
+    }
+
+    public void setHeuristics(List<PackingHeuristic> heuristics){
+        this.heuristics = heuristics;
+    }
+
+    public List<PackMode> getPackModes(){
+        return modes;
+    }
+
+    public void setPackModes(List<PackMode> modes){
+        this.modes = modes;
+    }
+
+    public int getNumberOfThreads(){
+        return numThreads;
+    }
+
+    /**
+     * Set the number of threads running the packings.
+     * @param numThreads a positive number
+     */
+    public void setNumberOfThreads(int numThreads){
+        if(numThreads < 1) throw new IllegalArgumentException("At least one thread is needed");
+        this.numThreads = numThreads;
+    }
+
+    public BinType getBinType(){
+        return config.getBinType();
+    }
+
+    public void setBinType(BinType binType){
+        config = config.withBinType(binType);
+    }
+
+    public PackingConfig getConfig(){
+        return config;
+    }
+
+    /**
+     * Set the configuration of the packings. The heuristics and the modes are
+     * set by {@link #setHeuristics(List)} and {@link #setPackModes(List)}, so
+     * only the rotation, the bin type and the guillotine settings of the
+     * configuration are used.
+     * @param config the configuration
+     */
+    public void setConfig(PackingConfig config){
+        this.config = config;
+    }
+
+    public InstanceCache getInstanceCache(){
+        return instanceCache;
+    }
+
+    /**
+     * Set the cache used to read the class files.
+     * @param instanceCache the cache, or <code>null</code> (the default) to
+     * always parse the class files
+     */
+    public void setInstanceCache(InstanceCache instanceCache){
+        this.instanceCache = instanceCache;
+    }
+
+    /**
+     * Parse a comma-separated list of enum names, or <code>all</code>.
+     */
+    private static <E extends Enum<E>> List<E> parseList(String names, Class<E> type){
+        if(names.equalsIgnoreCase("all")) return Arrays.asList(type.getEnumConstants());
+        List<E> values = new ArrayList<>();
+        for(String name : names.split(","))
+            values.add(Enum.valueOf(type, name.trim()));
+        return values;
+    }
+
+    /**
+     * Run the benchmark from the command line.
+     * @param args the dataset directory, the output CSV file and, optionally,
+     * the heuristics, the modes and the number of threads
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        if(args.length < 2){
+            System.err.println("Usage: BatchRunner datasetDirectory output.csv [heuristics|all] [modes|all] [threads]");
+            System.exit(1);
+        }
+        BatchRunner runner = new BatchRunner(Paths.get(args[0]));
+        if(args.length > 2) runner.setHeuristics(parseList(args[2], PackingHeuristic.class));
+        if(args.length > 3) runner.setPackModes(parseList(args[3], PackMode.class));
+        if(args.length > 4) runner.setNumberOfThreads(Integer.parseInt(args[4]));
+        long start = System.nanoTime();
+        List<Result> results = runner.run();
+        long wallTime = System.nanoTime() - start;
+        writeCsv(results, Paths.get(args[1]));
+        long totalBins = 0, totalLowerBound = 0;
+        for(Result result : results){
+            totalBins += result.numBins;
+            totalLowerBound += result.lowerBound;
+        }
+        System.out.println("Packings: " + results.size());
+        System.out.println("Total bins = " + totalBins + ", total lower bound = " + totalLowerBound);
+        System.out.printf(Locale.ROOT, "Wall time = %.1f ms%n", wallTime/1e6);
+    }
+}
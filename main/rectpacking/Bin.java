@@ -23,6 +23,24 @@ public abstract class Bin {
     protected ArrayList<Rect> packedRects;
     /** A list of free maximal spaces (free rects) that can potentially contain items */
     protected ArrayList<Rect> freeRects;
+    /** The edges of the packed rects used to compute touching perimeters */
+    protected EdgeIndex edgeIndex;
+    /** The largest width of a free space */
+    protected int maxFreeWidth;
+    /** The largest height of a free space */
+    protected int maxFreeHeight;
+    /** The largest area of a free space */
+    protected int maxFreeArea;
+    /** Whether the bin is shared by several solutions (see {@link #share()}) */
+    private boolean shared;
+    /** The changes made since the last checkpoint (see {@link #checkpoint()}) */
+    private UndoLog undoLog;
+    /** Whether the changes are recorded in <code>undoLog</code> */
+    private boolean recording;
+    /** The listener observing the packing, or <code>null</code> */
+    protected PackingListener listener;
+    /** The configuration of the packing (only the rotation is used by a bin) */
+    protected PackingConfig config;
     
     
     /**
@@ -36,10 +54,14 @@ public abstract class Bin {
         occupiedArea = 0;
         packedRects = new ArrayList<>();
         freeRects = new ArrayList<>();
+        edgeIndex = new EdgeIndex(binWidth, binHeight);
+        config = PackingConfig.DEFAULT;
     }
     
     /**
      * Create a bin from another bin using deep copying through the constructor.
+     * <p>
+     * The copy is not shared even if <code>newBin</code> is.
      * @param newBin a bin
      */
     public Bin(Bin newBin){
@@ -54,6 +76,12 @@ public abstract class Bin {
         freeRects = new ArrayList<>(newBin.freeRects.size());
         for(Rect freeRect : newBin.freeRects)
             freeRects.add(new Rect(freeRect));
+        edgeIndex = new EdgeIndex(binWidth, binHeight, packedRects);
+        maxFreeWidth = newBin.maxFreeWidth;
+        maxFreeHeight = newBin.maxFreeHeight;
+        maxFreeArea = newBin.maxFreeArea;
+        listener = newBin.listener;
+        config = newBin.config;
     }       
     
     /**
@@ -87,9 +115,13 @@ public abstract class Bin {
      * Initialize the bin.
      */
     public void init(){        
+        checkNotShared();
+        commit();
         packedRects = new ArrayList<>();
+        edgeIndex.clear();
         setupFreeRects();
         occupiedArea = 0;
+        updateCapacity();
     }    
     
     /**
@@ -104,26 +136,87 @@ public abstract class Bin {
      * Evaluate the <i>cost</i> of packing <code>rect</code> in the bin using the
      * packing heuristic <code>heur</code>.
      * <p>
-     * A subclass bin is required to provide a concrete implementation of this
-     * method.
+     * This method allocates the returned rect. Use
+     * {@link #evaluatePacking(int, int, PackingHeuristic, Placement)} in hot loops.
      * @param rect the item to be packed
      * @param heur the packing heuristic. For example, best area fit which packs
      * the item in the free space that results in the least wasted area in  the bin
      * @return the cost of packing <code>rect</code> in the bin using the packing
      * heuristic <code>heur</code>. If the packing is not possible, returns <code>null</code>
      */
-    public abstract Rect evaluatePacking(Rect rect, PackingHeuristic heur);
+    public Rect evaluatePacking(Rect rect, PackingHeuristic heur){
+        Placement placement = new Placement();
+        if(!evaluatePacking(rect.width, rect.height, heur, placement)) return null;
+        placement.itemID = rect.itemID;
+        return placement.createRect();
+    }
+    
+    /**
+     * Evaluate the <i>cost</i> of packing an item of size <code>width x height</code>
+     * in the bin using the packing heuristic <code>heur</code> and write the
+     * best position found into <code>placement</code>.
+     * <p>
+     * A subclass bin is required to provide a concrete implementation of this
+     * method. The implementation must not allocate objects nor modify the bin.
+     * @param width the item's width
+     * @param height the item's height
+     * @param heur the packing heuristic
+     * @param placement receives the position of the item and the cost of packing
+     * it there. It is left unchanged if the packing is not possible
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    public abstract boolean evaluatePacking(int width, int height, PackingHeuristic heur, Placement placement);
     
     /**
      * Insert <code>rect</code> in the bin using the packing heuristic <code>heur</code>
      * to determine the position of <code>rect</code> in the bin.
      * <p>
-     * 
+     * If the position of <code>rect</code> is already set (e.g., <code>rect</code>
+     * was returned by <code>evaluatePacking</code>), <code>rect</code> is packed
+     * at that position.
      * @param rect
      * @param heur
      * @return <code>true</code> if <code>rect</code> is inserted in the bin. Otherwise, returns <code>false</code>.
      */
-    public abstract boolean insert(Rect rect, PackingHeuristic heur);
+    public boolean insert(Rect rect, PackingHeuristic heur){
+        checkNotShared();
+        Rect newRect;
+        //Check whether rect is ready for packing, i.e., method "evaluatePacking" has already been invoked
+        if(!rect.isReadyForPacking()){
+            newRect = evaluatePacking(rect, heur);
+        }
+        else{
+            newRect = new Rect(rect);
+        }
+        //If packing rect is not possible
+        if(newRect == null){
+            return false;
+        }
+        placeRect(newRect);
+        updateCapacity();
+        return true;
+    }
+    
+    /**
+     * Insert an item at the position found by
+     * {@link #evaluatePacking(int, int, PackingHeuristic, Placement)}.
+     * @param placement the position of the item in this bin
+     * @return <code>true</code> if the item is inserted in the bin. Otherwise
+     * (no position is held by <code>placement</code>), returns <code>false</code>.
+     */
+    public boolean insert(Placement placement){
+        checkNotShared();
+        if(!placement.isFound()) return false;
+        placeRect(placement.createRect());
+        updateCapacity();
+        return true;
+    }
+    
+    /**
+     * Pack <code>rect</code> at its (x,y) coordinate and update the free spaces.
+     * @param rect the rect to be packed. It is stored in the bin as is
+     */
+    protected abstract void placeRect(Rect rect);
     
     /**
      * Pack <code>rect</code> in this bin.
@@ -132,8 +225,256 @@ public abstract class Bin {
     public final void packRect(Rect rect){
         packedRects.add(rect);
         occupiedArea += rect.width * rect.height;
+        edgeIndex.add(rect);
     }                
     
+    /**
+     * Remove the packed rect at the position <code>index</code> from this bin.
+     * The free spaces are not updated.
+     * @param index the position of the rect in the packed rects
+     * @return the removed rect
+     */
+    protected final Rect unpackRect(int index){
+        Rect rect = packedRects.remove(index);
+        occupiedArea -= rect.width * rect.height;
+        edgeIndex.remove(rect);
+        return rect;
+    }
+    
+    /**
+     * Update the capacity summary of the bin (the largest width, height and
+     * area of a free space) after the free spaces have changed.
+     * <p>
+     * An item packed in the bin lies inside a single free rect, so the summary
+     * is computed from <code>freeRects</code>. A subclass bin that keeps its free
+     * space differently overrides this method.
+     */
+    protected void updateCapacity(){
+        maxFreeWidth = 0;
+        maxFreeHeight = 0;
+        maxFreeArea = 0;
+        for(Rect freeRect : freeRects){
+            maxFreeWidth = Integer.max(maxFreeWidth, freeRect.width);
+            maxFreeHeight = Integer.max(maxFreeHeight, freeRect.height);
+            maxFreeArea = Integer.max(maxFreeArea, freeRect.width * freeRect.height);
+        }
+    }
+    
+    /**
+     * Check, using the capacity summary only, whether an item of size
+     * <code>width x height</code> may fit in the bin.
+     * <p>
+     * This takes constant time. If it returns <code>false</code> the item
+     * cannot be packed in the bin, so evaluating the packing can be skipped.
+     * If it returns <code>true</code> the item may still not fit.
+     * @param width the item's width
+     * @param height the item's height
+     * @return <code>false</code> if the item cannot be packed in the bin
+     */
+    public boolean canFit(int width, int height){
+        int area = width * height;
+        if(area > getRemainingArea() || area > maxFreeArea) return false;
+        if(width <= maxFreeWidth && height <= maxFreeHeight) return true;
+        return config.canRotate() && height <= maxFreeWidth && width <= maxFreeHeight;
+    }
+    
+    /**
+     * The area of the bin that is not occupied by rects.
+     * @return the remaining area
+     */
+    public int getRemainingArea(){
+        return binWidth * binHeight - occupiedArea;
+    }
+    
+    /**
+     * Start recording the changes made to the bin so that they can be undone
+     * by {@link #rollback()}.
+     * <p>
+     * Only the changes are recorded: the rects packed since the checkpoint and
+     * the free rects added and removed by <code>generateFreeSpaces</code> and
+     * <code>pruneMaxSpaces</code>. Hence, trial inserts are undone in time
+     * proportional to the change instead of copying the whole bin. Setting a
+     * checkpoint discards the previous one.
+     * @throws IllegalStateException if the bin is shared
+     */
+    public void checkpoint(){
+        checkNotShared();
+        if(undoLog == null) undoLog = new UndoLog();
+        undoLog.clear();
+        undoLog.numPackedRects = packedRects.size();
+        undoLog.occupiedArea = occupiedArea;
+        undoLog.maxFreeWidth = maxFreeWidth;
+        undoLog.maxFreeHeight = maxFreeHeight;
+        undoLog.maxFreeArea = maxFreeArea;
+        recording = true;
+    }
+    
+    /**
+     * Undo all the inserts made since the last checkpoint and stop recording.
+     * <p>
+     * A bin that was shared after its checkpoint (e.g., by copying the
+     * solution) cannot be rolled back, the copy of the solution holds it too.
+     * @throws IllegalStateException if there is no checkpoint or the bin is
+     * shared
+     */
+    public void rollback(){
+        checkNotShared();
+        if(!recording) throw new IllegalStateException("There is no checkpoint to roll back to");
+        //Undo the changes of the free list from the last one
+        for(int i=undoLog.size()-1; i>=0; i--){
+            switch(undoLog.getOperation(i)){
+                case UndoLog.REMOVED: undoFreeRectRemoved(undoLog.getIndex(i), undoLog.getRect(i)); break;
+                case UndoLog.ADDED: undoFreeRectAdded(); break;
+                case UndoLog.REPLACED: undoFreeRectReplaced(undoLog.getIndex(i), undoLog.getRect(i)); break;
+            }
+        }
+        for(int i=packedRects.size()-1; i>=undoLog.numPackedRects; i--)
+            edgeIndex.remove(packedRects.remove(i));
+        occupiedArea = undoLog.occupiedArea;
+        maxFreeWidth = undoLog.maxFreeWidth;
+        maxFreeHeight = undoLog.maxFreeHeight;
+        maxFreeArea = undoLog.maxFreeArea;
+        undoLog.clear();
+        recording = false;
+    }
+    
+    /**
+     * Keep the inserts made since the last checkpoint and stop recording.
+     */
+    public void commit(){
+        if(undoLog != null) undoLog.clear();
+        recording = false;
+    }
+    
+    /**
+     * Whether the changes made to the bin are recorded since a checkpoint.
+     * @return <code>true</code> if {@link #rollback()} can be called
+     */
+    public boolean hasCheckpoint(){
+        return recording;
+    }
+    
+    /**
+     * Record that <code>rect</code> was removed from the free list at the
+     * position <code>index</code>, if a checkpoint is set.
+     * <p>
+     * A subclass bin calls the <code>log</code> methods whenever it changes its
+     * free list, see {@link UndoLog} for the positions to record.
+     * @param index the position of the free rect before its removal
+     * @param rect the removed free rect
+     */
+    protected final void logFreeRectRemoved(int index, Rect rect){
+        if(recording) undoLog.logRemoved(index, rect);
+    }
+    
+    /**
+     * Record that a free rect was appended to the free list, if a checkpoint is set.
+     */
+    protected final void logFreeRectAdded(){
+        if(recording) undoLog.logAdded();
+    }
+    
+    /**
+     * Record that the free rect at the position <code>index</code> was
+     * replaced, if a checkpoint is set.
+     * @param index the position of the free rect
+     * @param oldRect the free rect before the replacement
+     */
+    protected final void logFreeRectReplaced(int index, Rect oldRect){
+        if(recording) undoLog.logReplaced(index, oldRect);
+    }
+    
+    protected final boolean isRecording(){
+        return recording;
+    }
+    
+    /**
+     * Put a removed free rect back in the free list. A subclass bin that keeps
+     * its free space differently overrides the <code>undo</code> methods.
+     * @param index the position of the free rect
+     * @param rect the free rect
+     */
+    protected void undoFreeRectRemoved(int index, Rect rect){
+        freeRects.add(index, rect);
+    }
+    
+    /**
+     * Remove the last free rect of the free list.
+     */
+    protected void undoFreeRectAdded(){
+        freeRects.remove(freeRects.size() - 1);
+    }
+    
+    /**
+     * Put a replaced free rect back in the free list.
+     * @param index the position of the free rect
+     * @param oldRect the free rect before the replacement
+     */
+    protected void undoFreeRectReplaced(int index, Rect oldRect){
+        freeRects.set(index, oldRect);
+    }
+    
+    /**
+     * Mark the bin as shared by several solutions.
+     * <p>
+     * A shared bin is never modified again, so solutions can hold the same bin
+     * instead of copying it. A solution that needs to modify a shared bin
+     * replaces it with a copy first (copy-on-write, see
+     * {@link RBPSolution#getMutableBin(int)}).
+     */
+    public void share(){
+        shared = true;
+    }
+    
+    public boolean isShared(){
+        return shared;
+    }
+    
+    /**
+     * Check that the bin can be modified.
+     * @throws IllegalStateException if the bin is shared
+     */
+    protected final void checkNotShared(){
+        if(shared) throw new IllegalStateException("A shared bin cannot be modified, copy it first");
+    }
+    
+    public PackingConfig getConfig(){
+        return config;
+    }
+    
+    /**
+     * Set the configuration of the packing in this bin. The items packed
+     * afterwards are rotated only if the configuration allows it.
+     * @param config the configuration
+     */
+    public void setConfig(PackingConfig config){
+        this.config = Objects.requireNonNull(config);
+    }
+    
+    public PackingListener getListener(){
+        return listener;
+    }
+    
+    /**
+     * Set the listener observing the packing of items in this bin.
+     * @param listener the listener, or <code>null</code> to observe nothing
+     */
+    public void setListener(PackingListener listener){
+        this.listener = listener;
+    }
+    
+    public int getMaxFreeWidth(){
+        return maxFreeWidth;
+    }
+    
+    public int getMaxFreeHeight(){
+        return maxFreeHeight;
+    }
+    
+    public int getMaxFreeArea(){
+        return maxFreeArea;
+    }
+    
     public boolean isEmpty(){
         return packedRects.isEmpty();
     }
@@ -210,6 +551,8 @@ public abstract class Bin {
      * <p>
      * The touching perimeter is the total shared "edges" between the rect and the
      * already-paced rects in the bin as well as between the bin and the rect.
+     * Only the edges of the packed rects lying on the four sides of the rect are
+     * visited (see {@link EdgeIndex}).
      * @param x x-coordinate of the rect inside the bin
      * @param y y-coordinate of the rect inside the bin
      * @param width the rect's width
@@ -222,12 +565,7 @@ public abstract class Bin {
             perimeter += height;
         if(y == 0 || y + height == binHeight)
             perimeter += width;
-        for(Rect rect : packedRects){
-            if(rect.x + rect.width == x || x + width == rect.x)
-                perimeter += computeCommonLength(y, y+height, rect.y, rect.y+rect.height);
-            if(rect.y == y + height || rect.y + rect.height == y)
-                perimeter += computeCommonLength(x, x + width, rect.x, rect.x + rect.width);
-        }
+        perimeter += edgeIndex.computeCommonLength(x, y, width, height);
         return perimeter;
     }
     
@@ -0,0 +1,132 @@
+package rectpacking;
+
+import java.util.ArrayList;
+
+/**
+ * A max segment tree over a list of bins used to find the first bin that may
+ * hold an item.
+ * <p>
+ * Each leaf holds the capacity summary of a bin (the largest width, height and
+ * area of a free space and the remaining area, see {@link Bin#canFit(int, int)})
+ * and each inner node holds the maximum of every value over its subtree. A
+ * subtree whose maxima cannot hold the item is skipped as a whole, so the first
+ * bin passing {@link Bin#canFit(int, int)} is found in a logarithmic time in
+ * the number of bins instead of visiting the bins one by one.
+ * <p>
+ * The tree is not updated automatically: {@link #update(int)} must be invoked
+ * after an item is inserted in a bin.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class BinTree {
+    private static final int INITIAL_CAPACITY = 16;
+    /** The bins in the order of the leaves */
+    private final ArrayList<Bin> bins;
+    /** Number of leaves, a power of two */
+    private int capacity;
+    private int[] maxWidth;
+    private int[] maxHeight;
+    private int[] maxArea;
+    private int[] maxRemainingArea;
+    /** Whether the items can be rotated, as in the configuration of the bins */
+    private final boolean canRotate;
+
+    /**
+     * Create a tree for items that cannot be rotated.
+     */
+    public BinTree(){
+        this(false);
+    }
+
+    /**
+     * Create a tree.
+     * @param canRotate whether the items can be rotated (see {@link PackingConfig#canRotate()})
+     */
+    public BinTree(boolean canRotate){
+        this.canRotate = canRotate;
+        bins = new ArrayList<>();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Append a bin to the tree.
+     * @param bin the bin
+     */
+    public void add(Bin bin){
+        if(bins.size() == capacity){
+            //Double the number of leaves and rebuild the tree
+            allocate(2*capacity);
+            for(int i=0; i<bins.size(); i++)
+                setLeaf(i, bins.get(i));
+            for(int node=capacity-1; node>=1; node--)
+                pull(node);
+        }
+        bins.add(bin);
+        update(bins.size() - 1);
+    }
+
+    /**
+     * Update the tree after the capacity of a bin has changed.
+     * @param index the index of the bin
+     */
+    public void update(int index){
+        setLeaf(index, bins.get(index));
+        for(int node=(capacity + index)/2; node>=1; node/=2)
+            pull(node);
+    }
+
+    /**
+     * Find the first bin from <code>from</code> on that may hold an item of
+     * size <code>width x height</code>.
+     * @param from the index of the first bin to consider
+     * @param width the item's width
+     * @param height the item's height
+     * @return the index of the first bin passing {@link Bin#canFit(int, int)},
+     * or -1 if there is no such bin
+     */
+    public int findFirst(int from, int width, int height){
+        if(from >= bins.size()) return -1;
+        return findFirst(1, 0, capacity, from, width, height, width * height);
+    }
+
+    private int findFirst(int node, int low, int high, int from, int width, int height, int area){
+        if(high <= from || !mayFit(node, width, height, area)) return -1;
+        if(high - low == 1) return low;
+        int mid = (low + high) >>> 1;
+        int index = findFirst(2*node, low, mid, from, width, height, area);
+        if(index != -1) return index;
+        return findFirst(2*node + 1, mid, high, from, width, height, area);
+    }
+
+    /**
+     * Check whether some bin in the subtree of <code>node</code> may hold the
+     * item. At a leaf, this is the same test as {@link Bin#canFit(int, int)}.
+     */
+    private boolean mayFit(int node, int width, int height, int area){
+        if(area > maxArea[node] || area > maxRemainingArea[node]) return false;
+        if(width <= maxWidth[node] && height <= maxHeight[node]) return true;
+        return canRotate && height <= maxWidth[node] && width <= maxHeight[node];
+    }
+
+    private void setLeaf(int index, Bin bin){
+        int leaf = capacity + index;
+        maxWidth[leaf] = bin.getMaxFreeWidth();
+        maxHeight[leaf] = bin.getMaxFreeHeight();
+        maxArea[leaf] = bin.getMaxFreeArea();
+        maxRemainingArea[leaf] = bin.getRemainingArea();
+    }
+
+    private void pull(int node){
+        maxWidth[node] = Integer.max(maxWidth[2*node], maxWidth[2*node + 1]);
+        maxHeight[node] = Integer.max(maxHeight[2*node], maxHeight[2*node + 1]);
+        maxArea[node] = Integer.max(maxArea[2*node], maxArea[2*node + 1]);
+        maxRemainingArea[node] = Integer.max(maxRemainingArea[2*node], maxRemainingArea[2*node + 1]);
+    }
+
+    private void allocate(int capacity){
+        this.capacity = capacity;
+        maxWidth = new int[2*capacity];
+        maxHeight = new int[2*capacity];
+        maxArea = new int[2*capacity];
+        maxRemainingArea = new int[2*capacity];
+    }
+}
@@ -0,0 +1,223 @@
+package rectpacking;
+
+import java.util.Arrays;
+
+/**
+ * An index of the edges of the rects packed in a bin.
+ * <p>
+ * The vertical edges are grouped by their x-coordinate and the horizontal edges
+ * by their y-coordinate, separately for each side of the rects (left, right,
+ * bottom and top). The edges at a given coordinate are kept sorted so that the
+ * edges touching a segment are found by a binary search. This way, the length
+ * a candidate placement shares with the packed rects is computed from the edges
+ * on its four sides only, instead of looping over all the packed rects.
+ * <p>
+ * Edges lying outside the bin are ignored since no placement inside the bin
+ * can touch them. The lines are allocated in pages of 64 lines, only where
+ * there are edges, so the memory used by the index and the time needed to
+ * copy or clear it grow with the packed rects rather than with the dimensions
+ * of the bin (a 100000x70000 bin starts with about 5300 page references
+ * instead of 340000 line references).
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class EdgeIndex {
+    private final int binWidth;
+    private final int binHeight;
+    /** Left sides of the packed rects indexed by x-coordinate */
+    private final Lines leftEdges;
+    /** Right sides of the packed rects indexed by x-coordinate */
+    private final Lines rightEdges;
+    /** Bottom sides of the packed rects indexed by y-coordinate */
+    private final Lines bottomEdges;
+    /** Top sides of the packed rects indexed by y-coordinate */
+    private final Lines topEdges;
+
+    public EdgeIndex(int binWidth, int binHeight){
+        this.binWidth = binWidth;
+        this.binHeight = binHeight;
+        leftEdges = new Lines(binWidth);
+        rightEdges = new Lines(binWidth);
+        bottomEdges = new Lines(binHeight);
+        topEdges = new Lines(binHeight);
+    }
+
+    /**
+     * Create an index of the edges of <code>rects</code>.
+     * @param binWidth width of the bin
+     * @param binHeight height of the bin
+     * @param rects the packed rects
+     */
+    public EdgeIndex(int binWidth, int binHeight, Iterable<Rect> rects){
+        this(binWidth, binHeight);
+        for(Rect rect : rects)
+            add(rect);
+    }
+
+    /**
+     * Remove all the edges.
+     */
+    public void clear(){
+        leftEdges.clear();
+        rightEdges.clear();
+        bottomEdges.clear();
+        topEdges.clear();
+    }
+
+    /**
+     * Add the edges of a packed rect.
+     * @param rect the packed rect
+     */
+    public void add(Rect rect){
+        add(leftEdges, binWidth, rect.x, rect.y, rect.y + rect.height);
+        add(rightEdges, binWidth, rect.x + rect.width, rect.y, rect.y + rect.height);
+        add(bottomEdges, binHeight, rect.y, rect.x, rect.x + rect.width);
+        add(topEdges, binHeight, rect.y + rect.height, rect.x, rect.x + rect.width);
+    }
+
+    /**
+     * Remove the edges of a packed rect.
+     * @param rect the packed rect
+     */
+    public void remove(Rect rect){
+        remove(leftEdges, rect.x, rect.y, rect.y + rect.height);
+        remove(rightEdges, rect.x + rect.width, rect.y, rect.y + rect.height);
+        remove(bottomEdges, rect.y, rect.x, rect.x + rect.width);
+        remove(topEdges, rect.y + rect.height, rect.x, rect.x + rect.width);
+    }
+
+    /**
+     * Compute the total length shared between the packed rects and a rect of
+     * size <code>width x height</code> placed at (x,y).
+     * @param x x-coordinate of the rect
+     * @param y y-coordinate of the rect
+     * @param width the rect's width
+     * @param height the rect's height
+     * @return the length of the sides shared with the packed rects
+     */
+    public int computeCommonLength(int x, int y, int width, int height){
+        int length = 0;
+        //Packed rects to the left and to the right
+        length += commonLength(rightEdges, x, y, y + height);
+        length += commonLength(leftEdges, x + width, y, y + height);
+        //Packed rects below and above
+        length += commonLength(topEdges, y, x, x + width);
+        length += commonLength(bottomEdges, y + height, x, x + width);
+        return length;
+    }
+
+    private static void add(Lines lines, int maxCoordinate, int coordinate, int start, int end){
+        if(coordinate < 0 || coordinate > maxCoordinate) return;
+        lines.getOrCreate(coordinate).add(start, end);
+    }
+
+    private static void remove(Lines lines, int coordinate, int start, int end){
+        Edges edges = lines.get(coordinate);
+        if(edges != null) edges.remove(start, end);
+    }
+
+    private static int commonLength(Lines lines, int coordinate, int start, int end){
+        Edges edges = lines.get(coordinate);
+        return edges == null ? 0 : edges.commonLength(start, end);
+    }
+
+    /**
+     * The lines holding edges, indexed by their coordinate in pages of
+     * {@value #PAGE_SIZE} lines. A page is created when one of its lines
+     * receives an edge, and a line is kept once created, even if its edges are
+     * removed, until the lines are cleared.
+     */
+    private static final class Lines {
+        private static final int PAGE_BITS = 6;
+        private static final int PAGE_SIZE = 1 << PAGE_BITS;
+        private final Edges[][] pages;
+        private int numPages = 0;
+
+        /**
+         * Create the lines of coordinates from 0 to <code>maxCoordinate</code>.
+         */
+        Lines(int maxCoordinate){
+            pages = new Edges[(maxCoordinate >>> PAGE_BITS) + 1][];
+        }
+
+        Edges get(int coordinate){
+            int pageIndex = coordinate >>> PAGE_BITS;
+            if(pageIndex >= pages.length) return null;
+            Edges[] page = pages[pageIndex];
+            return page == null ? null : page[coordinate & (PAGE_SIZE - 1)];
+        }
+
+        Edges getOrCreate(int coordinate){
+            int pageIndex = coordinate >>> PAGE_BITS;
+            Edges[] page = pages[pageIndex];
+            if(page == null){
+                page = pages[pageIndex] = new Edges[PAGE_SIZE];
+                numPages++;
+            }
+            Edges edges = page[coordinate & (PAGE_SIZE - 1)];
+            if(edges == null) edges = page[coordinate & (PAGE_SIZE - 1)] = new Edges();
+            return edges;
+        }
+
+        void clear(){
+            if(numPages == 0) return;
+            Arrays.fill(pages, null);
+            numPages = 0;
+        }
+    }
+
+    /**
+     * The edges lying on the same line, sorted by their start.
+     */
+    private static final class Edges {
+        private int[] starts = new int[4];
+        private int[] ends = new int[4];
+        private int size = 0;
+        /** The length of the longest edge, used to bound the search */
+        private int maxLength = 0;
+
+        void add(int start, int end){
+            if(size == starts.length){
+                starts = Arrays.copyOf(starts, 2*size);
+                ends = Arrays.copyOf(ends, 2*size);
+            }
+            int index = firstStartAbove(start);
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(ends, index, ends, index + 1, size - index);
+            starts[index] = start;
+            ends[index] = end;
+            size++;
+            maxLength = Integer.max(maxLength, end - start);
+        }
+
+        void remove(int start, int end){
+            for(int i=firstStartAbove(start - 1); i<size && starts[i] == start; i++){
+                if(ends[i] != end) continue;
+                System.arraycopy(starts, i + 1, starts, i, size - i - 1);
+                System.arraycopy(ends, i + 1, ends, i, size - i - 1);
+                size--;
+                return;
+            }
+        }
+
+        int commonLength(int start, int end){
+            int length = 0;
+            //An edge starting at or before start - maxLength ends before start
+            for(int i=firstStartAbove(start - maxLength); i<size && starts[i] < end; i++){
+                if(ends[i] > start)
+                    length += Integer.min(end, ends[i]) - Integer.max(start, starts[i]);
+            }
+            return length;
+        }
+
+        /** The index of the first edge whose start is larger than value */
+        private int firstStartAbove(int value){
+            int low = 0, high = size;
+            while(low < high){
+                int mid = (low + high) >>> 1;
+                if(starts[mid] <= value) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package rectpacking;
+
+import java.util.ArrayList;
+
+/**
+ * A spatial index over the free spaces of a bin.
+ * <p>
+ * The index keeps two uniform grids:
+ * <ul>
+ *  <li>A <i>location grid</i> that splits the bin into equal cells. Every free
+ *  space is registered in all the cells it covers, so the free spaces that
+ *  overlap a rect are found by visiting only the cells covered by that rect.</li>
+ *  <li>A <i>size grid</i> keyed on the width and height of the free spaces. The
+ *  free spaces that can hold a <code>w x h</code> item are found by visiting
+ *  only the buckets of large enough widths and heights.</li>
+ * </ul>
+ * Every free space gets a sequence number when it is added to the index. The
+ * sequence numbers follow the order of the free spaces in the bin's free list
+ * so that ties between free spaces can be broken exactly as in a linear scan.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class FreeSpaceIndex {
+
+    /**
+     * A free space registered in the index.
+     */
+    public static final class Entry {
+        /** The free space */
+        public final Rect rect;
+        /** The position of the free space in the insertion order */
+        public final long seq;
+
+        Entry(Rect rect, long seq) {
+            this.rect = rect;
+            this.seq = seq;
+        }
+    }
+
+    private final int binWidth;
+    private final int binHeight;
+    /** Number of cells along each side of the location grid */
+    private final int gridSize;
+    /** Number of buckets along each side of the size grid */
+    private final int sizeGridSize;
+    private final ArrayList<Entry>[] cells;
+    private final ArrayList<Entry>[] sizeBuckets;
+    private long nextSeq;
+    private int size;
+
+    /**
+     * Create an index for a bin using an 8x8 location grid and a 16x16 size grid.
+     * @param binWidth width of the bin
+     * @param binHeight height of the bin
+     */
+    public FreeSpaceIndex(int binWidth, int binHeight){
+        this(binWidth, binHeight, 8, 16);
+    }
+
+    /**
+     * Create an index for a bin.
+     * @param binWidth width of the bin
+     * @param binHeight height of the bin
+     * @param gridSize number of cells along each side of the location grid
+     * @param sizeGridSize number of buckets along each side of the size grid
+     */
+    public FreeSpaceIndex(int binWidth, int binHeight, int gridSize, int sizeGridSize){
+        this.binWidth = binWidth;
+        this.binHeight = binHeight;
+        //A grid cannot be finer than the bin itself
+        this.gridSize = Integer.max(1, Integer.min(gridSize, Integer.min(binWidth, binHeight)));
+        this.sizeGridSize = Integer.max(1, Integer.min(sizeGridSize, Integer.min(binWidth, binHeight)));
+        cells = createLists(this.gridSize * this.gridSize);
+        sizeBuckets = createLists(this.sizeGridSize * this.sizeGridSize);
+        nextSeq = 0;
+        size = 0;
+    }
+
+    /**
+     * Create an array of empty lists of entries.
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayList<Entry>[] createLists(int length){
+        ArrayList<Entry>[] lists = (ArrayList<Entry>[]) new ArrayList<?>[length];
+        for(int i=0; i<length; i++)
+            lists[i] = new ArrayList<>();
+        return lists;
+    }
+
+    /**
+     * Remove all the free spaces from the index.
+     */
+    public void clear(){
+        for(ArrayList<Entry> cell : cells) cell.clear();
+        for(ArrayList<Entry> bucket : sizeBuckets) bucket.clear();
+        nextSeq = 0;
+        size = 0;
+    }
+
+    /**
+     * The number of free spaces in the index.
+     * @return the number of free spaces in the index
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Add a free space to the index. The free space is considered to come after
+     * all the free spaces that are already in the index.
+     * @param rect the free space
+     * @return the entry of the free space
+     */
+    public Entry add(Rect rect){
+        Entry entry = new Entry(rect, nextSeq++);
+        restore(entry);
+        return entry;
+    }
+
+    /**
+     * Add back a free space that was removed from the index. The free space
+     * keeps its sequence number.
+     * @param entry the entry of the free space
+     */
+    public void restore(Entry entry){
+        Rect rect = entry.rect;
+        int col1 = column(rect.x), col2 = column(rect.x + rect.width - 1);
+        int row1 = row(rect.y), row2 = row(rect.y + rect.height - 1);
+        for(int row=row1; row<=row2; row++)
+            for(int col=col1; col<=col2; col++)
+                cells[row*gridSize + col].add(entry);
+        sizeBuckets[sizeBucket(rect.width, rect.height)].add(entry);
+        size++;
+    }
+
+    /**
+     * Remove a free space from the index.
+     * @param rect the free space (compared by identity)
+     * @return <code>true</code> if the free space was in the index
+     */
+    public boolean remove(Rect rect){
+        if(!removeFrom(sizeBuckets[sizeBucket(rect.width, rect.height)], rect))
+            return false;
+        int col1 = column(rect.x), col2 = column(rect.x + rect.width - 1);
+        int row1 = row(rect.y), row2 = row(rect.y + rect.height - 1);
+        for(int row=row1; row<=row2; row++)
+            for(int col=col1; col<=col2; col++)
+                removeFrom(cells[row*gridSize + col], rect);
+        size--;
+        return true;
+    }
+
+    /**
+     * Collect the free spaces that overlap <code>rect</code>.
+     * <p>
+     * Every free space is reported once: only by the cell that contains the
+     * bottom-left corner of its intersection with <code>rect</code>.
+     * @param rect the rect
+     * @param out the list to which the overlapping free spaces are added
+     */
+    public void collectOverlapping(Rect rect, ArrayList<Entry> out){
+        int col1 = column(rect.x), col2 = column(rect.x + rect.width - 1);
+        int row1 = row(rect.y), row2 = row(rect.y + rect.height - 1);
+        for(int row=row1; row<=row2; row++){
+            for(int col=col1; col<=col2; col++){
+                ArrayList<Entry> cell = cells[row*gridSize + col];
+                for(int i=0; i<cell.size(); i++){
+                    Entry entry = cell.get(i);
+                    Rect freeRect = entry.rect;
+                    if(!rect.isOverlapping(freeRect)) continue;
+                    //Report the free rect from one cell only
+                    if(column(Integer.max(rect.x, freeRect.x)) == col
+                            && row(Integer.max(rect.y, freeRect.y)) == row)
+                        out.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether <code>entry</code> is redundant, i.e., it is contained in
+     * another free space and that free space is either strictly larger or comes
+     * earlier in the insertion order.
+     * <p>
+     * A free space containing <code>entry</code> must cover the bottom-left
+     * corner of <code>entry</code>, therefore only one cell is visited.
+     * @param entry the entry of a free space in the index
+     * @return <code>true</code> if the free space is redundant
+     */
+    public boolean isRedundant(Entry entry){
+        Rect rect = entry.rect;
+        ArrayList<Entry> cell = cells[row(rect.y)*gridSize + column(rect.x)];
+        for(int i=0; i<cell.size(); i++){
+            Entry other = cell.get(i);
+            if(other == entry || !rect.isContainedIn(other.rect)) continue;
+            if(!other.rect.isContainedIn(rect) || other.seq < entry.seq)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * The largest width of the free spaces. Only the buckets of the largest
+     * non-empty width bucket are scanned.
+     * @return the largest width, or 0 if there is no free space
+     */
+    public int getMaxWidth(){
+        for(int wi=sizeGridSize-1; wi>=0; wi--){
+            int maxWidth = 0;
+            for(int hi=0; hi<sizeGridSize; hi++){
+                ArrayList<Entry> bucket = sizeBuckets[hi*sizeGridSize + wi];
+                for(int i=0; i<bucket.size(); i++)
+                    maxWidth = Integer.max(maxWidth, bucket.get(i).rect.width);
+            }
+            if(maxWidth > 0) return maxWidth;
+        }
+        return 0;
+    }
+
+    /**
+     * The largest height of the free spaces. Only the buckets of the largest
+     * non-empty height bucket are scanned.
+     * @return the largest height, or 0 if there is no free space
+     */
+    public int getMaxHeight(){
+        for(int hi=sizeGridSize-1; hi>=0; hi--){
+            int maxHeight = 0;
+            for(int wi=0; wi<sizeGridSize; wi++){
+                ArrayList<Entry> bucket = sizeBuckets[hi*sizeGridSize + wi];
+                for(int i=0; i<bucket.size(); i++)
+                    maxHeight = Integer.max(maxHeight, bucket.get(i).rect.height);
+            }
+            if(maxHeight > 0) return maxHeight;
+        }
+        return 0;
+    }
+
+    /**
+     * The largest area of the free spaces. The buckets are visited from the
+     * largest sizes down and a bucket is skipped when the largest area its free
+     * spaces may have is not larger than the best area found so far.
+     * @return the largest area, or 0 if there is no free space
+     */
+    public int getMaxArea(){
+        int maxArea = 0;
+        for(int hi=sizeGridSize-1; hi>=0; hi--){
+            long maxHeight = upperLength(hi, binHeight);
+            for(int wi=sizeGridSize-1; wi>=0; wi--){
+                ArrayList<Entry> bucket = sizeBuckets[hi*sizeGridSize + wi];
+                if(bucket.isEmpty() || upperLength(wi, binWidth)*maxHeight <= maxArea) continue;
+                for(int i=0; i<bucket.size(); i++){
+                    Rect rect = bucket.get(i).rect;
+                    maxArea = Integer.max(maxArea, rect.width * rect.height);
+                }
+            }
+        }
+        return maxArea;
+    }
+
+    /**
+     * An upper bound on the lengths held by a bucket of the size grid (see
+     * {@link #sizeIndex(int, boolean)}).
+     */
+    private int upperLength(int bucketIndex, int dim){
+        if(bucketIndex == sizeGridSize - 1) return dim;
+        return (int) Long.min(dim, ((long) (bucketIndex + 1)*(dim + 1) + sizeGridSize - 1)/sizeGridSize);
+    }
+
+    /**
+     * The number of buckets along each side of the size grid.
+     * @return the number of buckets along each side of the size grid
+     */
+    public int getSizeGridSize(){
+        return sizeGridSize;
+    }
+
+    /**
+     * The index of the width (or height) bucket that holds free spaces of
+     * the given width (or height).
+     * @param length a width when <code>horizontal</code> is <code>true</code>.
+     * Otherwise a height
+     * @param horizontal whether <code>length</code> is a width
+     * @return the bucket index along the corresponding side of the size grid
+     */
+    public int sizeIndex(int length, boolean horizontal){
+        int dim = horizontal ? binWidth : binHeight;
+        if(length <= 0) return 0;
+        if(length >= dim) return sizeGridSize - 1;
+        return (int) ((long) length * sizeGridSize / (dim + 1));
+    }
+
+    /**
+     * The free spaces whose width and height fall into the given size bucket.
+     * <p>
+     * Callers must not modify the returned list.
+     * @param widthIndex the width bucket
+     * @param heightIndex the height bucket
+     * @return the free spaces in the bucket
+     */
+    public ArrayList<Entry> getSizeBucket(int widthIndex, int heightIndex){
+        return sizeBuckets[heightIndex*sizeGridSize + widthIndex];
+    }
+
+    private int sizeBucket(int width, int height){
+        return sizeIndex(height, false)*sizeGridSize + sizeIndex(width, true);
+    }
+
+    private int column(int x){
+        if(x <= 0) return 0;
+        if(x >= binWidth) return gridSize - 1;
+        return (int) ((long) x * gridSize / binWidth);
+    }
+
+    private int row(int y){
+        if(y <= 0) return 0;
+        if(y >= binHeight) return gridSize - 1;
+        return (int) ((long) y * gridSize / binHeight);
+    }
+
+    private boolean removeFrom(ArrayList<Entry> list, Rect rect){
+        for(int i=0; i<list.size(); i++){
+            if(list.get(i).rect == rect){
+                //The order inside a cell does not matter: swap with the last one
+                int last = list.size() - 1;
+                list.set(i, list.get(last));
+                list.remove(last);
+                return true;
+            }
+        }
+        return false;
+    }
+}
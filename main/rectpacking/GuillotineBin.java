@@ -0,0 +1,376 @@
+package rectpacking;
+
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A class implementing the guillotine data structure.
+ * <p>
+ * The free space is a list of disjoint free rects. An item is placed at the
+ * bottom-left corner of a free rect, then the rest of the free rect is cut in
+ * two by a straight cut running from one side of the free rect to the opposite
+ * side. The direction of the cut is chosen by a {@link SplitRule}. Since every
+ * free rect results from such cuts, the items can be separated by a sequence of
+ * guillotine cuts.
+ * <p>
+ * The free rects never overlap so the free list is much shorter than the list
+ * of maximal spaces and placing an item is faster than in {@link MaxSpaceBin}.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class GuillotineBin extends Bin{
+
+    /**
+     * The rules choosing the direction of the cut after placing an item in a
+     * free rect. Let <i>w</i> and <i>h</i> be the width and the height left in
+     * the free rect to the right of and above the item.
+     */
+    public static enum SplitRule {
+        /** Cut along the shorter leftover side: horizontally if w &lt;= h */
+        ShorterLeftoverAxis,
+        /** Cut along the longer leftover side: horizontally if w &gt; h */
+        LongerLeftoverAxis,
+        /** Make the smaller of the two new free rects as small as possible */
+        MinimizeArea,
+        /** Make the larger of the two new free rects as large as possible */
+        MaximizeArea
+    }
+
+    private SplitRule splitRule;
+    /** Whether adjacent free rects are merged after each insert */
+    private boolean merge;
+
+    /**
+     * Create a bin that splits free rects along the shorter leftover axis and
+     * does not merge free rects.
+     * @param binWidth width of the bin
+     * @param binHeight height of the bin
+     */
+    public GuillotineBin(int binWidth, int binHeight){
+        this(binWidth, binHeight, SplitRule.ShorterLeftoverAxis, false);
+    }
+
+    /**
+     * Create a bin of specific width and height.
+     * @param binWidth width of the bin
+     * @param binHeight height of the bin
+     * @param splitRule the rule choosing the direction of the cuts
+     * @param merge whether adjacent free rects are merged after each insert.
+     * Merging recovers space lost between cuts, but the free rects are no longer
+     * the leaves of a single cutting tree
+     */
+    public GuillotineBin(int binWidth, int binHeight, SplitRule splitRule, boolean merge){
+        super(binWidth, binHeight);
+        this.splitRule = splitRule;
+        this.merge = merge;
+    }
+
+    public GuillotineBin(Bin newBin){
+        super(newBin);
+        if(newBin instanceof GuillotineBin){
+            this.splitRule = ((GuillotineBin) newBin).splitRule;
+            this.merge = ((GuillotineBin) newBin).merge;
+        }
+        else{
+            this.splitRule = SplitRule.ShorterLeftoverAxis;
+            this.merge = false;
+        }
+    }
+
+    @Override
+    public boolean evaluatePacking(int width, int height, PackingHeuristic heur, Placement placement){
+        switch(heur){
+            case TouchingPerimeter: return evaluateTouchingPerimeter(width, height, placement);
+            case BestAreaFit: return evaluateBestArea(width, height, placement);
+            case TopRightCornerDistance: return evaluateTopRightCornerDistance(width, height, placement);
+            default: return evaluateBestArea(width, height, placement); // Use best area fit as a default heuristic
+        }
+    }
+
+    @Override
+    protected void placeRect(Rect rect){
+        //The rect can be packed in the bin.
+        packRect(rect);
+        //Cut the free rect that contains the packed rect.
+        generateFreeSpaces(rect);
+        if(merge) mergeFreeRects();
+    }
+
+    /**
+     * Find the position in the free rect such that the distance between
+     * the top-right corner of the item and that of the bin is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTopRightCornerDistance(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestDist = -1;
+        int bestFreeRectIndex = -1;
+        boolean isRotated = false;
+        for(int i=0; i<freeRects.size(); i++){
+            Rect freeRect = freeRects.get(i);
+            if(width <= freeRect.width && height <= freeRect.height){
+                double dist = computeDistance(freeRect.x + width, freeRect.y + height, binWidth, binHeight);
+                if(dist > largestDist){
+                    largestDist = dist;
+                    bestFreeRectIndex = i;
+                    isRotated = false;
+                }
+            }
+            if(canRotate && height <= freeRect.width && width <= freeRect.height){
+                double dist = computeDistance(freeRect.x + height, freeRect.y + width, binWidth, binHeight);
+                if(dist > largestDist){
+                    largestDist = dist;
+                    bestFreeRectIndex = i;
+                    isRotated = true;
+                }
+            }
+        }
+        //The current rect cannot be inserted into current bin.
+        if(bestFreeRectIndex == -1) return false;
+        Rect freeRect = freeRects.get(bestFreeRectIndex);
+        placement.set(bestFreeRectIndex, freeRect.x, freeRect.y, width, height, isRotated, -largestDist); //smaller is better
+        return true;
+    }
+
+    /**
+     * Find the position in the free rect such that the total touching
+     * perimeter is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTouchingPerimeter(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestTouchingPerimeter = -1;
+        int bestFreeRectIndex = -1;
+        boolean isRotated = false;
+        for(int i=0; i<freeRects.size(); i++){
+            Rect freeRect = freeRects.get(i);
+            if(width <= freeRect.width && height <= freeRect.height){
+                double perimeter = computeTouchingPerimeter(freeRect.x, freeRect.y, width, height);
+                if(perimeter > largestTouchingPerimeter){
+                    largestTouchingPerimeter = perimeter;
+                    bestFreeRectIndex = i;
+                    isRotated = false;
+                }
+            }
+            if(canRotate && height <= freeRect.width && width <= freeRect.height){
+                double perimeter = computeTouchingPerimeter(freeRect.x, freeRect.y, height, width);
+                if(perimeter > largestTouchingPerimeter){
+                    largestTouchingPerimeter = perimeter;
+                    bestFreeRectIndex = i;
+                    isRotated = true;
+                }
+            }
+        }
+        //The current rect cannot be inserted into current bin.
+        if(bestFreeRectIndex == -1) return false;
+        Rect freeRect = freeRects.get(bestFreeRectIndex);
+        placement.set(bestFreeRectIndex, freeRect.x, freeRect.y, width, height, isRotated, -largestTouchingPerimeter); //smaller is better
+        return true;
+    }
+
+    /**
+     * Find the position in the free rect such that the the wasted area is
+     * minimized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateBestArea(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        int bestWastedArea = Integer.MAX_VALUE;
+        int bestShortSide = Integer.MAX_VALUE;
+        int bestFreeRectIndex = -1;
+        boolean isRotated = false;
+        for(int i=0; i<freeRects.size(); i++){
+            Rect freeRect = freeRects.get(i);
+            int wastedArea = freeRect.width * freeRect.height - (width * height);
+            if(freeRect.width >= width && freeRect.height >= height){
+                int shortSide = Integer.min(freeRect.width - width, freeRect.height - height);
+                if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && shortSide < bestShortSide)){
+                    bestWastedArea = wastedArea;
+                    bestShortSide = shortSide;
+                    bestFreeRectIndex = i;
+                    isRotated = false;
+                }
+            }
+            if(canRotate && freeRect.width >= height && freeRect.height >= width){
+                int shortSide = Integer.min(freeRect.width - height, freeRect.height - width);
+                if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && shortSide < bestShortSide)){
+                    bestWastedArea = wastedArea;
+                    bestShortSide = shortSide;
+                    bestFreeRectIndex = i;
+                    isRotated = true;
+                }
+            }
+        }
+        if(bestFreeRectIndex == -1) return false;
+        Rect freeRect = freeRects.get(bestFreeRectIndex);
+        placement.set(bestFreeRectIndex, freeRect.x, freeRect.y, width, height, isRotated, bestWastedArea);
+        return true;
+    }
+
+    /**
+     * Cut the free rect containing <code>rect</code>.
+     * <p>
+     * If <code>rect</code> is not at the bottom-left corner of the free rect,
+     * the strips to its left and below it are cut off first. If no free rect
+     * contains <code>rect</code> (which only happens when the position of
+     * <code>rect</code> was not chosen by this bin) every overlapping free rect
+     * is cut around <code>rect</code> instead.
+     * @param rect the last rect inserted in the bin.
+     */
+    @Override
+    protected void generateFreeSpaces(Rect rect){
+        for(int i=0; i<freeRects.size(); i++){
+            Rect freeRect = freeRects.get(i);
+            if(!rect.isContainedIn(freeRect)) continue;
+            freeRects.remove(i);
+            logFreeRectRemoved(i, freeRect);
+            int x = freeRect.x, y = freeRect.y;
+            int width = freeRect.width, height = freeRect.height;
+            //Cut off the strip to the left of rect
+            if(rect.x > x){
+                addFreeRect(x, y, rect.x - x, height);
+                width -= rect.x - x;
+                x = rect.x;
+            }
+            //Cut off the strip below rect
+            if(rect.y > y){
+                addFreeRect(x, y, width, rect.y - y);
+                height -= rect.y - y;
+                y = rect.y;
+            }
+            split(x, y, width, height, rect);
+            return;
+        }
+        //rect is not inside a single free rect: cut every overlapping free rect
+        int numFreeRects = freeRects.size();
+        for(int i=0; i<numFreeRects; i++){
+            Rect freeRect = freeRects.get(i);
+            if(!isOverlapping(freeRect, rect)) continue;
+            int x1 = freeRect.x, x2 = freeRect.x + freeRect.width;
+            int y1 = freeRect.y, y2 = freeRect.y + freeRect.height;
+            int left = Integer.max(x1, rect.x), right = Integer.min(x2, rect.x + rect.width);
+            if(rect.x > x1) addFreeRect(x1, y1, rect.x - x1, y2 - y1);
+            if(rect.x + rect.width < x2) addFreeRect(right, y1, x2 - right, y2 - y1);
+            if(rect.y > y1) addFreeRect(left, y1, right - left, rect.y - y1);
+            if(rect.y + rect.height < y2) addFreeRect(left, rect.y + rect.height, right - left, y2 - (rect.y + rect.height));
+            freeRects.remove(i);
+            logFreeRectRemoved(i, freeRect);
+            --i;
+            --numFreeRects;
+        }
+    }
+
+    /**
+     * Split the free rect (x, y, width, height) that has <code>rect</code> at
+     * its bottom-left corner into a rect to the right of <code>rect</code> and a
+     * rect above it.
+     */
+    private void split(int x, int y, int width, int height, Rect rect){
+        int leftoverWidth = width - rect.width;
+        int leftoverHeight = height - rect.height;
+        boolean splitHorizontally;
+        switch(splitRule){
+            case LongerLeftoverAxis: splitHorizontally = leftoverWidth > leftoverHeight; break;
+            case MinimizeArea: splitHorizontally = rect.width * leftoverHeight > leftoverWidth * rect.height; break;
+            case MaximizeArea: splitHorizontally = rect.width * leftoverHeight <= leftoverWidth * rect.height; break;
+            default: splitHorizontally = leftoverWidth <= leftoverHeight; break;
+        }
+        if(splitHorizontally){
+            //The top rect spans the whole width of the free rect
+            addFreeRect(x + rect.width, y, leftoverWidth, rect.height);
+            addFreeRect(x, y + rect.height, width, leftoverHeight);
+        }
+        else{
+            //The right rect spans the whole height of the free rect
+            addFreeRect(x + rect.width, y, leftoverWidth, height);
+            addFreeRect(x, y + rect.height, rect.width, leftoverHeight);
+        }
+    }
+
+    private void addFreeRect(int x, int y, int width, int height){
+        if(width <= 0 || height <= 0) return;
+        freeRects.add(createFreeRect(x, y, width, height));
+        logFreeRectAdded();
+    }
+
+    /**
+     * Merge pairs of free rects that share a whole side, until no two free
+     * rects can be merged.
+     */
+    void mergeFreeRects(){
+        for(int i=0; i<freeRects.size(); i++){
+            for(int j=i+1; j<freeRects.size(); j++){
+                Rect rectI = freeRects.get(i);
+                Rect rectJ = freeRects.get(j);
+                Rect merged = null;
+                if(rectI.x == rectJ.x && rectI.width == rectJ.width){
+                    if(rectI.y + rectI.height == rectJ.y) merged = createFreeRect(rectI.x, rectI.y, rectI.width, rectI.height + rectJ.height);
+                    else if(rectJ.y + rectJ.height == rectI.y) merged = createFreeRect(rectI.x, rectJ.y, rectI.width, rectI.height + rectJ.height);
+                }
+                else if(rectI.y == rectJ.y && rectI.height == rectJ.height){
+                    if(rectI.x + rectI.width == rectJ.x) merged = createFreeRect(rectI.x, rectI.y, rectI.width + rectJ.width, rectI.height);
+                    else if(rectJ.x + rectJ.width == rectI.x) merged = createFreeRect(rectJ.x, rectI.y, rectI.width + rectJ.width, rectI.height);
+                }
+                if(merged != null){
+                    freeRects.set(i, merged);
+                    logFreeRectReplaced(i, rectI);
+                    freeRects.remove(j);
+                    logFreeRectRemoved(j, rectJ);
+                    //rect i has grown and may now be merged with a rect
+                    //before it, so all the pairs are compared again
+                    i = -1;
+                    break;
+                }
+            }
+        }
+    }
+
+    private Rect createFreeRect(int x, int y, int width, int height){
+        Rect freeRect = new Rect(width, height);
+        freeRect.x = x;
+        freeRect.y = y;
+        return freeRect;
+    }
+
+    public SplitRule getSplitRule(){
+        return splitRule;
+    }
+
+    public void setSplitRule(SplitRule splitRule){
+        this.splitRule = splitRule;
+    }
+
+    public boolean isMerging(){
+        return merge;
+    }
+
+    public void setMerging(boolean merge){
+        this.merge = merge;
+    }
+
+    /**
+     * Check whether the packing in this bin is feasible.
+     * @return <code>true</code> if the packing is valid and <code>false</code> otherwise.
+     */
+    @Override
+    public boolean isFeasible(){
+        //Check if all rects are packed inside the bins and do not overlap
+        if(!super.isFeasible()) return false;
+        //Moreover, check that the free rects are disjoint and empty
+        for(int i=0; i<freeRects.size(); i++){
+            Rect freeRect = freeRects.get(i);
+            for(int j=i+1; j<freeRects.size(); j++)
+                if(isOverlapping(freeRect, freeRects.get(j))) return false;
+            for(Rect rect : packedRects)
+                if(isOverlapping(freeRect, rect)) return false;
+        }
+        return true;
+    }
+}
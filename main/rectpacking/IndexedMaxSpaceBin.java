@@ -0,0 +1,421 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A maximal space bin that keeps its free spaces in a {@link FreeSpaceIndex}.
+ * <p>
+ * The free spaces are the same as in {@link MaxSpaceBin} and they are kept in
+ * the same order in <code>freeRects</code>. The index is used to find the free
+ * spaces that can hold an item, the free spaces that overlap a packed item and
+ * the free spaces that contain a newly generated one, so these queries do not
+ * scan the whole free list. Ties are broken using the order of the free spaces,
+ * hence, the packing is identical to that of {@link MaxSpaceBin}.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class IndexedMaxSpaceBin extends MaxSpaceBin{
+    private static final Comparator<FreeSpaceIndex.Entry> SEQ_ORDER =
+            (e1, e2) -> Long.compare(e1.seq, e2.seq);
+
+    private final FreeSpaceIndex index;
+    /** Free spaces to be removed from the free list (reused between inserts) */
+    private final ArrayList<FreeSpaceIndex.Entry> removed;
+    /** Free spaces generated after packing the last rect (reused between inserts) */
+    private final ArrayList<FreeSpaceIndex.Entry> generated;
+    /** Free spaces removed since the last checkpoint, in the order of the undo log */
+    private final ArrayList<FreeSpaceIndex.Entry> removedEntries;
+    /** Free spaces split from the overlapped ones (reused between inserts) */
+    private final ArrayList<Rect> newFreeRects;
+
+    public IndexedMaxSpaceBin(int binWidth, int binHeight){
+        super(binWidth, binHeight);
+        index = new FreeSpaceIndex(binWidth, binHeight);
+        removed = new ArrayList<>();
+        generated = new ArrayList<>();
+        removedEntries = new ArrayList<>();
+        newFreeRects = new ArrayList<>();
+    }
+
+    public IndexedMaxSpaceBin(Bin newBin){
+        super(newBin);
+        index = new FreeSpaceIndex(binWidth, binHeight);
+        removed = new ArrayList<>();
+        generated = new ArrayList<>();
+        removedEntries = new ArrayList<>();
+        newFreeRects = new ArrayList<>();
+        //The index follows the order of the free list
+        rebuildIndex();
+    }
+
+    @Override
+    protected void setupFreeRects(){
+        super.setupFreeRects();
+        rebuildIndex();
+    }
+    
+    /**
+     * Rebuild the index from the free list.
+     */
+    protected final void rebuildIndex(){
+        index.clear();
+        for(Rect freeRect : freeRects)
+            index.add(freeRect);
+    }
+
+    @Override
+    public boolean evaluatePacking(int width, int height, PackingHeuristic heur, Placement placement){
+        if(listener != null) listener.freeSpacesScanned(countScanned(width, height));
+        switch(heur){
+            case TouchingPerimeter: return evaluateTouchingPerimeter(width, height, placement);
+            case BestAreaFit: return evaluateBestArea(width, height, placement);
+            case TopRightCornerDistance: return evaluateTopRightCornerDistance(width, height, placement);
+            default: return evaluateBestArea(width, height, placement); // Use best area fit as a default heuristic
+        }
+    }
+
+    /**
+     * Find the free rect such that the distance between
+     * the top-right corner of the item and that of the bin is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTopRightCornerDistance(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestDist = -1;
+        FreeSpaceIndex.Entry best = null;
+        boolean isRotated = false;
+        int numBuckets = index.getSizeGridSize();
+        for(int rotation=0; rotation<(canRotate ? 2 : 1); rotation++){
+            boolean rotated = rotation == 1;
+            int w = rotated ? height : width;
+            int h = rotated ? width : height;
+            for(int hi=index.sizeIndex(h, false); hi<numBuckets; hi++){
+                for(int wi=index.sizeIndex(w, true); wi<numBuckets; wi++){
+                    ArrayList<FreeSpaceIndex.Entry> bucket = index.getSizeBucket(wi, hi);
+                    for(int i=0; i<bucket.size(); i++){
+                        FreeSpaceIndex.Entry entry = bucket.get(i);
+                        Rect maxSpace = entry.rect;
+                        if(w > maxSpace.width || h > maxSpace.height) continue;
+                        double dist = computeDistance(maxSpace.x + w, maxSpace.y + h, binWidth, binHeight);
+                        if(dist > largestDist || (dist == largestDist && isEarlier(entry, rotated, best, isRotated))){
+                            largestDist = dist;
+                            best = entry;
+                            isRotated = rotated;
+                        }
+                    }
+                }
+            }
+        }
+        //The current rect cannot be inserted into current bin.
+        if(best == null){
+            return false;
+        }
+        placement.set(-1, best.rect.x, best.rect.y, width, height, isRotated, -largestDist); //smaller is better
+        return true;
+    }
+
+    /**
+     * Find the free rect such that the total touching
+     * perimeter is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTouchingPerimeter(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestTouchingPerimeter = -1;
+        FreeSpaceIndex.Entry best = null;
+        boolean isRotated = false;
+        int numBuckets = index.getSizeGridSize();
+        for(int rotation=0; rotation<(canRotate ? 2 : 1); rotation++){
+            boolean rotated = rotation == 1;
+            int w = rotated ? height : width;
+            int h = rotated ? width : height;
+            for(int hi=index.sizeIndex(h, false); hi<numBuckets; hi++){
+                for(int wi=index.sizeIndex(w, true); wi<numBuckets; wi++){
+                    ArrayList<FreeSpaceIndex.Entry> bucket = index.getSizeBucket(wi, hi);
+                    for(int i=0; i<bucket.size(); i++){
+                        FreeSpaceIndex.Entry entry = bucket.get(i);
+                        Rect maxSpace = entry.rect;
+                        if(w > maxSpace.width || h > maxSpace.height) continue;
+                        double perimeter = computeTouchingPerimeter(maxSpace.x, maxSpace.y, w, h);
+                        if(perimeter > largestTouchingPerimeter
+                                || (perimeter == largestTouchingPerimeter && isEarlier(entry, rotated, best, isRotated))){
+                            largestTouchingPerimeter = perimeter;
+                            best = entry;
+                            isRotated = rotated;
+                        }
+                    }
+                }
+            }
+        }
+        //The current rect cannot be inserted into current bin.
+        if(best == null){
+            return false;
+        }
+        placement.set(-1, best.rect.x, best.rect.y, width, height, isRotated, -largestTouchingPerimeter); //smaller is better
+        return true;
+    }
+
+    /**
+     * Find the free rect such that the the wasted area is
+     * minimized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateBestArea(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        int bestWastedArea = Integer.MAX_VALUE;
+        int bestShortSide = Integer.MAX_VALUE;
+        int area = width * height;
+        FreeSpaceIndex.Entry best = null;
+        boolean isRotated = false;
+        int numBuckets = index.getSizeGridSize();
+        for(int rotation=0; rotation<(canRotate ? 2 : 1); rotation++){
+            boolean rotated = rotation == 1;
+            int w = rotated ? height : width;
+            int h = rotated ? width : height;
+            for(int hi=index.sizeIndex(h, false); hi<numBuckets; hi++){
+                for(int wi=index.sizeIndex(w, true); wi<numBuckets; wi++){
+                    ArrayList<FreeSpaceIndex.Entry> bucket = index.getSizeBucket(wi, hi);
+                    for(int i=0; i<bucket.size(); i++){
+                        FreeSpaceIndex.Entry entry = bucket.get(i);
+                        Rect maxSpace = entry.rect;
+                        if(w > maxSpace.width || h > maxSpace.height) continue;
+                        int wastedArea = maxSpace.width * maxSpace.height - area;
+                        int shortSide = Integer.min(maxSpace.width - w, maxSpace.height - h);
+                        if(wastedArea < bestWastedArea
+                                || (wastedArea == bestWastedArea && shortSide < bestShortSide)
+                                || (wastedArea == bestWastedArea && shortSide == bestShortSide
+                                    && isEarlier(entry, rotated, best, isRotated))){
+                            bestWastedArea = wastedArea;
+                            bestShortSide = shortSide;
+                            best = entry;
+                            isRotated = rotated;
+                        }
+                    }
+                }
+            }
+        }
+        if(best == null){
+            return false;
+        }
+        placement.set(-1, best.rect.x, best.rect.y, width, height, isRotated, bestWastedArea);
+        return true;
+    }
+
+    /**
+     * Count the free spaces visited when evaluating the packing of an item: the
+     * entries of the size buckets large enough for the item (and for the
+     * rotated item if the items can be rotated).
+     * @param width the item's width
+     * @param height the item's height
+     * @return the number of index entries visited
+     */
+    private int countScanned(int width, int height){
+        int numScanned = 0;
+        int numBuckets = index.getSizeGridSize();
+        for(int rotation=0; rotation<(config.canRotate() ? 2 : 1); rotation++){
+            int w = rotation == 1 ? height : width;
+            int h = rotation == 1 ? width : height;
+            for(int hi=index.sizeIndex(h, false); hi<numBuckets; hi++)
+                for(int wi=index.sizeIndex(w, true); wi<numBuckets; wi++)
+                    numScanned += index.getSizeBucket(wi, hi).size();
+        }
+        return numScanned;
+    }
+
+    /**
+     * Check whether a candidate comes before the best candidate found so far in
+     * the order of a linear scan over the free list (upright before rotated).
+     */
+    private boolean isEarlier(FreeSpaceIndex.Entry entry, boolean rotated,
+            FreeSpaceIndex.Entry best, boolean bestRotated){
+        if(best == null) return true;
+        if(entry.seq != best.seq) return entry.seq < best.seq;
+        return !rotated && bestRotated;
+    }
+
+    /**
+     * Generate a new free space (maximal spaces) after packing <code>rect</code>.
+     * <p>
+     * Only the free spaces reported by the index as overlapping <code>rect</code>
+     * are split.
+     * @param rect the last rect inserted in the bin.
+     */
+    @Override
+    protected void generateFreeSpaces(Rect rect){
+        removed.clear();
+        generated.clear();
+        index.collectOverlapping(rect, removed);
+        if(removed.isEmpty()) return;
+        //Split in the order of the free list so the new spaces are in the same
+        //order as in MaxSpaceBin
+        removed.sort(SEQ_ORDER);
+        newFreeRects.clear();
+        for(FreeSpaceIndex.Entry entry : removed){
+            Rect freeRect = entry.rect;
+            //New free rect is on bottom of rect
+            if(rect.y >  freeRect.y && rect.y < freeRect.y + freeRect.height){
+                Rect newFreeRect = new Rect(freeRect);
+                newFreeRect.height = rect.y - freeRect.y;
+                newFreeRects.add(newFreeRect);
+            }
+            //New free is on top of rect
+            if(rect.y + rect.height > freeRect.y && rect.y + rect.height < freeRect.y + freeRect.height){
+                Rect newFreeRect = new Rect(freeRect);
+                newFreeRect.y = rect.y + rect.height;
+                newFreeRect.height = freeRect.y + freeRect.height - (rect.y + rect.height);
+                newFreeRects.add(newFreeRect);
+            }
+            //New free rect is to the left of rect
+            if(rect.x > freeRect.x && rect.x < freeRect.x + freeRect.width){
+                Rect newFreeRect = new Rect(freeRect);
+                newFreeRect.width = rect.x - freeRect.x;
+                newFreeRects.add(newFreeRect);
+            }
+            //New free rect is to the right of rect
+            if(rect.x + rect.width > freeRect.x && rect.x + rect.width < freeRect.x + freeRect.width){
+                Rect newFreeRect = new Rect(freeRect);
+                newFreeRect.x = rect.x + rect.width;
+                newFreeRect.width = freeRect.x + freeRect.width - (rect.x + rect.width);
+                newFreeRects.add(newFreeRect);
+            }
+            index.remove(freeRect);
+        }
+        //Remove the overlapped spaces from the free list keeping the order of the rest
+        removeFreeRects(0);
+        firstNewFreeRect = freeRects.size();
+        for(Rect newFreeRect : newFreeRects){
+            freeRects.add(newFreeRect);
+            logFreeRectAdded();
+            generated.add(index.add(newFreeRect));
+        }
+    }
+
+    /**
+     * Remove the free spaces held by <code>removed</code> from the free list
+     * keeping the order of the rest.
+     * <p>
+     * The free list and <code>removed</code> are both in the order of the
+     * sequence numbers, so the free spaces to be removed are matched in a single
+     * compaction pass over the free list.
+     * @param from the position in the free list of the first free space that
+     * may be removed
+     */
+    private void removeFreeRects(int from){
+        boolean recording = isRecording();
+        int next = 0;
+        int last = from;
+        for(int i=from; i<freeRects.size(); i++){
+            Rect freeRect = freeRects.get(i);
+            if(next < removed.size() && removed.get(next).rect == freeRect){
+                if(recording){
+                    logFreeRectRemoved(last, freeRect);
+                    removedEntries.add(removed.get(next));
+                }
+                next++;
+                continue;
+            }
+            freeRects.set(last++, freeRect);
+        }
+        freeRects.subList(last, freeRects.size()).clear();
+    }
+
+    /**
+     * Remove the non-maximal spaces generated by the last insert.
+     * <p>
+     * The spaces that survived the last insert are still maximal and cannot be
+     * contained in a newly generated space (which is a part of a removed maximal
+     * space). Therefore, only the generated spaces are checked and the index is
+     * used to find the spaces that contain them.
+     */
+    @Override
+    protected void pruneMaxSpaces(){
+        if(!isIncrementalPruning()){
+            pruneAllMaxSpaces();
+            rebuildIndex();
+            generated.clear();
+            return;
+        }
+        //Decide for every generated space before removing any of them
+        removed.clear();
+        for(FreeSpaceIndex.Entry entry : generated)
+            if(index.isRedundant(entry)) removed.add(entry);
+        if(!removed.isEmpty()){
+            for(FreeSpaceIndex.Entry entry : removed)
+                index.remove(entry.rect);
+            //The generated spaces are at the end of the free list
+            removeFreeRects(firstNewFreeRect);
+        }
+        generated.clear();
+    }
+
+    /**
+     * Update the capacity summary from the size grid of the index instead of
+     * scanning the free list.
+     */
+    @Override
+    protected void updateCapacity(){
+        maxFreeWidth = index.getMaxWidth();
+        maxFreeHeight = index.getMaxHeight();
+        maxFreeArea = index.getMaxArea();
+    }
+
+    @Override
+    public boolean remove(Rect rect){
+        if(!super.remove(rect)) return false;
+        rebuildIndex();
+        updateCapacity();
+        return true;
+    }
+
+    @Override
+    public void rebuild(List<Rect> rects){
+        super.rebuild(rects);
+        rebuildIndex();
+        updateCapacity();
+    }
+
+    /**
+     * Undo the inserts made since the last checkpoint.
+     * <p>
+     * In the incremental pruning mode, the removed free spaces are put back in
+     * the index with their sequence numbers, so the index follows the order of
+     * the free list again. Otherwise, the index is rebuilt.
+     */
+    @Override
+    public void rollback(){
+        super.rollback();
+        if(!isIncrementalPruning()) rebuildIndex();
+        removedEntries.clear();
+    }
+
+    @Override
+    public void commit(){
+        super.commit();
+        removedEntries.clear();
+    }
+
+    @Override
+    protected void undoFreeRectRemoved(int position, Rect rect){
+        super.undoFreeRectRemoved(position, rect);
+        if(isIncrementalPruning())
+            index.restore(removedEntries.remove(removedEntries.size() - 1));
+    }
+
+    @Override
+    protected void undoFreeRectAdded(){
+        if(isIncrementalPruning())
+            index.remove(freeRects.get(freeRects.size() - 1));
+        super.undoFreeRectAdded();
+    }
+}
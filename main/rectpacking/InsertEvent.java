@@ -0,0 +1,37 @@
+package rectpacking;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Java Flight Recorder event emitted when an item is inserted in a
+ * {@link MaxSpaceBin}, covering the update of the free spaces.
+ * <p>
+ * By default, only the insertions lasting at least 100 us are recorded. The
+ * threshold can be changed in the recording settings
+ * (<code>rectpacking.Insert#threshold</code>).
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+@Name("rectpacking.Insert")
+@Label("Insert")
+@Category("Rect Packing")
+@Description("Insertion of an item in a maximal space bin")
+@Threshold("100 us")
+@StackTrace(false)
+final class InsertEvent extends jdk.jfr.Event {
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Free Spaces Before")
+    int freeSpacesBefore;
+
+    @Label("Free Spaces After")
+    int freeSpacesAfter;
+}
@@ -1,6 +1,8 @@
 package rectpacking;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * An instance of the two-dimensional bin packing problem.
@@ -10,43 +12,71 @@ import java.util.ArrayList;
  *  <li>The bin dimensions (width and height).</li>
  *  <li>The list of items to be packed.</li>
  * </ul>
+ * An instance is immutable: the items are {@link Item}s and the packings never
+ * modify them. Hence, an instance can be shared by any number of threads, each
+ * of them packing the items into its own solution.
  * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
  */
-public class Instance {
-    public int binWidth;
-    public int binHeight;
-    public ArrayList<Rect> queue;
+public final class Instance {
+    public final int binWidth;
+    public final int binHeight;
+    private final List<Item> items;
     
-    public Instance(){
-        binWidth = 0;
-        binHeight = 0;
-        queue = new ArrayList<>();
-    }
-    
-    public Instance(int binWidth, int binHeight){
+    /**
+     * Create an instance.
+     * @param binWidth the width of the bins
+     * @param binHeight the height of the bins
+     * @param items the items. The list is copied
+     */
+    public Instance(int binWidth, int binHeight, List<Item> items){
         this.binWidth = binWidth;
         this.binHeight = binHeight;
-        queue = new ArrayList<>();
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
     }
     
-    public void loadRectToPack(ArrayList<Rect> queue){
-        this.queue = new ArrayList<>(queue.size());
-        for(int i=0; i < queue.size(); i++){
-            Rect rect = queue.get(i);
-            this.queue.add(rect);
-        }
+    /**
+     * Create an instance from the dimensions of its items.
+     * @param binWidth the width of the bins
+     * @param binHeight the height of the bins
+     * @param widths the widths of the items
+     * @param heights the heights of the items
+     * @return an instance whose item <code>i</code> is of size
+     * <code>widths[i] x heights[i]</code>
+     */
+    public static Instance of(int binWidth, int binHeight, int[] widths, int[] heights){
+        if(widths.length != heights.length)
+            throw new IllegalArgumentException("There must be as many widths as heights");
+        List<Item> items = new ArrayList<>(widths.length);
+        for(int i=0; i<widths.length; i++)
+            items.add(new Item(i, widths[i], heights[i]));
+        return new Instance(binWidth, binHeight, items);
     }
     
-    public void loadRect(Rect rect){
-        this.queue.add(rect);
+    /**
+     * Get the items of this instance.
+     * @return an unmodifiable list of the items, in the order of the instance
+     */
+    public List<Item> getItems(){
+        return items;
     }
     
-    public void setBinDim(int binWidth, int binHeight){
-        this.binWidth = binWidth;
-        this.binHeight = binHeight;
+    public Item getItem(int index){
+        return items.get(index);
+    }
+    
+    /**
+     * Create a rect for every item of this instance. The rects belong to the
+     * caller, who may reorder or modify them.
+     * @return a new list of new rects, in the order of the items
+     */
+    public ArrayList<Rect> createRects(){
+        ArrayList<Rect> rects = new ArrayList<>(items.size());
+        for(Item item : items)
+            rects.add(item.createRect());
+        return rects;
     }
     
     public int size(){
-        return this.queue.size();
+        return items.size();
     }
-}
\ No newline at end of file
+}
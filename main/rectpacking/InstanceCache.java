@@ -0,0 +1,204 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A cache of instance files in the binary encoding of {@link InstanceCodec}.
+ * <p>
+ * An entry of the cache is named after the SHA-256 hash of the absolute path
+ * of its instance file. It starts with the path, the size, the modification
+ * time and the SHA-256 hash of the content of the instance file. As in
+ * {@link InstanceFile}, the entry is used without reading the instance file
+ * while its size and modification time are the ones recorded. Otherwise, the
+ * instance file is read and hashed, and the entry is used only if the content
+ * has not changed (the entry is then written again with the new modification
+ * time). An entry recorded for another path is never decoded. When there is no
+ * entry for a file, the file is parsed and the entry is written. The cache
+ * never fails a read: an entry that cannot be read or does not match the file
+ * is ignored and an entry that cannot be written is skipped.
+ * <p>
+ * On file systems supporting POSIX permissions, the directory of the cache is
+ * created readable and writable by its owner only.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class InstanceCache {
+    private static final String EXTENSION = ".2bpb";
+    /** The number of bytes of a SHA-256 hash */
+    private static final int HASH_LENGTH = 32;
+    private final Path directory;
+
+    /**
+     * Create a cache whose entries are kept in <code>directory</code>. The
+     * directory is created when the first entry is written.
+     * @param directory the directory of the cache
+     */
+    public InstanceCache(Path directory){
+        this.directory = directory;
+    }
+
+    /**
+     * Get a cache in the directory <code>.cache/rectpacking</code> of the home
+     * directory of the user, so the entries are not shared with other users.
+     * @return the default cache
+     */
+    public static InstanceCache getDefault(){
+        return new InstanceCache(Paths.get(System.getProperty("user.home"), ".cache", "rectpacking"));
+    }
+
+    /**
+     * Read all the instances of an instance file, from the cache if possible.
+     * @param path path to the instance file
+     * @return the instances in the order of the file
+     * @throws IOException if the instance file cannot be read or is malformed
+     */
+    public ArrayList<Instance> read(Path path) throws IOException{
+        byte[] source = path.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+        long fileSize = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        Path entry = directory.resolve(toHex(hash(ByteBuffer.wrap(source))) + EXTENSION);
+        ByteBuffer content = null;
+        byte[] hash = null;
+        ArrayList<Instance> instances = null;
+        if(Files.isRegularFile(entry)){
+            try(FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)){
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                byte[] entryHash = new byte[HASH_LENGTH];
+                buffer.get(entryHash);
+                long entrySize = buffer.getLong();
+                long entryModified = buffer.getLong();
+                int sourceLength = buffer.getInt();
+                if(sourceLength == source.length){
+                    byte[] entrySource = new byte[sourceLength];
+                    buffer.get(entrySource);
+                    if(Arrays.equals(entrySource, source)){
+                        //The file has not changed since the entry was written
+                        if(entrySize == fileSize && entryModified == lastModified)
+                            return InstanceCodec.decode(buffer);
+                        //The file may have been touched only
+                        content = load(path);
+                        hash = hash(content.duplicate());
+                        if(Arrays.equals(hash, entryHash)) instances = InstanceCodec.decode(buffer);
+                    }
+                }
+            }
+            catch(IOException | BufferUnderflowException ex){
+                //The entry is corrupted or belongs to another file, it is
+                //written again below
+            }
+        }
+        if(content == null) content = load(path);
+        if(hash == null) hash = hash(content.duplicate());
+        if(instances == null){
+            try{
+                instances = InstanceParser.parse(content);
+            }
+            catch(IOException ex){
+                throw new IOException(path + ": " + ex.getMessage(), ex);
+            }
+        }
+        writeEntry(entry, source, fileSize, lastModified, hash, instances);
+        return instances;
+    }
+
+    /**
+     * The content of an instance file.
+     */
+    private static ByteBuffer load(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            return InstanceParser.load(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Write an entry through a temporary file so that a concurrent reader never
+     * sees a partial entry.
+     */
+    private void writeEntry(Path entry, byte[] source, long fileSize, long lastModified, byte[] hash,
+            ArrayList<Instance> instances){
+        try{
+            createDirectory();
+            Path tempFile = Files.createTempFile(directory, "entry", ".tmp");
+            try{
+                ByteBuffer header = ByteBuffer.allocate(HASH_LENGTH + 20 + source.length);
+                header.put(hash).putLong(fileSize).putLong(lastModified).putInt(source.length).put(source);
+                header.flip();
+                ByteBuffer encoding = InstanceCodec.encode(instances);
+                try(FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)){
+                    while(header.hasRemaining()) channel.write(header);
+                    while(encoding.hasRemaining()) channel.write(encoding);
+                }
+                try{
+                    Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch(AtomicMoveNotSupportedException ex){
+                    Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally{
+                Files.deleteIfExists(tempFile);
+            }
+        }
+        catch(IOException ex){
+            //The cache is optional, the file will be parsed again next time
+        }
+    }
+
+    /**
+     * Create the directory of the cache, readable and writable by its owner
+     * only if the file system supports POSIX permissions.
+     */
+    private void createDirectory() throws IOException{
+        if(Files.isDirectory(directory)) return;
+        if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            Files.createDirectories(directory, 
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        else
+            Files.createDirectories(directory);
+    }
+
+    /**
+     * The SHA-256 hash of the bytes of <code>content</code>.
+     */
+    private static byte[] hash(ByteBuffer content){
+        MessageDigest digest;
+        try{
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch(NoSuchAlgorithmException ex){
+            //Every Java platform supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+        digest.update(content);
+        return digest.digest();
+    }
+
+    /**
+     * The bytes of a hash in hexadecimal.
+     */
+    private static String toHex(byte[] hash){
+        StringBuilder hex = new StringBuilder();
+        for(byte b : hash)
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    public Path getDirectory(){
+        return directory;
+    }
+}
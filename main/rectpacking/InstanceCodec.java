@@ -0,0 +1,142 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary encoding of instances.
+ * <p>
+ * The encoding starts with a magic number, a version and the number of
+ * instances. Every instance is then encoded as its bin width, its bin height,
+ * its number of items, the number of bytes used by an item dimension (2 if all
+ * the dimensions are smaller than 65536 and 4 otherwise) and the width and the
+ * height of every item. All the numbers are big-endian.
+ * <p>
+ * A file is read through a memory-mapped buffer and the items are decoded
+ * directly from it, without copying the file in memory first.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public final class InstanceCodec {
+    private static final int MAGIC = 0x32425042; //"2BPB"
+    private static final int VERSION = 1;
+
+    private InstanceCodec(){
+    }
+
+    /**
+     * Encode instances.
+     * @param instances the instances
+     * @return a buffer holding the encoding, from its position to its limit
+     */
+    public static ByteBuffer encode(List<Instance> instances){
+        int size = 12;
+        for(Instance instance : instances)
+            size += 13 + 2*getItemBytes(instance)*instance.size();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(instances.size());
+        for(Instance instance : instances){
+            int itemBytes = getItemBytes(instance);
+            buffer.putInt(instance.binWidth);
+            buffer.putInt(instance.binHeight);
+            buffer.putInt(instance.size());
+            buffer.put((byte) itemBytes);
+            for(Item item : instance.getItems()){
+                if(itemBytes == 2){
+                    buffer.putShort((short) item.width);
+                    buffer.putShort((short) item.height);
+                }
+                else{
+                    buffer.putInt(item.width);
+                    buffer.putInt(item.height);
+                }
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * The number of bytes used by an item dimension of an instance.
+     */
+    private static int getItemBytes(Instance instance){
+        for(Item item : instance.getItems())
+            if(item.width < 0 || item.height < 0 || item.width > 0xFFFF || item.height > 0xFFFF)
+                return 4;
+        return 2;
+    }
+
+    /**
+     * Decode instances.
+     * @param buffer the encoding, from the position of the buffer to its limit.
+     * The position of the buffer is moved past the encoding
+     * @return the instances
+     * @throws IOException if the encoding is malformed
+     */
+    public static ArrayList<Instance> decode(ByteBuffer buffer) throws IOException{
+        try{
+            if(buffer.getInt() != MAGIC) throw new IOException("Not an encoding of instances");
+            if(buffer.getInt() != VERSION) throw new IOException("Unsupported version of the encoding of instances");
+            int numInstances = buffer.getInt();
+            //An instance takes 13 bytes at least
+            if(numInstances < 0 || numInstances > buffer.remaining()/13) throw new IOException("Truncated encoding of instances");
+            ArrayList<Instance> instances = new ArrayList<>(numInstances);
+            for(int k=0; k<numInstances; k++){
+                int binWidth = buffer.getInt();
+                int binHeight = buffer.getInt();
+                int numItems = buffer.getInt();
+                int itemBytes = buffer.get();
+                if(itemBytes != 2 && itemBytes != 4) throw new IOException("Malformed encoding of instances");
+                if(numItems < 0 || numItems > buffer.remaining()/(2*itemBytes)) throw new IOException("Truncated encoding of instances");
+                List<Item> items = new ArrayList<>(numItems);
+                for(int i=0; i<numItems; i++){
+                    if(itemBytes == 2)
+                        items.add(new Item(i, Short.toUnsignedInt(buffer.getShort()), Short.toUnsignedInt(buffer.getShort())));
+                    else
+                        items.add(new Item(i, buffer.getInt(), buffer.getInt()));
+                }
+                instances.add(new Instance(binWidth, binHeight, items));
+            }
+            return instances;
+        }
+        catch(BufferUnderflowException ex){
+            throw new IOException("Truncated encoding of instances", ex);
+        }
+    }
+
+    /**
+     * Write instances to a file.
+     * @param instances the instances
+     * @param path path to the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<Instance> instances, Path path) throws IOException{
+        ByteBuffer buffer = encode(instances);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            while(buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    /**
+     * Read instances from a file written by {@link #write(List, Path)}.
+     * @param path path to the file
+     * @return the instances
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static ArrayList<Instance> read(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch(IOException ex){
+            throw new IOException(path + ": " + ex.getMessage(), ex);
+        }
+    }
+}
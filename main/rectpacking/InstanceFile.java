@@ -0,0 +1,139 @@
+package rectpacking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * An instance file whose instances are read on demand.
+ * <p>
+ * Opening the file only finds where each instance starts (see
+ * {@link InstanceParser#findInstances(FileChannel, long, long)}). An instance is parsed the
+ * first time it is asked for and then kept, so the time to open a large file
+ * does not depend on the number of items in it.
+ * <p>
+ * The offsets of the instances can be kept in an index file next to the
+ * instance file (the name of the instance file followed by <code>.idx</code>).
+ * The index file is used as long as the size and the modification time of the
+ * instance file are the ones it records. Otherwise, it is written again.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class InstanceFile {
+    private static final int INDEX_MAGIC = 0x32425049; //"2BPI"
+    private final Path path;
+    private final long fileSize;
+    /** The position of the first heading line of every instance */
+    private final long[] offsets;
+    /** The instances parsed so far */
+    private final Instance[] instances;
+
+    /**
+     * Open an instance file without keeping an index file.
+     * @param path path to the instance file
+     * @throws IOException if the file cannot be read
+     */
+    public InstanceFile(Path path) throws IOException{
+        this(path, false);
+    }
+
+    /**
+     * Open an instance file.
+     * @param path path to the instance file
+     * @param persistIndex whether the offsets of the instances are read from,
+     * and written to, an index file next to the instance file. An index file
+     * that cannot be written is ignored
+     * @throws IOException if the instance file cannot be read
+     */
+    public InstanceFile(Path path, boolean persistIndex) throws IOException{
+        this.path = path;
+        fileSize = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        Path indexPath = path.resolveSibling(path.getFileName() + ".idx");
+        long[] indexOffsets = persistIndex ? readIndex(indexPath, lastModified) : null;
+        if(indexOffsets == null){
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+                indexOffsets = InstanceParser.findInstances(channel, 0, fileSize);
+            }
+            if(persistIndex) writeIndex(indexPath, lastModified, indexOffsets);
+        }
+        offsets = indexOffsets;
+        instances = new Instance[offsets.length];
+    }
+
+    /**
+     * The number of instances in the file.
+     * @return the number of instances
+     */
+    public int size(){
+        return offsets.length;
+    }
+
+    /**
+     * Get an instance, parsing it if it is asked for the first time.
+     * @param instanceID the index of the instance in the file
+     * @return the instance
+     * @throws IOException if the instance cannot be read or is malformed
+     */
+    public synchronized Instance getInstance(int instanceID) throws IOException{
+        if(instances[instanceID] == null){
+            long start = offsets[instanceID];
+            long end = instanceID + 1 < offsets.length ? offsets[instanceID + 1] : fileSize;
+            ArrayList<Instance> parsed;
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+                parsed = InstanceParser.parse(InstanceParser.load(channel, start, end - start));
+            }
+            catch(IOException ex){
+                throw new IOException(path + ", instance " + instanceID + ": " + ex.getMessage(), ex);
+            }
+            if(parsed.size() != 1)
+                throw new IOException(path + ", instance " + instanceID + ": one instance is expected");
+            instances[instanceID] = parsed.get(0);
+        }
+        return instances[instanceID];
+    }
+
+    /**
+     * Read the offsets of the instances from the index file.
+     * @return the offsets, or <code>null</code> if there is no valid index file
+     */
+    private long[] readIndex(Path indexPath, long lastModified){
+        if(!Files.isRegularFile(indexPath)) return null;
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))){
+            if(in.readInt() != INDEX_MAGIC || in.readLong() != fileSize || in.readLong() != lastModified)
+                return null;
+            long[] indexOffsets = new long[in.readInt()];
+            for(int i=0; i<indexOffsets.length; i++)
+                indexOffsets[i] = in.readLong();
+            return indexOffsets;
+        }
+        catch(IOException ex){
+            //A truncated or unreadable index is built again
+            return null;
+        }
+    }
+
+    private void writeIndex(Path indexPath, long lastModified, long[] indexOffsets){
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)))){
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeInt(indexOffsets.length);
+            for(long offset : indexOffsets)
+                out.writeLong(offset);
+        }
+        catch(IOException ex){
+            //The index is only a cache, the offsets are found again next time
+        }
+    }
+
+    public Path getPath(){
+        return path;
+    }
+}
@@ -0,0 +1,298 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parser of the instance files of the two-dimensional bin packing problem
+ * (the <code>Class_XX.2bp</code> files).
+ * <p>
+ * Every instance of a file starts with four heading lines: the problem class
+ * (a line containing <code>PROBLEM</code>), the number of items, the numbering
+ * of the instance and the bin dimensions. Then, there is one line per item
+ * giving its dimensions. The parser reads the bytes of the file directly: it
+ * does not create a string per line, and the number of items given in the
+ * heading tells where the instance ends. Hence, the blank lines between the
+ * instances are optional and the last instance is read even if the file does
+ * not end with a blank line. Only the leading numbers of a line are read, the
+ * text after them is ignored. Both <code>\n</code> and <code>\r\n</code> line
+ * endings are accepted.
+ * <p>
+ * As in the original reader, the first dimension of a line is read as the width
+ * and the second one as the height.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public final class InstanceParser {
+    /** Parts of a file of at least this size are memory-mapped instead of being read */
+    private static final long MAP_THRESHOLD = 1 << 20;
+    /** The size of the parts of a file read at once to find its instances */
+    private static final int WINDOW_SIZE = 1 << 30;
+    private static final byte[] PROBLEM = {'P', 'R', 'O', 'B', 'L', 'E', 'M'};
+
+    private final ByteBuffer buffer;
+    private int limit;
+    /** Whether the end of the content was reached in the middle of an instance */
+    private boolean isTruncated;
+    /** The position of the next byte to read */
+    private int pos;
+    /** The number of the line being read (starting from 1) */
+    private int lineNumber;
+
+    private InstanceParser(ByteBuffer buffer){
+        this.buffer = buffer;
+        limit = buffer.limit();
+        pos = buffer.position();
+        lineNumber = 1;
+    }
+
+    /**
+     * Read all the instances of a file.
+     * @param path path to the instance file
+     * @return the instances in the order of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static ArrayList<Instance> parse(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            ByteBuffer buffer = load(channel, 0, channel.size());
+            try{
+                return parse(buffer);
+            }
+            catch(IOException ex){
+                throw new IOException(path + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Get the bytes of a part of a file. Large parts are memory-mapped.
+     * @param channel the file
+     * @param offset the position of the first byte
+     * @param length the number of bytes
+     * @return a buffer holding the bytes
+     * @throws IOException if the file cannot be read
+     */
+    static ByteBuffer load(FileChannel channel, long offset, long length) throws IOException{
+        if(length > Integer.MAX_VALUE) throw new IOException("The instance file is too large");
+        if(length >= MAP_THRESHOLD)
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while(buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Read all the instances held by the bytes of <code>buffer</code> from its
+     * position to its limit. The position of the buffer is not changed.
+     * @param buffer the content of an instance file
+     * @return the instances in the order of the content
+     * @throws IOException if the content is malformed
+     */
+    public static ArrayList<Instance> parse(ByteBuffer buffer) throws IOException{
+        return new InstanceParser(buffer).parseInstances();
+    }
+
+    /**
+     * Find where the instances held by <code>buffer</code> start, without
+     * reading them.
+     * <p>
+     * Only the headings of the instances are read, the lines of the items are
+     * skipped using the number of items given in the heading. An instance can
+     * be read later by parsing the bytes from its start to the start of the
+     * next one.
+     * @param buffer the content of an instance file
+     * @return the positions, relative to the position of the buffer, of the
+     * first heading line of every instance
+     * @throws IOException if a heading is malformed
+     */
+    public static long[] findInstances(ByteBuffer buffer) throws IOException{
+        return new InstanceParser(buffer).findHeadings(false);
+    }
+
+    /**
+     * Find where the instances of a part of a file start, without reading them.
+     * <p>
+     * Unlike {@link #findInstances(ByteBuffer)}, the part is not loaded at
+     * once but in windows of 1 GB, so it can be larger than 2 GB. A window
+     * ends after its last complete instance and the next one starts there,
+     * hence an instance must not be larger than a window.
+     * @param channel the file
+     * @param offset the position of the first byte of the part
+     * @param length the number of bytes of the part
+     * @return the positions, relative to <code>offset</code>, of the first
+     * heading line of every instance
+     * @throws IOException if the file cannot be read or a heading is malformed
+     */
+    public static long[] findInstances(FileChannel channel, long offset, long length) throws IOException{
+        return findInstances(channel, offset, length, WINDOW_SIZE);
+    }
+
+    static long[] findInstances(FileChannel channel, long offset, long length, int windowSize) throws IOException{
+        long[] offsets = new long[0];
+        int lineNumber = 1;
+        long windowStart = 0;
+        while(windowStart < length){
+            boolean isLast = length - windowStart <= windowSize;
+            ByteBuffer buffer = load(channel, offset + windowStart, isLast ? length - windowStart : windowSize);
+            InstanceParser parser = new InstanceParser(buffer);
+            parser.lineNumber = lineNumber;
+            //Only the complete lines of the window are read
+            if(!isLast) while(parser.limit > 0 && buffer.get(parser.limit - 1) != '\n') parser.limit--;
+            long[] found = parser.findHeadings(!isLast);
+            if(!isLast && parser.pos == 0)
+                throw parser.error("an instance is larger than " + windowSize + " bytes");
+            int numInstances = offsets.length;
+            offsets = Arrays.copyOf(offsets, numInstances + found.length);
+            for(int i=0; i<found.length; i++)
+                offsets[numInstances + i] = windowStart + found[i];
+            windowStart += parser.pos;
+            lineNumber = parser.lineNumber;
+        }
+        return offsets;
+    }
+
+    /**
+     * Find the headings from the position to the limit.
+     * @param isPartial whether the content may end in the middle of an
+     * instance. If so, the reading stops at the start of that instance
+     */
+    private long[] findHeadings(boolean isPartial) throws IOException{
+        long[] offsets = new long[64];
+        int numInstances = 0;
+        int start = pos;
+        while(skipBlankLines()){
+            int instanceStart = pos;
+            int instanceLine = lineNumber;
+            if(!lineContains(PROBLEM)) throw error("a PROBLEM heading is expected");
+            try{
+                nextLine();
+                expectLine();
+                int numItems = readInt();
+                nextLine();
+                //Skip the two other heading lines and the items
+                for(int i=0; i<numItems+2; i++){
+                    expectLine();
+                    nextLine();
+                }
+            }
+            catch(IOException ex){
+                if(!isPartial || !isTruncated) throw ex;
+                pos = instanceStart;
+                lineNumber = instanceLine;
+                break;
+            }
+            if(numInstances == offsets.length) offsets = Arrays.copyOf(offsets, 2*offsets.length);
+            offsets[numInstances++] = instanceStart - start;
+        }
+        return Arrays.copyOf(offsets, numInstances);
+    }
+
+    private ArrayList<Instance> parseInstances() throws IOException{
+        ArrayList<Instance> instances = new ArrayList<>(50);
+        while(skipBlankLines()){
+            if(!lineContains(PROBLEM)) throw error("a PROBLEM heading is expected");
+            nextLine();
+            //Number of items
+            expectLine();
+            int numItems = readInt();
+            nextLine();
+            //Numbering of the instance, not interesting
+            expectLine();
+            nextLine();
+            //Bin dimensions
+            expectLine();
+            int binWidth = readInt();
+            int binHeight = readInt();
+            nextLine();
+            List<Item> items = new ArrayList<>(numItems);
+            for(int i=0; i<numItems; i++){
+                expectLine();
+                int width = readInt();
+                int height = readInt();
+                nextLine();
+                items.add(new Item(i, width, height));
+            }
+            instances.add(new Instance(binWidth, binHeight, items));
+        }
+        return instances;
+    }
+
+    /**
+     * Move to the first line that is not blank.
+     * @return <code>false</code> if the end of the content is reached
+     */
+    private boolean skipBlankLines(){
+        while(pos < limit){
+            int i = pos;
+            while(i < limit && isSpace(buffer.get(i))) i++;
+            if(i < limit && buffer.get(i) != '\n') return true;
+            pos = i;
+            nextLine();
+        }
+        return false;
+    }
+
+    private void expectLine() throws IOException{
+        if(!skipBlankLines()){
+            isTruncated = true;
+            throw error("unexpected end of file");
+        }
+    }
+
+    /**
+     * Whether the current line contains <code>word</code>.
+     */
+    private boolean lineContains(byte[] word){
+        for(int i=pos; i<limit && buffer.get(i) != '\n'; i++){
+            int j = 0;
+            while(j < word.length && i + j < limit && buffer.get(i + j) == word[j]) j++;
+            if(j == word.length) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Read the next integer of the current line.
+     */
+    private int readInt() throws IOException{
+        while(pos < limit && isSpace(buffer.get(pos))) pos++;
+        boolean isNegative = pos < limit && buffer.get(pos) == '-';
+        if(isNegative) pos++;
+        int start = pos;
+        long value = 0;
+        while(pos < limit){
+            byte b = buffer.get(pos);
+            if(b < '0' || b > '9') break;
+            value = 10*value + (b - '0');
+            if(value > Integer.MAX_VALUE) throw error("a number is too large");
+            pos++;
+        }
+        if(pos == start) throw error("a number is expected");
+        return (int) (isNegative ? -value : value);
+    }
+
+    /**
+     * Move to the beginning of the next line.
+     */
+    private void nextLine(){
+        while(pos < limit && buffer.get(pos) != '\n') pos++;
+        if(pos < limit){
+            pos++;
+            lineNumber++;
+        }
+    }
+
+    private static boolean isSpace(byte b){
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private IOException error(String message){
+        return new IOException("Malformed instance file at line " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,86 @@
+package rectpacking;
+
+/**
+ * An item of an instance: its identifier and its dimensions.
+ * <p>
+ * An item is immutable. The position of an item in a bin is not held by the
+ * item but by the rect placing it (see {@link Rect#itemID}), which belongs to
+ * the solution packing the item. Hence, the items of an instance can be packed
+ * by several solutions at the same time.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public final class Item implements Packable {
+    /** The index of the item in its instance */
+    public final int id;
+    /** The side of the item that is parallel to x-axis (convention) */
+    public final int width;
+    /** The side of the item that is parallel to y-axis (convention) */
+    public final int height;
+    /** The area of the item */
+    public final int area;
+
+    /**
+     * Create an item.
+     * @param id the index of the item in its instance
+     * @param width the width of the item
+     * @param height the height of the item
+     */
+    public Item(int id, int width, int height){
+        this.id = id;
+        this.width = width;
+        this.height = height;
+        this.area = width * height;
+    }
+
+    @Override
+    public int getWidth(){
+        return width;
+    }
+
+    @Override
+    public int getHeight(){
+        return height;
+    }
+
+    @Override
+    public int getArea(){
+        return area;
+    }
+
+    @Override
+    public int getItemID(){
+        return id;
+    }
+
+    /**
+     * Create a rect of the dimensions of this item, not packed yet.
+     * @return a new rect recording the identifier of this item
+     */
+    public Rect createRect(){
+        Rect rect = new Rect(width, height);
+        rect.itemID = id;
+        return rect;
+    }
+
+    @Override
+    public boolean equals(Object object){
+        if(this == object) return true;
+        if(!(object instanceof Item)) return false;
+        Item item = (Item) object;
+        return id == item.id && width == item.width && height == item.height;
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = 7;
+        hash = 79 * hash + id;
+        hash = 79 * hash + width;
+        hash = 79 * hash + height;
+        return hash;
+    }
+
+    @Override
+    public String toString(){
+        return "Item " + id + " (" + width + ", " + height + ")";
+    }
+}
@@ -1,82 +1,117 @@
 package rectpacking;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import rectpacking.RectPacking.PackingHeuristic;
 import static rectpacking.RectPacking.PackingHeuristic.BestAreaFit;
 import static rectpacking.RectPacking.PackingHeuristic.TopRightCornerDistance;
 import static rectpacking.RectPacking.PackingHeuristic.TouchingPerimeter;
-import static rectpacking.RectPacking.canRotate;
 
 /**
  * A class implementing the maximal space data structure.
  * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
  */
 public class MaxSpaceBin extends Bin{
+    /** Index of the first free rect generated by the last call to generateFreeSpaces */
+    protected int firstNewFreeRect;
+    /** Whether only the newly generated free rects are checked when pruning */
+    private boolean incrementalPruning;
+    /** Marks the new free rects that are not maximal (reused between inserts) */
+    private boolean[] redundant;
     
     public MaxSpaceBin(int binWidth, int binHeight){
         super(binWidth, binHeight);
+        incrementalPruning = true;
+        redundant = new boolean[16];
     }
     
     public MaxSpaceBin(Bin newBin){
         super(newBin);
+        firstNewFreeRect = freeRects.size();
+        incrementalPruning = !(newBin instanceof MaxSpaceBin) || ((MaxSpaceBin) newBin).incrementalPruning;
+        redundant = new boolean[16];
     }
     
     @Override
-    public Rect evaluatePacking(Rect rect, PackingHeuristic heur){
-        Rect newRect; 
+    protected void setupFreeRects(){
+        super.setupFreeRects();
+        firstNewFreeRect = freeRects.size();
+    }
+    
+    @Override
+    public boolean evaluatePacking(int width, int height, PackingHeuristic heur, Placement placement){
+        if(listener != null) listener.freeSpacesScanned(freeRects.size());
         switch(heur){
-            case TouchingPerimeter: newRect = insertTouchingPerimeter(rect); break;
-            case BestAreaFit: newRect = insertBestArea(rect); break;
-            case TopRightCornerDistance: newRect = insertTopRightCornerDistance(rect); break;
-            default: newRect = insertBestArea(rect); break; // Use best area fit as a default heuristic
+            case TouchingPerimeter: return evaluateTouchingPerimeter(width, height, placement);
+            case BestAreaFit: return evaluateBestArea(width, height, placement);
+            case TopRightCornerDistance: return evaluateTopRightCornerDistance(width, height, placement);
+            default: return evaluateBestArea(width, height, placement); // Use best area fit as a default heuristic
         }
-        return newRect;
     }
     
     @Override
-    public boolean insert(Rect rect, PackingHeuristic heuristic){
-        Rect newRect;
-        //Check whether rect is ready for packing, i.e., method "evaluatePacking" has already been invoked
-        if(!rect.isReadyForPacking()){
-            switch(heuristic){
-                case TouchingPerimeter: newRect = insertTouchingPerimeter(rect); break;
-                case BestAreaFit: newRect = insertBestArea(rect); break;
-                case TopRightCornerDistance: newRect = insertTopRightCornerDistance(rect); break;
-                default: newRect = insertBestArea(rect); break; // Use best area fit as a default heuristic
-            }
+    protected void placeRect(Rect rect){
+        InsertEvent event = new InsertEvent();
+        event.begin();
+        int numFreeRects = freeRects.size();
+        //The rect can be packed in the bin.
+        packRect(rect);
+        if(listener != null){
+            updateFreeSpacesObserved(rect);
         }
         else{
-            newRect = new Rect(rect);
+            //Generate new free rects after packing the current rect.
+            generateFreeSpaces(rect);
+            //Remove degenerate and non-maximal spaces.
+            pruneMaxSpaces();
         }
-        //If packing rect is not possible
-        if(newRect == null){
-            return false;
+        event.end();
+        if(event.shouldCommit()){
+            event.width = rect.width;
+            event.height = rect.height;
+            event.freeSpacesBefore = numFreeRects;
+            event.freeSpacesAfter = freeRects.size();
+            event.commit();
         }
-        
-        //The rect can be packed in the bin.
-        packRect(newRect);
-        //Generate new free rects after packing the current rect.
-        generateFreeSpaces(newRect);
-        //Remove degenerate and non-maximal spaces.
-        pruneMaxSpaces();        
-        return true;
+    }
+    
+    /**
+     * Generate and prune the free spaces after packing <code>rect</code>,
+     * reporting the work to the listener.
+     */
+    private void updateFreeSpacesObserved(Rect rect){
+        boolean timing = listener.isTimingEnabled();
+        long start = timing ? System.nanoTime() : 0;
+        generateFreeSpaces(rect);
+        long end = timing ? System.nanoTime() : 0;
+        if(timing) listener.phaseTimed(PackingListener.Phase.Generate, end - start);
+        int numFreeRects = freeRects.size();
+        listener.freeSpacesCreated(numFreeRects - firstNewFreeRect);
+        pruneMaxSpaces();
+        if(timing) listener.phaseTimed(PackingListener.Phase.Prune, System.nanoTime() - end);
+        listener.freeSpacesPruned(numFreeRects - freeRects.size());
     }
    
     
     /**
-     * Insert <code>rect</code> in the free rect such that the distance between
-     * the top-right corner of the rect and that of the bin is maximized.
-     * @param rect
-     * @return a rect with the correct (x,y) coordinate inside the bin.
+     * Find the free rect such that the distance between the top-right corner of
+     * the item and that of the bin is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
      */
-    private Rect insertTopRightCornerDistance(Rect rect){
+    private boolean evaluateTopRightCornerDistance(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
         double largestDist = -1;
         int bestMaxSpaceIndex = -1;
         boolean isRotated = false;
         for(int i=0; i<freeRects.size(); i++){
             Rect maxSpace = freeRects.get(i);
             //try to fit rect into maxSpace in upright position
-            if(rect.width <= maxSpace.width && rect.height <= maxSpace.height){
-                double dist = computeDistance(maxSpace.x + rect.width, maxSpace.y + rect.height, binWidth, binHeight);
+            if(width <= maxSpace.width && height <= maxSpace.height){
+                double dist = computeDistance(maxSpace.x + width, maxSpace.y + height, binWidth, binHeight);
                 if(dist > largestDist){
                     largestDist = dist;
                     bestMaxSpaceIndex = i;
@@ -84,8 +119,8 @@ public class MaxSpaceBin extends Bin{
                 }
             }
             //If rotation is possible, try to fit rect in.
-            if(canRotate && rect.height <= maxSpace.width && rect.width <= maxSpace.height){
-                double dist = computeDistance(maxSpace.x + rect.height, maxSpace.y + rect.width, binWidth, binHeight);
+            if(canRotate && height <= maxSpace.width && width <= maxSpace.height){
+                double dist = computeDistance(maxSpace.x + height, maxSpace.y + width, binWidth, binHeight);
                 if(dist > largestDist){
                     largestDist = dist;
                     bestMaxSpaceIndex = i;
@@ -96,41 +131,38 @@ public class MaxSpaceBin extends Bin{
         }
         //The current rect cannot be inserted into current bin.
         if(bestMaxSpaceIndex == -1){  
-            //Instead of returning null, you could return a degenerate rect which
-            //a rect with either side being 0 (i.e. width or height equals 0)
-            return null;
+            return false;
         }
         //insert rect into the best maxSpace with the appropriate orientation
-        Rect newRect = new Rect(rect.width, rect.height);
-        if(isRotated) newRect.rotate();
-        newRect.x = freeRects.get(bestMaxSpaceIndex).x;
-        newRect.y = freeRects.get(bestMaxSpaceIndex).y;
-        newRect.score = -largestDist; //smaller is better
-        return newRect;
+        Rect maxSpace = freeRects.get(bestMaxSpaceIndex);
+        placement.set(bestMaxSpaceIndex, maxSpace.x, maxSpace.y, width, height, isRotated, -largestDist); //smaller is better
+        return true;
     }
     
     /**
-     * Insert <code>rect</code> in the free rect such that the total touching 
-     * perimeter is maximized.
-     * @param rect
-     * @return a rect with the correct (x,y) coordinate inside the bin.
+     * Find the free rect such that the total touching perimeter is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
      */
-    private Rect insertTouchingPerimeter(Rect rect){
+    private boolean evaluateTouchingPerimeter(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
         double largestTouchingPerimeter = -1;
         int bestMaxSpaceIndex = -1;
         boolean isRotated = false;
         for(int i =0; i<freeRects.size(); i++){
             Rect maxSpace = freeRects.get(i);
-            if(rect.width <= maxSpace.width && rect.height <= maxSpace.height){
-                double perimeter = computeTouchingPerimeter(maxSpace.x, maxSpace.y, rect.width, rect.height);
+            if(width <= maxSpace.width && height <= maxSpace.height){
+                double perimeter = computeTouchingPerimeter(maxSpace.x, maxSpace.y, width, height);
                 if(perimeter > largestTouchingPerimeter){
                     largestTouchingPerimeter = perimeter;
                     bestMaxSpaceIndex = i;
                     isRotated = false;
                 }
             }
-            if(canRotate && rect.height <= maxSpace.width && rect.width <= maxSpace.height){
-                double perimeter = computeTouchingPerimeter(maxSpace.x, maxSpace.y, rect.height, rect.width);
+            if(canRotate && height <= maxSpace.width && width <= maxSpace.height){
+                double perimeter = computeTouchingPerimeter(maxSpace.x, maxSpace.y, height, width);
                 if(perimeter > largestTouchingPerimeter){
                     largestTouchingPerimeter = perimeter;
                     bestMaxSpaceIndex = i;
@@ -140,35 +172,32 @@ public class MaxSpaceBin extends Bin{
         }
         //The current rect cannot be inserted into current bin.
         if(bestMaxSpaceIndex == -1){
-            //Instead of returning null, you could return a degenerate rect which
-            //a rect with either side being 0 (i.e. width or height equals 0)
-            return null;
+            return false;
         }
-        Rect newRect = new Rect(rect.width, rect.height);
-        if(isRotated) newRect.rotate();
-        newRect.x = freeRects.get(bestMaxSpaceIndex).x;
-        newRect.y = freeRects.get(bestMaxSpaceIndex).y;
-        newRect.score = -largestTouchingPerimeter; //smaller is better
-        return newRect;
+        Rect maxSpace = freeRects.get(bestMaxSpaceIndex);
+        placement.set(bestMaxSpaceIndex, maxSpace.x, maxSpace.y, width, height, isRotated, -largestTouchingPerimeter); //smaller is better
+        return true;
     }
     
     /**
-     * Insert <code>rect</code> in the free rect such that the the wasted area is
-     * minimized.
-     * @param rect
-     * @return a rect with the correct (x,y) coordinate inside the bin.
+     * Find the free rect such that the the wasted area is minimized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
      */
-    private Rect insertBestArea(Rect rect){
+    private boolean evaluateBestArea(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
         int bestWastedArea = Integer.MAX_VALUE;
         int bestShortSide = Integer.MAX_VALUE;
         int bestMaxSpaceIndex = -1;
         boolean isRotated = false;
         for(int i=0; i<freeRects.size(); i++){
             Rect maxSpace = freeRects.get(i);
-            int wastedArea = maxSpace.width * maxSpace.height - (rect.width * rect.height);
-            if(maxSpace.width >= rect.width && maxSpace.height >= rect.height){
-                int horizLeftOver = maxSpace.width - rect.width;
-                int vertLeftOver = maxSpace.height - rect.height;
+            int wastedArea = maxSpace.width * maxSpace.height - (width * height);
+            if(maxSpace.width >= width && maxSpace.height >= height){
+                int horizLeftOver = maxSpace.width - width;
+                int vertLeftOver = maxSpace.height - height;
                 int shortSide = Integer.min(horizLeftOver, vertLeftOver);
                 if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && shortSide < bestShortSide)){
                     bestWastedArea = wastedArea;
@@ -177,9 +206,9 @@ public class MaxSpaceBin extends Bin{
                     isRotated = false;
                 }
             }
-            if(canRotate && maxSpace.width >= rect.height && maxSpace.height >= rect.width){
-                int horizLeftOver = maxSpace.width - rect.height;
-                int vertLeftOver = maxSpace.height - rect.width;
+            if(canRotate && maxSpace.width >= height && maxSpace.height >= width){
+                int horizLeftOver = maxSpace.width - height;
+                int vertLeftOver = maxSpace.height - width;
                 int shortSide = Integer.min(horizLeftOver, vertLeftOver);
                 if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && shortSide < bestShortSide)){
                     bestWastedArea = wastedArea;
@@ -190,16 +219,11 @@ public class MaxSpaceBin extends Bin{
             }
         }
         if(bestMaxSpaceIndex == -1){
-            //Instead of returning null, you could return a degenerate rect which
-            //a rect with either side being 0 (i.e. width or height equals 0)
-            return null;
+            return false;
         }
-        Rect newRect = new Rect(rect.width, rect.height);
-        if(isRotated) newRect.rotate();
-        newRect.x = freeRects.get(bestMaxSpaceIndex).x;
-        newRect.y = freeRects.get(bestMaxSpaceIndex).y;
-        newRect.score = bestWastedArea;
-        return newRect;
+        Rect maxSpace = freeRects.get(bestMaxSpaceIndex);
+        placement.set(bestMaxSpaceIndex, maxSpace.x, maxSpace.y, width, height, isRotated, bestWastedArea);
+        return true;
     }
     
     
@@ -220,6 +244,7 @@ public class MaxSpaceBin extends Bin{
                     Rect newFreeRect = new Rect(freeRect);
                     newFreeRect.height = rect.y - freeRect.y;
                     freeRects.add(newFreeRect);
+                    logFreeRectAdded();
                 }
                 //New free is on top of rect
                 if(rect.y + rect.height > freeRect.y && rect.y + rect.height < freeRect.y + freeRect.height){
@@ -227,6 +252,7 @@ public class MaxSpaceBin extends Bin{
                     newFreeRect.y = rect.y + rect.height;
                     newFreeRect.height = freeRect.y + freeRect.height - (rect.y + rect.height);
                     freeRects.add(newFreeRect);
+                    logFreeRectAdded();
                 }
             }
             //Vertical overalp
@@ -236,6 +262,7 @@ public class MaxSpaceBin extends Bin{
                     Rect newFreeRect = new Rect(freeRect);
                     newFreeRect.width = rect.x - freeRect.x;
                     freeRects.add(newFreeRect);
+                    logFreeRectAdded();
                 }
                 //New free rect is to the right of rect
                 if(rect.x + rect.width > freeRect.x && rect.x + rect.width < freeRect.x + freeRect.width){
@@ -243,38 +270,356 @@ public class MaxSpaceBin extends Bin{
                     newFreeRect.x = rect.x + rect.width;
                     newFreeRect.width = freeRect.x + freeRect.width - (rect.x + rect.width);
                     freeRects.add(newFreeRect);
+                    logFreeRectAdded();
                 }
             }
             //freeRect should be removed as it is intersecting rect
             freeRects.remove(i);
+            logFreeRectRemoved(i, freeRect);
             --i; //subsequent elements are shifted to left
             --numFreeRects;
         }
+        //New free rects are appended after the remaining old ones
+        firstNewFreeRect = numFreeRects;
     }
     
     /**
      * Remove degenerate free maximal spaces.
+     * <p>
+     * In the incremental mode (the default), only the free rects generated by
+     * the last call to <code>generateFreeSpaces</code> are checked. The old free
+     * rects that were not split are still maximal and none of them can be
+     * contained in a new free rect, since a new free rect is a part of an old
+     * maximal space. Hence, a new free rect is compared against all the others,
+     * which costs O(n*k) instead of O(n^2) for n free rects and k new ones, and
+     * the result is the same as that of the full pruning.
+     */
+    protected void pruneMaxSpaces(){
+        if(!incrementalPruning){
+            pruneAllMaxSpaces();
+            return;
+        }
+        int numFreeRects = freeRects.size();
+        int numNewFreeRects = numFreeRects - firstNewFreeRect;
+        if(numNewFreeRects <= 0) return;
+        PruneEvent event = new PruneEvent();
+        event.begin();
+        if(redundant.length < numNewFreeRects)
+            redundant = new boolean[Integer.max(numNewFreeRects, 2*redundant.length)];
+        boolean anyRedundant = false;
+        //The containment checks are only counted when someone reads them
+        boolean countChecks = listener != null || event.isEnabled();
+        int numChecks = 0;
+        for(int j=firstNewFreeRect; j<numFreeRects; j++){
+            Rect newRect = freeRects.get(j);
+            boolean isRedundant = false;
+            int i;
+            for(i=0; i<numFreeRects; i++){
+                if(i == j) continue;
+                Rect rect = freeRects.get(i);
+                //Identical free rects: keep the first one only
+                if(newRect.isContainedIn(rect) && (i < j || !rect.isContainedIn(newRect))){
+                    isRedundant = true;
+                    break;
+                }
+            }
+            //The free rects up to i have been checked, except the new rect itself
+            if(countChecks)
+                numChecks += isRedundant ? (i < j ? i + 1 : i) : numFreeRects - 1;
+            redundant[j - firstNewFreeRect] = isRedundant;
+            anyRedundant |= isRedundant;
+        }
+        if(listener != null) listener.containmentChecked(numChecks);
+        if(anyRedundant){
+            //Remove the redundant free rects in one pass keeping the order of the rest
+            int last = firstNewFreeRect;
+            for(int j=firstNewFreeRect; j<numFreeRects; j++){
+                if(!redundant[j - firstNewFreeRect])
+                    freeRects.set(last++, freeRects.get(j));
+                else
+                    logFreeRectRemoved(last, freeRects.get(j));
+            }
+            freeRects.subList(last, numFreeRects).clear();
+        }
+        commitPruneEvent(event, numFreeRects, numChecks);
+    }
+    
+    /**
+     * Record a pruning of the free rects if it is slow enough.
+     * @param event the event started before the pruning
+     * @param numFreeRects the number of free rects before the pruning
+     * @param numChecks the number of containment checks
+     */
+    private void commitPruneEvent(PruneEvent event, int numFreeRects, int numChecks){
+        event.end();
+        if(event.shouldCommit()){
+            event.numFreeSpaces = numFreeRects;
+            event.numComparisons = numChecks;
+            event.numRemovals = numFreeRects - freeRects.size();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Remove degenerate free maximal spaces comparing every pair of free rects.
      */
-    private void pruneMaxSpaces(){
+    protected void pruneAllMaxSpaces(){
+        PruneEvent event = new PruneEvent();
+        event.begin();
+        int numFreeRects = freeRects.size();
+        boolean countChecks = listener != null || event.isEnabled();
+        int numChecks = 0;
         for(int i=0; i<freeRects.size(); i++){
             Rect rectI = freeRects.get(i);
-            for(int j=i+1; j<freeRects.size(); j++){
+            int numRects = freeRects.size();
+            boolean isRedundant = false;
+            int j;
+            for(j=i+1; j<freeRects.size(); j++){
                 Rect rectJ = freeRects.get(j);
                 //if rect j is contained in rect i
                 if(rectJ.isContainedIn(rectI)){
                     freeRects.remove(j);
+                    logFreeRectRemoved(j, rectJ);
                     --j;
                 }
                 //if rect i is contained in rect j
                 else if(rectI.isContainedIn(rectJ)){
                     freeRects.remove(i);
-                    --i;
+                    logFreeRectRemoved(i, rectI);
+                    isRedundant = true;
                     break; //a non-maxSpace can be contained in at most one maxSpace
                 }
             }
+            //Every rect after rect i has been checked once, the removed ones included,
+            //up to rect j if rect i has been removed
+            if(countChecks)
+                numChecks += isRedundant ? j - i + numRects - freeRects.size() - 1 : numRects - i - 1;
+            if(isRedundant) --i;
+        }
+        if(listener != null) listener.containmentChecked(numChecks);
+        commitPruneEvent(event, numFreeRects, numChecks);
+    }
+    
+    
+    /**
+     * Remove a packed rect from the bin and update the free maximal spaces.
+     * <p>
+     * Only the maximal spaces around the removed rect change. A maximal space
+     * that does not touch the removed rect cannot grow, so it is still maximal,
+     * and a new maximal space must overlap the removed rect. The new maximal
+     * spaces are generated by splitting the bin by the packed rects as in
+     * {@link #generateFreeSpaces(Rect)}, keeping only the parts that overlap the
+     * removed rect, so their number stays small. The free rects contained in a
+     * new maximal space are removed and the new ones are appended to the free
+     * list.
+     * @param rect the rect to be removed (compared by position and size)
+     * @return <code>true</code> if <code>rect</code> was packed in the bin
+     * @throws IllegalStateException if the bin is shared or a checkpoint is set
+     */
+    public boolean remove(Rect rect){
+        checkNotShared();
+        if(hasCheckpoint()) throw new IllegalStateException("A rect cannot be removed while a checkpoint is set");
+        int index = packedRects.indexOf(rect);
+        if(index == -1) return false;
+        Rect removedRect = unpackRect(index);
+        ArrayList<Rect> spaces = new ArrayList<>();
+        spaces.add(createFreeRect(0, 0, binWidth, binHeight));
+        for(Rect packedRect : packedRects)
+            splitSpaces(spaces, packedRect, removedRect);
+        //The old free rects that can now grow are contained in a new space
+        freeRects.removeIf(freeRect -> isContainedInAny(freeRect, spaces));
+        freeRects.addAll(spaces);
+        firstNewFreeRect = freeRects.size();
+        updateCapacity();
+        return true;
+    }
+    
+    /**
+     * Split the spaces overlapping <code>rect</code> and keep the maximal
+     * parts that overlap <code>region</code>.
+     */
+    private void splitSpaces(ArrayList<Rect> spaces, Rect rect, Rect region){
+        int numSpaces = spaces.size();
+        for(int i=0; i<numSpaces; i++){
+            Rect space = spaces.get(i);
+            if(!isOverlapping(space, rect)) continue;
+            int x2 = space.x + space.width, y2 = space.y + space.height;
+            //Part on bottom of rect
+            if(rect.y > space.y)
+                addSpace(spaces, createFreeRect(space.x, space.y, space.width, rect.y - space.y), region);
+            //Part on top of rect
+            if(rect.y + rect.height < y2)
+                addSpace(spaces, createFreeRect(space.x, rect.y + rect.height, space.width, y2 - (rect.y + rect.height)), region);
+            //Part to the left of rect
+            if(rect.x > space.x)
+                addSpace(spaces, createFreeRect(space.x, space.y, rect.x - space.x, space.height), region);
+            //Part to the right of rect
+            if(rect.x + rect.width < x2)
+                addSpace(spaces, createFreeRect(rect.x + rect.width, space.y, x2 - (rect.x + rect.width), space.height), region);
+            spaces.remove(i);
+            --i;
+            --numSpaces;
+        }
+        //Remove the new parts that are contained in another space
+        for(int j=numSpaces; j<spaces.size(); j++){
+            Rect newSpace = spaces.get(j);
+            for(int i=0; i<spaces.size(); i++){
+                if(i == j) continue;
+                Rect space = spaces.get(i);
+                //Identical spaces: keep the first one only
+                if(newSpace.isContainedIn(space) && (i < j || !space.isContainedIn(newSpace))){
+                    spaces.remove(j);
+                    --j;
+                    break;
+                }
+            }
+        }
+    }
+    
+    private void addSpace(ArrayList<Rect> spaces, Rect space, Rect region){
+        if(isOverlapping(space, region)) spaces.add(space);
+    }
+    
+    private boolean isContainedInAny(Rect rect, List<Rect> spaces){
+        for(Rect space : spaces)
+            if(rect.isContainedIn(space)) return true;
+        return false;
+    }
+    
+    private Rect createFreeRect(int x, int y, int width, int height){
+        Rect freeRect = new Rect(width, height);
+        freeRect.x = x;
+        freeRect.y = y;
+        return freeRect;
+    }
+    
+    /**
+     * Replace the content of the bin with <code>rects</code> and compute the
+     * free maximal spaces with a sweep line.
+     * <p>
+     * The sides of the rects split the bin into a grid of cells. For every row
+     * of cells, the line sweeps upwards keeping the runs of columns that are
+     * free from that row to the current one. A run is reported as a maximal
+     * space when a packed rect (or the top of the bin) stops it, provided it
+     * rests on a packed rect (or on the bottom of the bin). This costs
+     * O(n<sup>3</sup>) for n rects instead of splitting and pruning the free
+     * spaces once per rect. The free rects are sorted by bottom side then by
+     * left side, which is not the order obtained by inserting the rects.
+     * @param rects the rects to be packed in the bin. Their positions must be
+     * set and they are stored in the bin as they are
+     * @throws IllegalStateException if the bin is shared
+     */
+    public void rebuild(List<Rect> rects){
+        checkNotShared();
+        commit();
+        packedRects = new ArrayList<>(rects);
+        edgeIndex.clear();
+        occupiedArea = 0;
+        for(Rect rect : packedRects){
+            occupiedArea += rect.width * rect.height;
+            edgeIndex.add(rect);
+        }
+        freeRects = sweepMaxSpaces();
+        firstNewFreeRect = freeRects.size();
+        updateCapacity();
+    }
+    
+    /**
+     * Compute the free maximal spaces among the packed rects with a sweep line.
+     * @return the free maximal spaces
+     */
+    private ArrayList<Rect> sweepMaxSpaces(){
+        int[] xs = new int[2*packedRects.size() + 2];
+        int[] ys = new int[2*packedRects.size() + 2];
+        int n = 0;
+        xs[n] = 0; ys[n++] = 0;
+        xs[n] = binWidth; ys[n++] = binHeight;
+        for(Rect rect : packedRects){
+            xs[n] = rect.x; ys[n++] = rect.y;
+            xs[n] = rect.x + rect.width; ys[n++] = rect.y + rect.height;
+        }
+        xs = distinct(xs);
+        ys = distinct(ys);
+        int numCols = xs.length - 1, numRows = ys.length - 1;
+        boolean[][] occupied = new boolean[numRows][numCols];
+        for(Rect rect : packedRects){
+            int col1 = Arrays.binarySearch(xs, rect.x), col2 = Arrays.binarySearch(xs, rect.x + rect.width);
+            int row1 = Arrays.binarySearch(ys, rect.y), row2 = Arrays.binarySearch(ys, rect.y + rect.height);
+            for(int row=row1; row<row2; row++)
+                Arrays.fill(occupied[row], col1, col2, true);
+        }
+        ArrayList<Rect> spaces = new ArrayList<>();
+        //Runs of free columns [starts[i], ends[i]) for the current and the next row
+        int[] starts = new int[numCols], ends = new int[numCols];
+        int[] nextStarts = new int[numCols], nextEnds = new int[numCols];
+        for(int bottom=0; bottom<numRows; bottom++){
+            int numRuns = collectRuns(occupied[bottom], 0, numCols, starts, ends, 0);
+            for(int row=bottom; numRuns>0; row++){
+                int numNextRuns = 0;
+                for(int i=0; i<numRuns; i++){
+                    int start = starts[i], end = ends[i];
+                    if(row + 1 < numRows && isFree(occupied[row + 1], start, end)){
+                        nextStarts[numNextRuns] = start;
+                        nextEnds[numNextRuns++] = end;
+                        continue;
+                    }
+                    //The run is stopped, report it if it cannot grow downwards
+                    if(bottom == 0 || !isFree(occupied[bottom - 1], start, end))
+                        spaces.add(createFreeRect(xs[start], ys[bottom], xs[end] - xs[start], ys[row + 1] - ys[bottom]));
+                    if(row + 1 < numRows)
+                        numNextRuns = collectRuns(occupied[row + 1], start, end, nextStarts, nextEnds, numNextRuns);
+                }
+                int[] swap = starts; starts = nextStarts; nextStarts = swap;
+                swap = ends; ends = nextEnds; nextEnds = swap;
+                numRuns = numNextRuns;
+            }
+        }
+        return spaces;
+    }
+    
+    /**
+     * Append the runs of free cells of <code>row</code> between the columns
+     * <code>from</code> (inclusive) and <code>to</code> (exclusive).
+     * @return the number of runs in <code>starts</code> and <code>ends</code>
+     */
+    private static int collectRuns(boolean[] row, int from, int to, int[] starts, int[] ends, int numRuns){
+        int col = from;
+        while(col < to){
+            while(col < to && row[col]) col++;
+            if(col == to) break;
+            starts[numRuns] = col;
+            while(col < to && !row[col]) col++;
+            ends[numRuns++] = col;
         }
+        return numRuns;
+    }
+    
+    private static boolean isFree(boolean[] row, int from, int to){
+        for(int col=from; col<to; col++)
+            if(row[col]) return false;
+        return true;
+    }
+    
+    private static int[] distinct(int[] values){
+        Arrays.sort(values);
+        int n = 0;
+        for(int i=0; i<values.length; i++)
+            if(i == 0 || values[i] != values[i - 1]) values[n++] = values[i];
+        return Arrays.copyOf(values, n);
     }
     
+    public boolean isIncrementalPruning(){
+        return incrementalPruning;
+    }
+    
+    /**
+     * Choose between pruning only the newly generated free rects after each
+     * insert (the default) and comparing every pair of free rects.
+     * @param incrementalPruning <code>true</code> to use the incremental pruning
+     */
+    public void setIncrementalPruning(boolean incrementalPruning){
+        this.incrementalPruning = incrementalPruning;
+    }
     
     /**
      * Check whether the packing in this bin is feasible.
@@ -0,0 +1,236 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import rectpacking.RectPacking.BinType;
+import rectpacking.RectPacking.PackMode;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A packer for an unbounded stream of items.
+ * <p>
+ * The items are packed one at a time into a bounded window of open bins, in the
+ * best open bin (see {@link RBPSolution#pack(java.util.List, PackingHeuristic)})
+ * or in the first open bin that can hold them (see
+ * {@link RBPSolution#packFirst(java.util.List, PackingHeuristic)}). An item
+ * that does not fit in any open bin is packed in a new bin. A bin is closed
+ * and passed to the consumer when:
+ * <ul>
+ *  <li> its occupancy reaches the closing occupancy, </li>
+ *  <li> a new bin is needed and the window is full: the most occupied open bin
+ *  is closed, </li>
+ *  <li> it has been open for more than the maximum age, counted in items
+ *  received by the packer. </li>
+ * </ul>
+ * A closed bin is never modified and the packer keeps no reference to it, so
+ * the memory used by the packer does not depend on the length of the stream.
+ * Call {@link #flush()} at the end of the stream to close the open bins.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class OnlinePacker {
+    private final PackingHeuristic heur;
+    private final Consumer<Bin> sink;
+    /** Opens the bins of the chosen bin type */
+    private final RBPSolution binFactory;
+    private PackMode mode;
+    private double closingOccupancy;
+    private int maxOpenBins;
+    private long maxAge;
+    /** The open bins in the order they were opened */
+    private final ArrayList<Bin> openBins;
+    /** The number of items received when each open bin was opened */
+    private long[] openedAt;
+    private long numItems;
+    private long numClosedBins;
+    private final Placement candidate;
+    private final Placement best;
+
+    /**
+     * Create a packer that keeps at most 16 open bins, closes a bin once it
+     * is full and packs the items in the best open bin.
+     * @param binWidth width of the bins
+     * @param binHeight height of the bins
+     * @param heur the packing heuristic
+     * @param sink receives the bins once they are closed
+     */
+    public OnlinePacker(int binWidth, int binHeight, PackingHeuristic heur, Consumer<Bin> sink){
+        this.heur = heur;
+        this.sink = sink;
+        binFactory = new RBPSolution(binWidth, binHeight);
+        mode = PackMode.Pack;
+        closingOccupancy = 1;
+        maxOpenBins = 16;
+        maxAge = Long.MAX_VALUE;
+        openBins = new ArrayList<>();
+        openedAt = new long[16];
+        candidate = new Placement();
+        best = new Placement();
+    }
+
+    /**
+     * Pack an item in one of the open bins, or in a new bin, then close the
+     * bins according to the closing policy.
+     * @param rect the item (or rect). It is not modified, a new rect is packed
+     * @throws IllegalArgumentException if the item does not fit in an empty bin
+     */
+    public void add(Packable rect){
+        numItems++;
+        int width = rect.getWidth(), height = rect.getHeight();
+        int binIndex;
+        switch(mode){
+            case PackFirst: binIndex = findFirstBin(width, height); break;
+            default: binIndex = RBPSolution.findBestBin(openBins, 0, openBins.size(), width, height, heur, candidate, best); break;
+        }
+        if(binIndex == -1){
+            Bin newBin = binFactory.openNewBin();
+            if(!newBin.evaluatePacking(width, height, heur, best))
+                throw new IllegalArgumentException("The item " + rect + " does not fit in an empty bin");
+            //Make room for the new bin
+            while(openBins.size() >= maxOpenBins)
+                closeBin(findMostOccupiedBin());
+            binIndex = openBin(newBin);
+        }
+        Bin bin = openBins.get(binIndex);
+        best.itemID = rect.getItemID();
+        bin.insert(best);
+        if(bin.getOccupancy() >= closingOccupancy)
+            closeBin(binIndex);
+        //Close the bins that have been open for too long
+        for(int i=openBins.size()-1; i>=0; i--)
+            if(numItems - openedAt[i] > maxAge) closeBin(i);
+    }
+
+    /**
+     * Close all the open bins, from the oldest one.
+     */
+    public void flush(){
+        while(!openBins.isEmpty())
+            closeBin(0);
+    }
+
+    /**
+     * Find the first open bin that can hold an item.
+     * @return the index of the bin, or -1 if no open bin can hold the item
+     */
+    private int findFirstBin(int width, int height){
+        for(int i=0; i<openBins.size(); i++){
+            Bin bin = openBins.get(i);
+            if(bin.canFit(width, height) && bin.evaluatePacking(width, height, heur, best))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the most occupied open bin. Ties are broken by the oldest bin.
+     */
+    private int findMostOccupiedBin(){
+        int bestIndex = 0;
+        for(int i=1; i<openBins.size(); i++)
+            if(openBins.get(i).getPackedArea() > openBins.get(bestIndex).getPackedArea())
+                bestIndex = i;
+        return bestIndex;
+    }
+
+    private int openBin(Bin bin){
+        int index = openBins.size();
+        if(index == openedAt.length)
+            openedAt = Arrays.copyOf(openedAt, 2*openedAt.length);
+        openedAt[index] = numItems;
+        openBins.add(bin);
+        return index;
+    }
+
+    private void closeBin(int index){
+        Bin bin = openBins.remove(index);
+        System.arraycopy(openedAt, index + 1, openedAt, index, openBins.size() - index);
+        numClosedBins++;
+        sink.accept(bin);
+    }
+
+    /**
+     * The number of items received by the packer.
+     * @return the number of items
+     */
+    public long getNumberOfItems(){
+        return numItems;
+    }
+
+    public long getNumberOfClosedBins(){
+        return numClosedBins;
+    }
+
+    public int getNumberOfOpenBins(){
+        return openBins.size();
+    }
+
+    public PackMode getPackMode(){
+        return mode;
+    }
+
+    public void setPackMode(PackMode mode){
+        this.mode = mode;
+    }
+
+    public BinType getBinType(){
+        return binFactory.getBinType();
+    }
+
+    public void setBinType(BinType binType){
+        binFactory.setBinType(binType);
+    }
+
+    public PackingConfig getConfig(){
+        return binFactory.getConfig();
+    }
+
+    /**
+     * Set the configuration of the bins opened by this packer. The heuristic
+     * and the packing mode of the packer are its own, so only the rotation and
+     * the bin type of the configuration are used.
+     * @param config the configuration
+     */
+    public void setConfig(PackingConfig config){
+        binFactory.setConfig(config);
+    }
+
+    public double getClosingOccupancy(){
+        return closingOccupancy;
+    }
+
+    /**
+     * Set the occupancy from which a bin is closed.
+     * @param closingOccupancy a number between 0 and 1
+     */
+    public void setClosingOccupancy(double closingOccupancy){
+        this.closingOccupancy = closingOccupancy;
+    }
+
+    public int getMaxOpenBins(){
+        return maxOpenBins;
+    }
+
+    /**
+     * Set the maximum number of open bins. When a new bin is needed and this
+     * number is reached, the most occupied open bin is closed.
+     * @param maxOpenBins a positive number
+     */
+    public void setMaxOpenBins(int maxOpenBins){
+        if(maxOpenBins < 1) throw new IllegalArgumentException("At least one bin must be open");
+        this.maxOpenBins = maxOpenBins;
+    }
+
+    public long getMaxAge(){
+        return maxAge;
+    }
+
+    /**
+     * Set the maximum age of an open bin, i.e., the number of items received
+     * by the packer after which a bin is closed.
+     * @param maxAge a number of items
+     */
+    public void setMaxAge(long maxAge){
+        this.maxAge = maxAge;
+    }
+}
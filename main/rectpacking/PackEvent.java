@@ -0,0 +1,43 @@
+package rectpacking;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Java Flight Recorder event emitted by the packing methods of
+ * {@link RBPSolution}.
+ * <p>
+ * By default, only the packings lasting at least 10 ms are recorded. The
+ * threshold can be changed in the recording settings
+ * (<code>rectpacking.Pack#threshold</code>).
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+@Name("rectpacking.Pack")
+@Label("Pack")
+@Category("Rect Packing")
+@Description("Packing of a list of items into the bins of a solution")
+@Threshold("10 ms")
+@StackTrace(false)
+final class PackEvent extends jdk.jfr.Event {
+    @Label("Items")
+    int numItems;
+
+    @Label("Bins")
+    int numBins;
+
+    @Label("Lower Bound")
+    int lowerBound;
+
+    @Label("Heuristic")
+    String heuristic;
+
+    @Label("Pack Mode")
+    String mode;
+
+    @Label("Bin Type")
+    String binType;
+}
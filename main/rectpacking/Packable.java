@@ -0,0 +1,29 @@
+package rectpacking;
+
+/**
+ * Something that can be packed into a bin: an {@link Item} of an instance or a
+ * {@link Rect}.
+ * <p>
+ * The packing methods of {@link RBPSolution} only read the dimensions of the
+ * objects they pack, so immutable items and rects can be packed alike.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public interface Packable {
+
+    int getWidth();
+
+    int getHeight();
+
+    default int getArea(){
+        return getWidth() * getHeight();
+    }
+
+    /**
+     * The identifier of the item of the instance, copied to the rect placing it
+     * in a bin.
+     * @return the identifier of the item, or -1 if it is not known
+     */
+    default int getItemID(){
+        return -1;
+    }
+}
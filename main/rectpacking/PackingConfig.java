@@ -0,0 +1,183 @@
+package rectpacking;
+
+import java.util.Objects;
+import rectpacking.GuillotineBin.SplitRule;
+import rectpacking.RectPacking.BinType;
+import rectpacking.RectPacking.PackMode;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * The settings of a packing: whether the items can be rotated, the packing
+ * heuristic, the packing mode, the data structure of the bins and, for
+ * {@link BinType#Guillotine} bins, the split rule and whether free rects are
+ * merged.
+ * <p>
+ * A configuration is carried by a solution (see {@link RBPSolution#getConfig()})
+ * and by the bins it opens. It is immutable, so solutions using different
+ * configurations can be packed at the same time by several threads, and the
+ * same configuration can be shared by all of them.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public final class PackingConfig {
+    /**
+     * The default configuration: no rotation, the best area fit heuristic, the
+     * {@link PackMode#Pack} mode and maximal space bins. Guillotine bins split
+     * along the shorter leftover axis and do not merge free rects.
+     */
+    public static final PackingConfig DEFAULT = new PackingConfig(false, PackingHeuristic.BestAreaFit,
+            PackMode.Pack, BinType.MaxSpace);
+
+    private final boolean canRotate;
+    private final PackingHeuristic heuristic;
+    private final PackMode packMode;
+    private final BinType binType;
+    private final SplitRule splitRule;
+    private final boolean merge;
+
+    /**
+     * Create a configuration whose guillotine bins split along the shorter
+     * leftover axis and do not merge free rects.
+     * @param canRotate whether the items can be rotated by 90 degrees
+     * @param heuristic the packing heuristic
+     * @param packMode the packing mode
+     * @param binType the data structure of the bins
+     */
+    public PackingConfig(boolean canRotate, PackingHeuristic heuristic, PackMode packMode, BinType binType){
+        this(canRotate, heuristic, packMode, binType, SplitRule.ShorterLeftoverAxis, false);
+    }
+
+    /**
+     * Create a configuration.
+     * @param canRotate whether the items can be rotated by 90 degrees
+     * @param heuristic the packing heuristic
+     * @param packMode the packing mode
+     * @param binType the data structure of the bins
+     * @param splitRule the split rule of the guillotine bins
+     * @param merge whether the guillotine bins merge adjacent free rects after
+     * each insert
+     */
+    public PackingConfig(boolean canRotate, PackingHeuristic heuristic, PackMode packMode, BinType binType,
+            SplitRule splitRule, boolean merge){
+        this.canRotate = canRotate;
+        this.heuristic = Objects.requireNonNull(heuristic);
+        this.packMode = Objects.requireNonNull(packMode);
+        this.binType = Objects.requireNonNull(binType);
+        this.splitRule = Objects.requireNonNull(splitRule);
+        this.merge = merge;
+    }
+
+    /**
+     * Whether the items can be rotated by 90 degrees.
+     * @return <code>true</code> if the items can be rotated
+     */
+    public boolean canRotate(){
+        return canRotate;
+    }
+
+    public PackingHeuristic getHeuristic(){
+        return heuristic;
+    }
+
+    public PackMode getPackMode(){
+        return packMode;
+    }
+
+    public BinType getBinType(){
+        return binType;
+    }
+
+    /**
+     * The rule choosing the direction of the cuts in the guillotine bins (see
+     * {@link GuillotineBin}).
+     * @return the split rule
+     */
+    public SplitRule getSplitRule(){
+        return splitRule;
+    }
+
+    /**
+     * Whether the guillotine bins merge adjacent free rects after each insert.
+     * @return <code>true</code> if the free rects are merged
+     */
+    public boolean isMerge(){
+        return merge;
+    }
+
+    /**
+     * Get a configuration that differs from this one by the rotation only.
+     * @param canRotate whether the items can be rotated by 90 degrees
+     * @return the configuration
+     */
+    public PackingConfig withRotation(boolean canRotate){
+        return new PackingConfig(canRotate, heuristic, packMode, binType, splitRule, merge);
+    }
+
+    /**
+     * Get a configuration that differs from this one by the heuristic only.
+     * @param heuristic the packing heuristic
+     * @return the configuration
+     */
+    public PackingConfig withHeuristic(PackingHeuristic heuristic){
+        return new PackingConfig(canRotate, heuristic, packMode, binType, splitRule, merge);
+    }
+
+    /**
+     * Get a configuration that differs from this one by the packing mode only.
+     * @param packMode the packing mode
+     * @return the configuration
+     */
+    public PackingConfig withPackMode(PackMode packMode){
+        return new PackingConfig(canRotate, heuristic, packMode, binType, splitRule, merge);
+    }
+
+    /**
+     * Get a configuration that differs from this one by the bin data structure
+     * only.
+     * @param binType the data structure of the bins
+     * @return the configuration
+     */
+    public PackingConfig withBinType(BinType binType){
+        return new PackingConfig(canRotate, heuristic, packMode, binType, splitRule, merge);
+    }
+
+    /**
+     * Get a configuration that differs from this one by the split rule of the
+     * guillotine bins only.
+     * @param splitRule the split rule
+     * @return the configuration
+     */
+    public PackingConfig withSplitRule(SplitRule splitRule){
+        return new PackingConfig(canRotate, heuristic, packMode, binType, splitRule, merge);
+    }
+
+    /**
+     * Get a configuration that differs from this one by the merging of the
+     * free rects of the guillotine bins only.
+     * @param merge whether adjacent free rects are merged after each insert
+     * @return the configuration
+     */
+    public PackingConfig withMerge(boolean merge){
+        return new PackingConfig(canRotate, heuristic, packMode, binType, splitRule, merge);
+    }
+
+    @Override
+    public boolean equals(Object object){
+        if(this == object) return true;
+        if(!(object instanceof PackingConfig)) return false;
+        PackingConfig config = (PackingConfig) object;
+        return canRotate == config.canRotate && heuristic == config.heuristic
+                && packMode == config.packMode && binType == config.binType
+                && splitRule == config.splitRule && merge == config.merge;
+    }
+
+    @Override
+    public int hashCode(){
+        return Objects.hash(canRotate, heuristic, packMode, binType, splitRule, merge);
+    }
+
+    @Override
+    public String toString(){
+        return "PackingConfig{canRotate=" + canRotate + ", heuristic=" + heuristic + ", packMode=" + packMode
+                + ", binType=" + binType + ", splitRule=" + splitRule + ", merge=" + merge + "}";
+    }
+}
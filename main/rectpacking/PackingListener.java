@@ -0,0 +1,100 @@
+package rectpacking;
+
+/**
+ * A listener observing the work done by the packing methods.
+ * <p>
+ * A listener is set on a solution with {@link RBPSolution#setListener(PackingListener)},
+ * which passes it to the bins it opens and copies. When no listener is set
+ * (the default), the packing methods only test a field against
+ * <code>null</code> outside of their inner loops, so the instrumentation can be
+ * left in production code. The counts of the free spaces are reported by
+ * {@link MaxSpaceBin} and {@link IndexedMaxSpaceBin}, which reports the free
+ * spaces of the size buckets it visits. {@link PrimitiveMaxSpaceBin},
+ * {@link SkylineBin} and {@link GuillotineBin} do not report any count of free
+ * spaces, only the counts of bins and the durations of the phases of a
+ * solution are reported for them.
+ * <p>
+ * All the methods do nothing by default. The methods may be called by several
+ * threads at the same time when the best bin is searched in parallel (see
+ * {@link RBPSolution#setParallel(boolean)}).
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public interface PackingListener {
+
+    /**
+     * The phases of a packing that can be timed.
+     */
+    public static enum Phase {
+        /** A whole call to a packing method of a solution */
+        Pack,
+        /** The search of the bin holding an item */
+        Search,
+        /** The generation of the free spaces after packing an item */
+        Generate,
+        /** The removal of the free spaces that are not maximal */
+        Prune
+    }
+
+    /**
+     * Called once per item packed by a solution.
+     * @param numBins the number of bins on which the position of the item was
+     * evaluated to find the bin of the item. The bins rejected by their capacity
+     * summary (see {@link Bin#canFit(int, int)}) and the new bin opened for the
+     * item are not counted
+     */
+    default void binsEvaluated(int numBins){
+    }
+
+    /**
+     * Called when the best position of an item in a bin is evaluated.
+     * @param numFreeSpaces the number of free spaces scanned
+     */
+    default void freeSpacesScanned(int numFreeSpaces){
+    }
+
+    /**
+     * Called after the free spaces are generated for an item packed in a bin.
+     * @param numFreeSpaces the number of free spaces created
+     */
+    default void freeSpacesCreated(int numFreeSpaces){
+    }
+
+    /**
+     * Called after the free spaces that are not maximal are removed.
+     * @param numFreeSpaces the number of free spaces removed
+     */
+    default void freeSpacesPruned(int numFreeSpaces){
+    }
+
+    /**
+     * Called after the free spaces that are not maximal are found.
+     * @param numChecks the number of containment checks between two free spaces
+     */
+    default void containmentChecked(int numChecks){
+    }
+
+    /**
+     * Called at the end of a call to a packing method of a solution.
+     * @param numBins the number of bins used beyond the lower bound
+     * (see {@link RBPSolution#computeLowerBound(java.util.List)})
+     */
+    default void binsOpenedBeyondLowerBound(int numBins){
+    }
+
+    /**
+     * Whether the phases are timed. This is read once per call to a packing
+     * method of a solution or per item inserted in a bin.
+     * @return <code>true</code> to receive the durations of the phases
+     */
+    default boolean isTimingEnabled(){
+        return false;
+    }
+
+    /**
+     * Called at the end of a phase when the phases are timed.
+     * @param phase the phase
+     * @param time the duration of the phase in nanoseconds
+     */
+    default void phaseTimed(Phase phase, long time){
+    }
+}
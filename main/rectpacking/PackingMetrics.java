@@ -0,0 +1,189 @@
+package rectpacking;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A listener adding up the work done by the packing methods.
+ * <p>
+ * The counters can be updated by several threads at the same time. They keep
+ * adding up until {@link #reset()} is called, so the metrics of several
+ * packings can be gathered by a single registry.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class PackingMetrics implements PackingListener {
+    private final boolean timingEnabled;
+    private final LongAdder numItems = new LongAdder();
+    private final LongAdder binsEvaluated = new LongAdder();
+    private final LongAdder numEvaluations = new LongAdder();
+    private final LongAdder freeSpacesScanned = new LongAdder();
+    private final LongAdder freeSpacesCreated = new LongAdder();
+    private final LongAdder freeSpacesPruned = new LongAdder();
+    private final LongAdder containmentChecks = new LongAdder();
+    private final LongAdder binsBeyondLowerBound = new LongAdder();
+    private final LongAdder[] phaseTimes;
+    private final LongAdder[] phaseCounts;
+
+    /**
+     * Create a registry counting the work without timing the phases.
+     */
+    public PackingMetrics(){
+        this(false);
+    }
+
+    /**
+     * Create a registry.
+     * @param timingEnabled whether the phases are timed
+     */
+    public PackingMetrics(boolean timingEnabled){
+        this.timingEnabled = timingEnabled;
+        int numPhases = Phase.values().length;
+        phaseTimes = new LongAdder[numPhases];
+        phaseCounts = new LongAdder[numPhases];
+        for(int i=0; i<numPhases; i++){
+            phaseTimes[i] = new LongAdder();
+            phaseCounts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void binsEvaluated(int numBins){
+        numItems.increment();
+        binsEvaluated.add(numBins);
+    }
+
+    @Override
+    public void freeSpacesScanned(int numFreeSpaces){
+        numEvaluations.increment();
+        freeSpacesScanned.add(numFreeSpaces);
+    }
+
+    @Override
+    public void freeSpacesCreated(int numFreeSpaces){
+        freeSpacesCreated.add(numFreeSpaces);
+    }
+
+    @Override
+    public void freeSpacesPruned(int numFreeSpaces){
+        freeSpacesPruned.add(numFreeSpaces);
+    }
+
+    @Override
+    public void containmentChecked(int numChecks){
+        containmentChecks.add(numChecks);
+    }
+
+    @Override
+    public void binsOpenedBeyondLowerBound(int numBins){
+        binsBeyondLowerBound.add(numBins);
+    }
+
+    @Override
+    public boolean isTimingEnabled(){
+        return timingEnabled;
+    }
+
+    @Override
+    public void phaseTimed(Phase phase, long time){
+        phaseTimes[phase.ordinal()].add(time);
+        phaseCounts[phase.ordinal()].increment();
+    }
+
+    /**
+     * Set all the counters and timers to zero.
+     */
+    public void reset(){
+        numItems.reset();
+        binsEvaluated.reset();
+        numEvaluations.reset();
+        freeSpacesScanned.reset();
+        freeSpacesCreated.reset();
+        freeSpacesPruned.reset();
+        containmentChecks.reset();
+        binsBeyondLowerBound.reset();
+        for(int i=0; i<phaseTimes.length; i++){
+            phaseTimes[i].reset();
+            phaseCounts[i].reset();
+        }
+    }
+
+    public long getNumberOfItems(){
+        return numItems.sum();
+    }
+
+    public long getBinsEvaluated(){
+        return binsEvaluated.sum();
+    }
+
+    /**
+     * The average number of bins examined per item.
+     * @return the average number of bins, or 0 if no item was packed
+     */
+    public double getBinsEvaluatedPerItem(){
+        long items = numItems.sum();
+        return items == 0 ? 0 : (double) binsEvaluated.sum()/items;
+    }
+
+    /**
+     * The number of evaluations of the position of an item in a bin.
+     * @return the number of evaluations
+     */
+    public long getNumberOfEvaluations(){
+        return numEvaluations.sum();
+    }
+
+    public long getFreeSpacesScanned(){
+        return freeSpacesScanned.sum();
+    }
+
+    public long getFreeSpacesCreated(){
+        return freeSpacesCreated.sum();
+    }
+
+    public long getFreeSpacesPruned(){
+        return freeSpacesPruned.sum();
+    }
+
+    public long getContainmentChecks(){
+        return containmentChecks.sum();
+    }
+
+    public long getBinsBeyondLowerBound(){
+        return binsBeyondLowerBound.sum();
+    }
+
+    /**
+     * The total time spent in a phase.
+     * @param phase the phase
+     * @return the time in nanoseconds, 0 if the phases are not timed
+     */
+    public long getTime(Phase phase){
+        return phaseTimes[phase.ordinal()].sum();
+    }
+
+    /**
+     * The number of times a phase was timed.
+     * @param phase the phase
+     * @return the number of times
+     */
+    public long getCount(Phase phase){
+        return phaseCounts[phase.ordinal()].sum();
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder st = new StringBuilder();
+        st.append("Items = ").append(getNumberOfItems())
+                .append(", bins evaluated per item = ").append(String.format("%.2f", getBinsEvaluatedPerItem()))
+                .append(", bins beyond lower bound = ").append(getBinsBeyondLowerBound()).append("\n");
+        st.append("Free spaces: scanned = ").append(getFreeSpacesScanned())
+                .append(", created = ").append(getFreeSpacesCreated())
+                .append(", pruned = ").append(getFreeSpacesPruned())
+                .append(", containment checks = ").append(getContainmentChecks()).append("\n");
+        if(timingEnabled){
+            for(Phase phase : Phase.values())
+                st.append(phase).append(": ").append(getCount(phase)).append(" times, ")
+                        .append(String.format("%.3f", getTime(phase)/1e6)).append(" ms\n");
+        }
+        return st.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package rectpacking;
+
+/**
+ * A reusable holder for the position of an item inside a bin.
+ * <p>
+ * {@link Bin#evaluatePacking(int, int, RectPacking.PackingHeuristic, Placement)}
+ * writes the best position it finds into a placement supplied by the caller and
+ * {@link Bin#insert(Placement)} packs the item at that position. The same
+ * placement objects can be reused for every bin and every item, so evaluating
+ * packings does not allocate any object.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class Placement {
+    /** Index of the chosen free space in the bin, or -1 if it is not known */
+    public int freeIndex;
+    /** The x-coordinate of the bottom-left corner of the item */
+    public int x;
+    /** The y-coordinate of the bottom-left corner of the item */
+    public int y;
+    /** The width of the item as placed (after rotation if any) */
+    public int width;
+    /** The height of the item as placed (after rotation if any) */
+    public int height;
+    /** Whether the item is rotated */
+    public boolean rotated;
+    /** The cost of the placement. Smaller is better */
+    public double score;
+    /**
+     * The identifier of the item, or -1 if it is not known (see {@link Item#id}).
+     * It is set by the caller before inserting the item, the bins do not read it
+     */
+    public int itemID;
+
+    /**
+     * Create an empty placement.
+     */
+    public Placement(){
+        clear();
+    }
+
+    /**
+     * Reset the placement so that it holds no position.
+     */
+    public final void clear(){
+        freeIndex = -1;
+        x = -1;
+        y = -1;
+        width = 0;
+        height = 0;
+        rotated = false;
+        score = Double.POSITIVE_INFINITY;
+        itemID = -1;
+    }
+
+    /**
+     * Set the placement.
+     * @param freeIndex index of the chosen free space, or -1
+     * @param x x-coordinate of the item
+     * @param y y-coordinate of the item
+     * @param width width of the item before rotation
+     * @param height height of the item before rotation
+     * @param rotated whether the item is rotated
+     * @param score the cost of the placement
+     */
+    public void set(int freeIndex, int x, int y, int width, int height, boolean rotated, double score){
+        this.freeIndex = freeIndex;
+        this.x = x;
+        this.y = y;
+        this.width = rotated ? height : width;
+        this.height = rotated ? width : height;
+        this.rotated = rotated;
+        this.score = score;
+    }
+
+    /**
+     * Copy another placement into this placement.
+     * @param placement the placement to copy
+     */
+    public void set(Placement placement){
+        freeIndex = placement.freeIndex;
+        x = placement.x;
+        y = placement.y;
+        width = placement.width;
+        height = placement.height;
+        rotated = placement.rotated;
+        score = placement.score;
+        itemID = placement.itemID;
+    }
+
+    /**
+     * A position is held by this placement.
+     * @return <code>true</code> if a position was found for the item
+     */
+    public boolean isFound(){
+        return x != -1 && y != -1;
+    }
+
+    /**
+     * Create the rect of the item at this placement.
+     * @return a rect with the (x,y) coordinate, the score and the item
+     * identifier of this placement
+     */
+    public Rect createRect(){
+        Rect rect = new Rect(width, height);
+        rect.x = x;
+        rect.y = y;
+        rect.score = score;
+        rect.itemID = itemID;
+        return rect;
+    }
+}
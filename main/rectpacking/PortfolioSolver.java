@@ -0,0 +1,183 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import rectpacking.RectPacking.BinType;
+import rectpacking.RectPacking.PackMode;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A multi-start solver running a portfolio of packings on a thread pool.
+ * <p>
+ * Every combination of an ordering of the items, a packing heuristic and a
+ * packing mode is packed independently and the solution with the fewest bins
+ * is returned. The first ordering sorts the items by decreasing area and the
+ * other ones are random shuffles. The shuffle of each ordering uses its own
+ * random number generator whose seed is derived from the seed of the solver,
+ * so the packings do not depend on the number of threads nor on the order in
+ * which the threads run.
+ * <p>
+ * The solver stops as soon as a solution reaches the lower bound on the number
+ * of bins (see {@link RBPSolution#computeLowerBound(List)}) since no solution
+ * can use fewer bins.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class PortfolioSolver {
+    private final Instance instance;
+    private final long seed;
+    private int numOrderings;
+    private int numThreads;
+    private PackingConfig config;
+
+    /**
+     * Create a solver that uses 8 orderings and a thread per available processor.
+     * @param instance the instance to solve. Its items are not modified
+     * @param seed the seed of the random number generators
+     */
+    public PortfolioSolver(Instance instance, long seed){
+        this.instance = instance;
+        this.seed = seed;
+        numOrderings = 8;
+        numThreads = Runtime.getRuntime().availableProcessors();
+        config = PackingConfig.DEFAULT;
+    }
+
+    /**
+     * Pack the items with every combination of ordering, packing heuristic and
+     * packing mode.
+     * @return the solution with the fewest bins. Ties are broken by the order of
+     * the combinations (orderings first, then heuristics, then modes) among the
+     * packings that were run
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * for the packings
+     * @throws IllegalArgumentException if an item does not fit in an empty bin
+     */
+    public RBPSolution solve() throws InterruptedException{
+        List<Item> itemList = instance.getItems();
+        int lowerBound = new RBPSolution(instance.binWidth, instance.binHeight).computeLowerBound(itemList);
+        //Derive the seed of every ordering in turn from the seed of the solver
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] orderingSeeds = new long[numOrderings];
+        for(int i=0; i<numOrderings; i++)
+            orderingSeeds[i] = seeds.nextLong();
+        AtomicBoolean isLowerBoundReached = new AtomicBoolean(false);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<RBPSolution>> futures = new ArrayList<>();
+        try{
+            for(int i=0; i<numOrderings; i++){
+                int orderingID = i;
+                for(PackingHeuristic heur : PackingHeuristic.values()){
+                    for(PackMode mode : PackMode.values()){
+                        futures.add(executor.submit(() -> {
+                            //Do not start a packing once the lower bound is reached
+                            if(isLowerBoundReached.get()) return null;
+                            RBPSolution sol = new RBPSolution(instance.binWidth, instance.binHeight,
+                                    config.withHeuristic(heur).withPackMode(mode));
+                            sol.pack(getOrdering(itemList, orderingID, orderingSeeds[orderingID]), heur, mode);
+                            if(sol.getNumberOfBin() <= lowerBound) isLowerBoundReached.set(true);
+                            return sol;
+                        }));
+                    }
+                }
+            }
+            RBPSolution bestSol = null;
+            for(Future<RBPSolution> future : futures){
+                RBPSolution sol;
+                try{
+                    sol = future.get();
+                }
+                catch(CancellationException ex){
+                    continue;
+                }
+                catch(ExecutionException ex){
+                    //Rethrow the unchecked exceptions of a packing as they are
+                    Throwable cause = ex.getCause();
+                    if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if(cause instanceof Error) throw (Error) cause;
+                    throw new RuntimeException(cause);
+                }
+                if(sol != null && (bestSol == null || sol.getNumberOfBin() < bestSol.getNumberOfBin()))
+                    bestSol = sol;
+                //Cancel the packings that have not started yet
+                if(isLowerBoundReached.get())
+                    for(Future<RBPSolution> other : futures) other.cancel(false);
+            }
+            return bestSol;
+        }
+        finally{
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Create the ordering of the items.
+     * @param itemList the items
+     * @param orderingID the index of the ordering
+     * @param orderingSeed the seed of the ordering
+     * @return a new list of the items in the order of the ordering
+     */
+    private List<Item> getOrdering(List<Item> itemList, int orderingID, long orderingSeed){
+        List<Item> ordering = new ArrayList<>(itemList);
+        if(orderingID == 0) ordering.sort(new RectAreaComparator());
+        else Collections.shuffle(ordering, new Random(orderingSeed));
+        return ordering;
+    }
+
+    public int getNumberOfOrderings(){
+        return numOrderings;
+    }
+
+    /**
+     * Set the number of orderings of the items. The first ordering sorts the
+     * items by decreasing area and the other ones are random shuffles.
+     * @param numOrderings a positive number
+     */
+    public void setNumberOfOrderings(int numOrderings){
+        if(numOrderings < 1) throw new IllegalArgumentException("At least one ordering is needed");
+        this.numOrderings = numOrderings;
+    }
+
+    public int getNumberOfThreads(){
+        return numThreads;
+    }
+
+    /**
+     * Set the number of threads running the packings.
+     * @param numThreads a positive number
+     */
+    public void setNumberOfThreads(int numThreads){
+        if(numThreads < 1) throw new IllegalArgumentException("At least one thread is needed");
+        this.numThreads = numThreads;
+    }
+
+    public BinType getBinType(){
+        return config.getBinType();
+    }
+
+    public void setBinType(BinType binType){
+        config = config.withBinType(binType);
+    }
+
+    public PackingConfig getConfig(){
+        return config;
+    }
+
+    /**
+     * Set the configuration of the packings. Every heuristic and packing mode
+     * is tried, so only the rotation, the bin type and the guillotine settings
+     * of the configuration are used.
+     * @param config the configuration
+     */
+    public void setConfig(PackingConfig config){
+        this.config = config;
+    }
+}
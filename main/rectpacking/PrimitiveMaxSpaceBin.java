@@ -0,0 +1,431 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A class implementing the maximal space data structure using primitive arrays.
+ * <p>
+ * The free maximal spaces are stored in parallel <code>int</code> arrays (x, y,
+ * width and height) instead of a list of {@link Rect} objects. Splitting and
+ * pruning the free spaces does not allocate any object and the removed spaces
+ * are dropped by a single compaction pass rather than one list removal each.
+ * <p>
+ * The free spaces are kept in the same order as in {@link MaxSpaceBin}, so both
+ * bins pack the items identically. The inherited <code>freeRects</code> list is
+ * not used; call {@link #getFreeRects()} to get the free spaces as rects.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class PrimitiveMaxSpaceBin extends Bin{
+    private static final int INITIAL_CAPACITY = 32;
+    /** x-coordinates of the free maximal spaces */
+    private int[] freeX;
+    /** y-coordinates of the free maximal spaces */
+    private int[] freeY;
+    /** Widths of the free maximal spaces. A removed space has a width of 0 */
+    private int[] freeWidth;
+    /** Heights of the free maximal spaces */
+    private int[] freeHeight;
+    /** Number of free maximal spaces */
+    private int numFree;
+    /** Index of the first free space generated by the last call to generateFreeSpaces */
+    private int firstNewFree;
+
+    public PrimitiveMaxSpaceBin(int binWidth, int binHeight){
+        super(binWidth, binHeight);
+        allocate(INITIAL_CAPACITY);
+        numFree = 0;
+        firstNewFree = 0;
+    }
+
+    public PrimitiveMaxSpaceBin(Bin newBin){
+        super(newBin);
+        if(newBin instanceof PrimitiveMaxSpaceBin){
+            PrimitiveMaxSpaceBin bin = (PrimitiveMaxSpaceBin) newBin;
+            allocate(Integer.max(INITIAL_CAPACITY, bin.numFree));
+            System.arraycopy(bin.freeX, 0, freeX, 0, bin.numFree);
+            System.arraycopy(bin.freeY, 0, freeY, 0, bin.numFree);
+            System.arraycopy(bin.freeWidth, 0, freeWidth, 0, bin.numFree);
+            System.arraycopy(bin.freeHeight, 0, freeHeight, 0, bin.numFree);
+            numFree = bin.numFree;
+        }
+        else{
+            allocate(Integer.max(INITIAL_CAPACITY, freeRects.size()));
+            numFree = 0;
+            for(Rect freeRect : freeRects)
+                append(freeRect.x, freeRect.y, freeRect.width, freeRect.height);
+            freeRects = new ArrayList<>();
+        }
+        firstNewFree = numFree;
+    }
+
+    @Override
+    protected void setupFreeRects(){
+        freeRects = new ArrayList<>();
+        numFree = 0;
+        append(0, 0, binWidth, binHeight);
+        firstNewFree = numFree;
+    }
+
+    @Override
+    public boolean evaluatePacking(int width, int height, PackingHeuristic heur, Placement placement){
+        switch(heur){
+            case TouchingPerimeter: return evaluateTouchingPerimeter(width, height, placement);
+            case BestAreaFit: return evaluateBestArea(width, height, placement);
+            case TopRightCornerDistance: return evaluateTopRightCornerDistance(width, height, placement);
+            default: return evaluateBestArea(width, height, placement); // Use best area fit as a default heuristic
+        }
+    }
+
+    @Override
+    protected void placeRect(Rect rect){
+        //The rect can be packed in the bin.
+        packRect(rect);
+        //Generate new free rects after packing the current rect.
+        generateFreeSpaces(rect);
+        //Remove degenerate and non-maximal spaces.
+        pruneMaxSpaces();
+    }
+
+    /**
+     * Find the free space such that the distance between
+     * the top-right corner of the item and that of the bin is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTopRightCornerDistance(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestDist = -1;
+        int bestIndex = -1;
+        boolean isRotated = false;
+        for(int i=0; i<numFree; i++){
+            if(width <= freeWidth[i] && height <= freeHeight[i]){
+                double dist = computeDistance(freeX[i] + width, freeY[i] + height, binWidth, binHeight);
+                if(dist > largestDist){
+                    largestDist = dist;
+                    bestIndex = i;
+                    isRotated = false;
+                }
+            }
+            if(canRotate && height <= freeWidth[i] && width <= freeHeight[i]){
+                double dist = computeDistance(freeX[i] + height, freeY[i] + width, binWidth, binHeight);
+                if(dist > largestDist){
+                    largestDist = dist;
+                    bestIndex = i;
+                    isRotated = true;
+                }
+            }
+        }
+        //The current rect cannot be inserted into current bin.
+        if(bestIndex == -1) return false;
+        placement.set(bestIndex, freeX[bestIndex], freeY[bestIndex], width, height, isRotated, -largestDist); //smaller is better
+        return true;
+    }
+
+    /**
+     * Find the free space such that the total touching
+     * perimeter is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTouchingPerimeter(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestTouchingPerimeter = -1;
+        int bestIndex = -1;
+        boolean isRotated = false;
+        for(int i=0; i<numFree; i++){
+            if(width <= freeWidth[i] && height <= freeHeight[i]){
+                double perimeter = computeTouchingPerimeter(freeX[i], freeY[i], width, height);
+                if(perimeter > largestTouchingPerimeter){
+                    largestTouchingPerimeter = perimeter;
+                    bestIndex = i;
+                    isRotated = false;
+                }
+            }
+            if(canRotate && height <= freeWidth[i] && width <= freeHeight[i]){
+                double perimeter = computeTouchingPerimeter(freeX[i], freeY[i], height, width);
+                if(perimeter > largestTouchingPerimeter){
+                    largestTouchingPerimeter = perimeter;
+                    bestIndex = i;
+                    isRotated = true;
+                }
+            }
+        }
+        //The current rect cannot be inserted into current bin.
+        if(bestIndex == -1) return false;
+        placement.set(bestIndex, freeX[bestIndex], freeY[bestIndex], width, height, isRotated, -largestTouchingPerimeter); //smaller is better
+        return true;
+    }
+
+    /**
+     * Find the free space such that the the wasted area
+     * is minimized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateBestArea(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        int bestWastedArea = Integer.MAX_VALUE;
+        int bestShortSide = Integer.MAX_VALUE;
+        int bestIndex = -1;
+        boolean isRotated = false;
+        int area = width * height;
+        for(int i=0; i<numFree; i++){
+            int spaceWidth = freeWidth[i], spaceHeight = freeHeight[i];
+            int wastedArea = spaceWidth * spaceHeight - area;
+            if(spaceWidth >= width && spaceHeight >= height){
+                int shortSide = Integer.min(spaceWidth - width, spaceHeight - height);
+                if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && shortSide < bestShortSide)){
+                    bestWastedArea = wastedArea;
+                    bestShortSide = shortSide;
+                    bestIndex = i;
+                    isRotated = false;
+                }
+            }
+            if(canRotate && spaceWidth >= height && spaceHeight >= width){
+                int shortSide = Integer.min(spaceWidth - height, spaceHeight - width);
+                if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && shortSide < bestShortSide)){
+                    bestWastedArea = wastedArea;
+                    bestShortSide = shortSide;
+                    bestIndex = i;
+                    isRotated = true;
+                }
+            }
+        }
+        if(bestIndex == -1) return false;
+        placement.set(bestIndex, freeX[bestIndex], freeY[bestIndex], width, height, isRotated, bestWastedArea);
+        return true;
+    }
+
+    /**
+     * Generate a new free space (maximal spaces) after packing <code>rect</code>.
+     * <p>
+     * The free spaces overlapping <code>rect</code> are marked as removed, the
+     * new free spaces are appended to the arrays and the removed ones are
+     * dropped in a single pass.
+     * @param rect the last rect inserted in the bin.
+     */
+    @Override
+    protected void generateFreeSpaces(Rect rect){
+        int rectX1 = rect.x, rectY1 = rect.y;
+        int rectX2 = rect.x + rect.width, rectY2 = rect.y + rect.height;
+        int numOldFree = numFree;
+        int numRemoved = 0;
+        for(int i=0; i<numOldFree; i++){
+            int x1 = freeX[i], y1 = freeY[i];
+            int x2 = x1 + freeWidth[i], y2 = y1 + freeHeight[i];
+            //Skip the free spaces that do not overlap rect
+            if(x1 >= rectX2 || x2 <= rectX1 || y1 >= rectY2 || y2 <= rectY1) continue;
+            //New free space is on bottom of rect
+            if(rectY1 > y1 && rectY1 < y2) append(x1, y1, x2 - x1, rectY1 - y1);
+            //New free space is on top of rect
+            if(rectY2 > y1 && rectY2 < y2) append(x1, rectY2, x2 - x1, y2 - rectY2);
+            //New free space is to the left of rect
+            if(rectX1 > x1 && rectX1 < x2) append(x1, y1, rectX1 - x1, y2 - y1);
+            //New free space is to the right of rect
+            if(rectX2 > x1 && rectX2 < x2) append(rectX2, y1, x2 - rectX2, y2 - y1);
+            //The free space is intersecting rect
+            if(isRecording()) logFreeRectRemoved(i - numRemoved, createFreeRect(i));
+            freeWidth[i] = 0;
+            numRemoved++;
+        }
+        if(numRemoved > 0) compact(0);
+        //New free spaces are placed after the remaining old ones
+        firstNewFree = numOldFree - numRemoved;
+    }
+
+    /**
+     * Remove the non-maximal spaces generated by the last insert.
+     * <p>
+     * Only the new free spaces are checked (see {@link MaxSpaceBin#pruneMaxSpaces()}).
+     * A removed space has a width of 0 so it cannot contain any other space.
+     */
+    protected void pruneMaxSpaces(){
+        int numRemoved = 0;
+        for(int j=firstNewFree; j<numFree; j++){
+            int x1 = freeX[j], y1 = freeY[j];
+            int x2 = x1 + freeWidth[j], y2 = y1 + freeHeight[j];
+            for(int i=0; i<numFree; i++){
+                if(i == j || freeWidth[i] == 0) continue;
+                int otherX1 = freeX[i], otherY1 = freeY[i];
+                int otherX2 = otherX1 + freeWidth[i], otherY2 = otherY1 + freeHeight[i];
+                if(x1 < otherX1 || y1 < otherY1 || x2 > otherX2 || y2 > otherY2) continue;
+                //Identical free spaces: keep the first one only
+                if(i < j || otherX1 != x1 || otherY1 != y1 || otherX2 != x2 || otherY2 != y2){
+                    if(isRecording()) logFreeRectRemoved(j - numRemoved, createFreeRect(j));
+                    freeWidth[j] = 0;
+                    numRemoved++;
+                    break;
+                }
+            }
+        }
+        if(numRemoved > 0) compact(firstNewFree);
+    }
+
+    /**
+     * Drop the removed free spaces (those with a width of 0) starting from
+     * <code>from</code> while keeping the order of the rest.
+     */
+    private void compact(int from){
+        int last = from;
+        for(int i=from; i<numFree; i++){
+            if(freeWidth[i] == 0) continue;
+            if(last != i){
+                freeX[last] = freeX[i];
+                freeY[last] = freeY[i];
+                freeWidth[last] = freeWidth[i];
+                freeHeight[last] = freeHeight[i];
+            }
+            last++;
+        }
+        numFree = last;
+    }
+
+    @Override
+    protected void updateCapacity(){
+        maxFreeWidth = 0;
+        maxFreeHeight = 0;
+        maxFreeArea = 0;
+        for(int i=0; i<numFree; i++){
+            maxFreeWidth = Integer.max(maxFreeWidth, freeWidth[i]);
+            maxFreeHeight = Integer.max(maxFreeHeight, freeHeight[i]);
+            maxFreeArea = Integer.max(maxFreeArea, freeWidth[i] * freeHeight[i]);
+        }
+    }
+
+    private void append(int x, int y, int width, int height){
+        ensureCapacity();
+        freeX[numFree] = x;
+        freeY[numFree] = y;
+        freeWidth[numFree] = width;
+        freeHeight[numFree] = height;
+        numFree++;
+        logFreeRectAdded();
+    }
+
+    private Rect createFreeRect(int i){
+        Rect freeRect = new Rect(freeWidth[i], freeHeight[i]);
+        freeRect.x = freeX[i];
+        freeRect.y = freeY[i];
+        return freeRect;
+    }
+
+    private void ensureCapacity(){
+        if(numFree == freeX.length){
+            int capacity = 2*freeX.length;
+            freeX = Arrays.copyOf(freeX, capacity);
+            freeY = Arrays.copyOf(freeY, capacity);
+            freeWidth = Arrays.copyOf(freeWidth, capacity);
+            freeHeight = Arrays.copyOf(freeHeight, capacity);
+        }
+    }
+
+    @Override
+    protected void undoFreeRectRemoved(int index, Rect rect){
+        ensureCapacity();
+        //Shift the free spaces after index to make room for the removed one
+        int count = numFree - index;
+        System.arraycopy(freeX, index, freeX, index + 1, count);
+        System.arraycopy(freeY, index, freeY, index + 1, count);
+        System.arraycopy(freeWidth, index, freeWidth, index + 1, count);
+        System.arraycopy(freeHeight, index, freeHeight, index + 1, count);
+        freeX[index] = rect.x;
+        freeY[index] = rect.y;
+        freeWidth[index] = rect.width;
+        freeHeight[index] = rect.height;
+        numFree++;
+    }
+
+    @Override
+    protected void undoFreeRectAdded(){
+        numFree--;
+    }
+
+    private void allocate(int capacity){
+        freeX = new int[capacity];
+        freeY = new int[capacity];
+        freeWidth = new int[capacity];
+        freeHeight = new int[capacity];
+    }
+
+    /**
+     * The number of free maximal spaces in the bin.
+     * @return the number of free maximal spaces
+     */
+    public int getNumberOfFreeSpaces(){
+        return numFree;
+    }
+
+    /**
+     * Get the free maximal spaces as rects.
+     * @return a new list with a copy of every free maximal space
+     */
+    public ArrayList<Rect> getFreeRects(){
+        ArrayList<Rect> rects = new ArrayList<>(numFree);
+        for(int i=0; i<numFree; i++){
+            Rect freeRect = new Rect(freeWidth[i], freeHeight[i]);
+            freeRect.x = freeX[i];
+            freeRect.y = freeY[i];
+            rects.add(freeRect);
+        }
+        return rects;
+    }
+
+    /**
+     * Two primitive bins are equal if they hold the same packed rects and the
+     * same free maximal spaces in the same order.
+     */
+    @Override
+    public boolean equals(Object object){
+        if(object == this) return true;
+        if(!(object instanceof PrimitiveMaxSpaceBin) || !super.equals(object)) return false;
+        PrimitiveMaxSpaceBin anotherBin = (PrimitiveMaxSpaceBin) object;
+        return numFree == anotherBin.numFree
+                && Arrays.equals(freeX, 0, numFree, anotherBin.freeX, 0, numFree)
+                && Arrays.equals(freeY, 0, numFree, anotherBin.freeY, 0, numFree)
+                && Arrays.equals(freeWidth, 0, numFree, anotherBin.freeWidth, 0, numFree)
+                && Arrays.equals(freeHeight, 0, numFree, anotherBin.freeHeight, 0, numFree);
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = super.hashCode();
+        for(int i=0; i<numFree; i++){
+            hash = 59 * hash + freeX[i];
+            hash = 59 * hash + freeY[i];
+            hash = 59 * hash + freeWidth[i];
+            hash = 59 * hash + freeHeight[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Check whether the packing in this bin is feasible.
+     * @return <code>true</code> if the packing is valid and <code>false</code> otherwise.
+     */
+    @Override
+    public boolean isFeasible(){
+        //Check if all rects are packed inside the bins and do not overlap
+        if(!super.isFeasible()) return false;
+        //Moreover, check the free spaces are feasible
+        ArrayList<Rect> rects = getFreeRects();
+        for(int i=0; i<rects.size(); i++){
+            Rect maxRect1 = rects.get(i);
+            for(int j=i+1; j<rects.size(); j++){
+                Rect maxRect2 = rects.get(j);
+                //No free space is inscribed into another one (this covers duplicates)
+                if(maxRect1.isContainedIn(maxRect2) || maxRect2.isContainedIn(maxRect1)){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
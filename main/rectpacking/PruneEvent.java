@@ -0,0 +1,34 @@
+package rectpacking;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Java Flight Recorder event emitted when the free spaces of a
+ * {@link MaxSpaceBin} that are not maximal are removed.
+ * <p>
+ * By default, only the prunings lasting at least 100 us are recorded. The
+ * threshold can be changed in the recording settings
+ * (<code>rectpacking.Prune#threshold</code>).
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+@Name("rectpacking.Prune")
+@Label("Prune")
+@Category("Rect Packing")
+@Description("Removal of the free spaces that are not maximal")
+@Threshold("100 us")
+@StackTrace(false)
+final class PruneEvent extends jdk.jfr.Event {
+    @Label("Free Spaces")
+    int numFreeSpaces;
+
+    @Label("Comparisons")
+    int numComparisons;
+
+    @Label("Removals")
+    int numRemovals;
+}
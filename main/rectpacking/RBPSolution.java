@@ -2,6 +2,12 @@ package rectpacking;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import rectpacking.PackingListener.Phase;
+import rectpacking.RectPacking.BinType;
+import rectpacking.RectPacking.PackMode;
 import rectpacking.RectPacking.PackingHeuristic;
 
 
@@ -19,111 +25,392 @@ public class RBPSolution {
     private ArrayList<Bin> binList;
     //solution measures:
     private int numBins; 
+    //The configuration of the packing: rotation, heuristic, pack mode and bin type
+    private PackingConfig config;
+    //Whether packFirst looks up the first bin in a BinTree
+    private boolean indexedFirstFit;
+    //Whether pack searches the best bin in parallel
+    private boolean parallel;
+    //The minimum number of bins for a parallel search
+    private int parallelThreshold;
+    //The listener observing the packing, or null
+    private PackingListener listener;
    
     
     public RBPSolution(int width, int height){
+        this(width, height, PackingConfig.DEFAULT);
+    }
+    
+    /**
+     * Create an empty solution using a configuration.
+     * @param width width of the bins
+     * @param height height of the bins
+     * @param config the configuration of the packing, carried by the bins
+     * opened by this solution
+     */
+    public RBPSolution(int width, int height, PackingConfig config){
         //You might want to have a random number generator if you want to extend
         //the functionality of this class.
         this.binWidth = width;
         this.binHeight = height;
         numBins = 0;        
+        this.config = Objects.requireNonNull(config);
+        parallelThreshold = 64;
     }
     
+    /**
+     * Create a copy of a solution.
+     * <p>
+     * The bins are not copied: both solutions share them (see {@link Bin#share()})
+     * and a bin is copied only when one of the solutions modifies it. Copying
+     * a solution takes a time linear in the number of bins.
+     * @param newSol a solution
+     */
     public RBPSolution(RBPSolution newSol){
         this.binWidth = newSol.binWidth;
         this.binHeight = newSol.binHeight;
-        binList = new ArrayList<>(newSol.binList.size());
-        //binList.addAll(newSol.binList); //wrong
-        for(Bin bin : newSol.binList){
-            binList.add(new MaxSpaceBin(bin));
+        this.config = newSol.config;
+        this.indexedFirstFit = newSol.indexedFirstFit;
+        this.parallel = newSol.parallel;
+        this.parallelThreshold = newSol.parallelThreshold;
+        this.listener = newSol.listener;
+        //The bins are shared by both solutions and copied only when one of the
+        //solutions modifies them (see getMutableBin)
+        binList = new ArrayList<>(newSol.binList);
+        for(Bin bin : binList){
+            bin.share();
         }
         this.numBins = newSol.numBins;
     }        
     
     
+    /**
+     * Pack the rects in <code>rectList</code> into bins using the heuristic and
+     * the packing mode of the configuration of this solution.
+     * @param rectList the items (or rects) to be packed. They are not modified
+     * @throws IllegalArgumentException if an item does not fit in an empty bin
+     */
+    public void pack(List<? extends Packable> rectList){
+        pack(rectList, config.getHeuristic(), config.getPackMode());
+    }
+    
+    /**
+     * Pack the rects in <code>rectList</code> into bins using the packing mode
+     * <code>mode</code>.
+     * @param rectList the items (or rects) to be packed. They are not modified
+     * @param heur the packing heuristic
+     * @param mode the packing mode
+     * @throws IllegalArgumentException if an item does not fit in an empty bin
+     */
+    public void pack(List<? extends Packable> rectList, PackingHeuristic heur, PackMode mode){
+        switch(mode){
+            case PackFirst: packFirst(rectList, heur); break;
+            default: pack(rectList, heur); break;
+        }
+    }
+    
     /**
      * Pack the rects in <code>rectList</code> into bins.
-     * @param rectList a list of rects to be packed
+     * @param rectList the items (or rects) to be packed. They are not modified
      * @param heur the packing heuristic
+     * @throws IllegalArgumentException if an item does not fit in an empty bin
      */
-    public void pack(List<Rect> rectList, PackingHeuristic heur){
+    public void pack(List<? extends Packable> rectList, PackingHeuristic heur){
+        PackEvent event = new PackEvent();
+        event.begin();
+        boolean timing = listener != null && listener.isTimingEnabled();
+        long start = timing ? System.nanoTime() : 0;
         //Compute a lower bound on the number of bins
         numBins = computeLowerBound(rectList);
+        int lowerBound = numBins;
         binList = new ArrayList<>(numBins);
         //initialize bins
         for(int i=0; i<numBins; i++)
             binList.add(openNewBin()); 
+        //The placements are reused for all the rects, evaluating a packing
+        //does not create any object
+        Placement candidate = new Placement();
+        Placement best = new Placement();
+        int[] numEvaluated = new int[1];
         //Consider packing the rects according to their order
-        for(Rect curRect : rectList){
-            double bestValue = Double.POSITIVE_INFINITY;
-            Bin bestBin = null; //Rect rectToPack = null;
-            Rect bestRect = null;
+        for(Packable curRect : rectList){
+            int width = curRect.getWidth(), height = curRect.getHeight();
+            long searchStart = timing ? System.nanoTime() : 0;
             //determine the best bin for the current rect
-            for(Bin bin : binList){
-                //Remove the packing info if any exist
-                curRect.removePackingInfo();
-                //Evaluate whether it is possible to pack the current rect into
-                //the current bin and if so, calcluate the cost of  that
-                Rect newRect = bin.evaluatePacking(curRect, heur);
-                if(newRect != null && newRect.score < bestValue){
-                    bestValue = newRect.score;
-                    bestBin = bin;
-                    bestRect = newRect;
-                }
+            int bestIndex;
+            if(parallel && binList.size() >= parallelThreshold){
+                BestBinSearch search = new BestBinSearch(binList, 0, binList.size(), width, height, heur,
+                        Integer.max(1, binList.size()/(4*ForkJoinPool.getCommonPoolParallelism())));
+                ForkJoinPool.commonPool().invoke(search);
+                bestIndex = search.bestIndex;
+                best.set(search.best);
+                numEvaluated[0] = search.numEvaluated;
+            }
+            else{
+                numEvaluated[0] = 0;
+                bestIndex = findBestBin(binList, 0, binList.size(), width, height, heur, candidate, best, numEvaluated);
             }
+            if(listener != null){
+                if(timing) listener.phaseTimed(Phase.Search, System.nanoTime() - searchStart);
+                listener.binsEvaluated(numEvaluated[0]);
+            }
+            Bin bestBin = bestIndex == -1 ? null : binList.get(bestIndex);
             //If a bin is found, pack rect
             if(bestBin != null){
-                bestBin.insert(bestRect, heur);
+                //The rect placing the item records the item
+                best.itemID = curRect.getItemID();
+                bestBin.insert(best);
             }
             //otherwise, open a new bin
             else{
-                Bin newBin = openNewBin();
-                newBin.insert(curRect, heur); //no need to evaluate packing
+                Bin newBin = openNewBin(curRect, heur, best);
+                newBin.insert(best);
                 binList.add(newBin);
             }
         }
         numBins = binList.size();
+        if(listener != null) reportPack(lowerBound, start, timing);
+        commitPackEvent(event, rectList, heur, PackMode.Pack);
+    }
+    
+    /**
+     * Record a packing if it is slow enough.
+     * @param event the event started before the packing
+     * @param rectList the rects packed
+     * @param heur the packing heuristic
+     * @param mode the packing mode
+     */
+    private void commitPackEvent(PackEvent event, List<? extends Packable> rectList, PackingHeuristic heur, PackMode mode){
+        event.end();
+        if(event.shouldCommit()){
+            event.numItems = rectList.size();
+            event.numBins = numBins;
+            event.lowerBound = computeLowerBound(rectList);
+            event.heuristic = heur.name();
+            event.mode = mode.name();
+            event.binType = config.getBinType().name();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Report the end of a packing to the listener.
+     * @param lowerBound the lower bound on the number of bins
+     * @param start the start time of the packing in nanoseconds
+     * @param timing whether the packing is timed
+     */
+    private void reportPack(int lowerBound, long start, boolean timing){
+        listener.binsOpenedBeyondLowerBound(Integer.max(0, numBins - lowerBound));
+        if(timing) listener.phaseTimed(Phase.Pack, System.nanoTime() - start);
+    }
+    
+    /**
+     * Find the bin with the best (smallest) score for an item among the bins
+     * from <code>from</code> (inclusive) to <code>to</code> (exclusive). Ties
+     * are broken by the lowest bin index.
+     * @param bins the bins
+     * @param from the index of the first bin
+     * @param to the index after the last bin
+     * @param width the item's width
+     * @param height the item's height
+     * @param heur the packing heuristic
+     * @param candidate a placement used to evaluate every bin
+     * @param best receives the best placement
+     * @return the index of the best bin, or -1 if no bin can hold the item
+     */
+    static int findBestBin(List<Bin> bins, int from, int to, int width, int height, 
+            PackingHeuristic heur, Placement candidate, Placement best){
+        return findBestBin(bins, from, to, width, height, heur, candidate, best, null);
+    }
+    
+    /**
+     * Find the bin with the best score for an item as
+     * {@link #findBestBin(List, int, int, int, int, PackingHeuristic, Placement, Placement)}
+     * does, counting the bins evaluated.
+     * @param numEvaluated if it is not <code>null</code>, its first element is
+     * increased by the number of bins whose capacity summary does not reject
+     * the item
+     */
+    private static int findBestBin(List<Bin> bins, int from, int to, int width, int height, 
+            PackingHeuristic heur, Placement candidate, Placement best, int[] numEvaluated){
+        int bestIndex = -1;
+        best.clear();
+        for(int i=from; i<to; i++){
+            Bin bin = bins.get(i);
+            //Skip the bins that are too full to hold the current rect
+            if(!bin.canFit(width, height)) continue;
+            if(numEvaluated != null) numEvaluated[0]++;
+            //Evaluate whether it is possible to pack the current rect into
+            //the current bin and if so, calcluate the cost of  that
+            if(bin.evaluatePacking(width, height, heur, candidate) && candidate.score < best.score){
+                bestIndex = i;
+                best.set(candidate);
+            }
+        }
+        return bestIndex;
+    }
+    
+    /**
+     * A search for the best bin that splits the bins in halves until there are
+     * at most <code>grain</code> bins, scans the halves in parallel and keeps
+     * the best placement. A tie is won by the left half, so the result is the
+     * same as the one of {@link RBPSolution#findBestBin}.
+     * <p>
+     * The bins are only read, evaluating a packing does not modify a bin.
+     */
+    private static final class BestBinSearch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<Bin> bins;
+        private final int from, to;
+        private final int width, height;
+        private final PackingHeuristic heur;
+        private final int grain;
+        private final Placement best = new Placement();
+        private int bestIndex = -1;
+        /** The number of bins evaluated */
+        private int numEvaluated;
+        
+        BestBinSearch(List<Bin> bins, int from, int to, int width, int height, PackingHeuristic heur, int grain){
+            this.bins = bins;
+            this.from = from;
+            this.to = to;
+            this.width = width;
+            this.height = height;
+            this.heur = heur;
+            this.grain = grain;
+        }
+        
+        @Override
+        protected void compute(){
+            if(to - from <= grain){
+                int[] count = new int[1];
+                bestIndex = findBestBin(bins, from, to, width, height, heur, new Placement(), best, count);
+                numEvaluated = count[0];
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            BestBinSearch left = new BestBinSearch(bins, from, mid, width, height, heur, grain);
+            BestBinSearch right = new BestBinSearch(bins, mid, to, width, height, heur, grain);
+            invokeAll(left, right);
+            numEvaluated = left.numEvaluated + right.numEvaluated;
+            BestBinSearch winner = left;
+            if(right.bestIndex != -1 && (left.bestIndex == -1 || right.best.score < left.best.score))
+                winner = right;
+            bestIndex = winner.bestIndex;
+            best.set(winner.best);
+        }
     }
     
     /**
      * Pack the rects in <code>rectList</code> into the <i>first available</i> bins.
-     * @param rectList a list of rects to be packed
+     * @param rectList the items (or rects) to be packed. They are not modified
      * @param heur the packing heuristic
+     * @throws IllegalArgumentException if an item does not fit in an empty bin
      */
-    public void packFirst(List<Rect> rectList, PackingHeuristic heur){
+    public void packFirst(List<? extends Packable> rectList, PackingHeuristic heur){
+        PackEvent event = new PackEvent();
+        event.begin();
+        if(indexedFirstFit){
+            packFirstIndexed(rectList, heur);
+            commitPackEvent(event, rectList, heur, PackMode.PackFirst);
+            return;
+        }
+        boolean timing = listener != null && listener.isTimingEnabled();
+        long start = timing ? System.nanoTime() : 0;
         //Compute a lower bound on the number of bins
         numBins = computeLowerBound(rectList);
+        int lowerBound = numBins;
         binList = new ArrayList<>(numBins);
         binList.add(openNewBin()); 
+        Placement placement = new Placement();
         //Consider packing the rects according to their order
-        for(Rect curRect : rectList){
-            Bin bestBin = null; //Rect rectToPack = null;
-            Rect bestRect = null;
+        for(Packable curRect : rectList){
+            int width = curRect.getWidth(), height = curRect.getHeight();
+            long searchStart = timing ? System.nanoTime() : 0;
+            Bin bestBin = null;
+            int numEvaluated = 0;
             //determine the best bin for the current rect
             for(Bin bin : binList){
-                //Remove the packing info if any exist
-                curRect.removePackingInfo();
+                //Skip the bins that are too full to hold the current rect
+                if(!bin.canFit(width, height)) continue;
+                numEvaluated++;
                 //Evaluate whether it is possible to pack the current rect into
                 //the current bin and if so, calcluate the cost of  that
-                Rect newRect = bin.evaluatePacking(curRect, heur);
-                if(newRect != null){
+                if(bin.evaluatePacking(width, height, heur, placement)){
                     bestBin = bin;
-                    bestRect = newRect;
                     break; // A bin is found, do not go further
                 }
             }
+            if(listener != null){
+                if(timing) listener.phaseTimed(Phase.Search, System.nanoTime() - searchStart);
+                listener.binsEvaluated(numEvaluated);
+            }
             //If a bin is found, pack rect
             if(bestBin != null){
-                bestBin.insert(bestRect, heur);
+                placement.itemID = curRect.getItemID();
+                bestBin.insert(placement);
             }
             //otherwise, open a new bin
             else{
-                Bin newBin = openNewBin();
-                newBin.insert(curRect, heur); //no need to evaluate packing
+                Bin newBin = openNewBin(curRect, heur, placement);
+                newBin.insert(placement);
+                binList.add(newBin);
+            }
+        }
+        numBins = binList.size();
+        if(listener != null) reportPack(lowerBound, start, timing);
+        commitPackEvent(event, rectList, heur, PackMode.PackFirst);
+    }
+    
+    /**
+     * Pack the rects in <code>rectList</code> into the <i>first available</i>
+     * bins using a {@link BinTree} to find the candidate bins.
+     * <p>
+     * The bins rejected by the tree cannot hold the current rect, so the
+     * packing is identical to the one of the linear scan.
+     * @param rectList the items (or rects) to be packed. They are not modified
+     * @param heur the packing heuristic
+     */
+    private void packFirstIndexed(List<? extends Packable> rectList, PackingHeuristic heur){
+        boolean timing = listener != null && listener.isTimingEnabled();
+        long start = timing ? System.nanoTime() : 0;
+        //Compute a lower bound on the number of bins
+        numBins = computeLowerBound(rectList);
+        int lowerBound = numBins;
+        binList = new ArrayList<>(numBins);
+        BinTree binTree = new BinTree(config.canRotate());
+        binList.add(openNewBin());
+        binTree.add(binList.get(0));
+        Placement placement = new Placement();
+        //Consider packing the rects according to their order
+        for(Packable curRect : rectList){
+            int width = curRect.getWidth(), height = curRect.getHeight();
+            long searchStart = timing ? System.nanoTime() : 0;
+            //Visit only the bins that may hold the current rect
+            int binIndex = binTree.findFirst(0, width, height);
+            int numEvaluated = binIndex != -1 ? 1 : 0;
+            while(binIndex != -1 
+                    && !binList.get(binIndex).evaluatePacking(width, height, heur, placement)){
+                binIndex = binTree.findFirst(binIndex + 1, width, height);
+                if(binIndex != -1) numEvaluated++;
+            }
+            if(listener != null){
+                if(timing) listener.phaseTimed(Phase.Search, System.nanoTime() - searchStart);
+                listener.binsEvaluated(numEvaluated);
+            }
+            //No bin can hold the current rect, open a new bin
+            if(binIndex == -1){
+                Bin newBin = openNewBin(curRect, heur, placement);
                 binList.add(newBin);
+                binTree.add(newBin);
+                binIndex = binList.size() - 1;
             }
+            else placement.itemID = curRect.getItemID();
+            binList.get(binIndex).insert(placement);
+            binTree.update(binIndex);
         }
         numBins = binList.size();
+        if(listener != null) reportPack(lowerBound, start, timing);
     }
     
     /**
@@ -138,23 +425,209 @@ public class RBPSolution {
         return true;
     }        
  
-    private Bin openNewBin(){
-        Bin newBin = new MaxSpaceBin(binWidth, binHeight);
+    /**
+     * Open an empty bin of the bin type of this solution. The bin is not added
+     * to the solution.
+     * @return a new initialized bin
+     */
+    public Bin openNewBin(){
+        Bin newBin;
+        switch(config.getBinType()){
+            case IndexedMaxSpace: newBin = new IndexedMaxSpaceBin(binWidth, binHeight); break;
+            case PrimitiveMaxSpace: newBin = new PrimitiveMaxSpaceBin(binWidth, binHeight); break;
+            case Skyline: newBin = new SkylineBin(binWidth, binHeight); break;
+            case Guillotine: 
+                newBin = new GuillotineBin(binWidth, binHeight, config.getSplitRule(), config.isMerge()); 
+                break;
+            default: newBin = new MaxSpaceBin(binWidth, binHeight); break;
+        }
+        newBin.setConfig(config);
+        newBin.setListener(listener);
         newBin.init();
         return newBin;
     }
     
-    public int computeLowerBound(List<Rect> rectList){
-        int area = 0;
-        for(Rect rect : rectList)
-            area += rect.width * rect.height;        
-        return area/(binWidth*binHeight) + 1; //ceiling
+    /**
+     * Open an empty bin and find the position of an item in it. The bin is not
+     * added to the solution.
+     * @param item the item
+     * @param heur the packing heuristic
+     * @param placement receives the position of the item in the new bin and
+     * the identifier of the item
+     * @return a new initialized bin
+     * @throws IllegalArgumentException if the item does not fit in an empty bin
+     */
+    private Bin openNewBin(Packable item, PackingHeuristic heur, Placement placement){
+        Bin newBin = openNewBin();
+        placement.clear();
+        if(!newBin.evaluatePacking(item.getWidth(), item.getHeight(), heur, placement))
+            throw new IllegalArgumentException("The item " + item + " does not fit in an empty bin");
+        placement.itemID = item.getItemID();
+        return newBin;
+    }
+    
+    /**
+     * Copy a bin using the bin type of this solution.
+     * @param bin a bin
+     * @return a deep copy of the bin
+     */
+    public Bin copyBin(Bin bin){
+        switch(config.getBinType()){
+            case IndexedMaxSpace: return new IndexedMaxSpaceBin(bin);
+            case PrimitiveMaxSpace: return new PrimitiveMaxSpaceBin(bin);
+            case Skyline: return new SkylineBin(bin);
+            case Guillotine: return new GuillotineBin(bin);
+            default: return new MaxSpaceBin(bin);
+        }
+    }
+    
+    /**
+     * Compute the area lower bound on the number of bins: the total area of the
+     * items divided by the area of a bin, rounded up. No packing of the items
+     * can use fewer bins.
+     * @param rectList the items
+     * @return the lower bound
+     */
+    public int computeLowerBound(List<? extends Packable> rectList){
+        long area = 0;
+        for(Packable rect : rectList)
+            area += rect.getArea();
+        long binArea = (long) binWidth*binHeight;
+        return (int) ((area + binArea - 1)/binArea); //ceiling
     }    
  
     public int getNumberOfBin(){
         return numBins;
     }
     
+    /**
+     * Get a bin of this solution.
+     * @param index the index of the bin
+     * @return the bin. It may be shared with a copy of this solution, in which
+     * case it cannot be modified (see {@link #getMutableBin(int)})
+     */
+    public Bin getBin(int index){
+        return binList.get(index);
+    }
+    
+    /**
+     * Get a bin of this solution that can be modified.
+     * <p>
+     * If the bin is shared with a copy of this solution, it is replaced with a
+     * copy owned by this solution.
+     * @param index the index of the bin
+     * @return a bin that is not shared
+     */
+    public Bin getMutableBin(int index){
+        Bin bin = binList.get(index);
+        if(bin.isShared()){
+            bin = copyBin(bin);
+            binList.set(index, bin);
+        }
+        return bin;
+    }
+    
+    /**
+     * Get the bins of this solution.
+     * @return the list of bins. The list is not copied, use
+     * {@link #setBins(ArrayList)} after modifying it. The bins may be shared
+     * (see {@link #getBin(int)})
+     */
+    public ArrayList<Bin> getBins(){
+        return binList;
+    }
+    
+    /**
+     * Replace the bins of this solution.
+     * @param bins the new list of bins
+     */
+    public void setBins(ArrayList<Bin> bins){
+        binList = bins;
+        numBins = bins.size();
+    }
+    
+    public BinType getBinType(){
+        return config.getBinType();
+    }
+    
+    /**
+     * Set the data structure used by the bins opened by the packing methods.
+     * The other settings of the configuration are kept.
+     * @param binType the bin data structure
+     */
+    public void setBinType(BinType binType){
+        config = config.withBinType(binType);
+    }
+    
+    public PackingConfig getConfig(){
+        return config;
+    }
+    
+    /**
+     * Set the configuration used by the packing methods and carried by the
+     * bins they open. The bins already in the solution are not changed.
+     * @param config the configuration
+     */
+    public void setConfig(PackingConfig config){
+        this.config = Objects.requireNonNull(config);
+    }
+    
+    public boolean isIndexedFirstFit(){
+        return indexedFirstFit;
+    }
+    
+    /**
+     * Set whether {@link #packFirst(List, PackingHeuristic)} finds the first
+     * available bin with a {@link BinTree} instead of scanning the bins. This
+     * is faster when there are many bins and does not change the packing.
+     * @param indexedFirstFit <code>true</code> to use the tree
+     */
+    public void setIndexedFirstFit(boolean indexedFirstFit){
+        this.indexedFirstFit = indexedFirstFit;
+    }
+    
+    public boolean isParallel(){
+        return parallel;
+    }
+    
+    /**
+     * Set whether {@link #pack(List, PackingHeuristic)} searches the best bin
+     * for each rect in parallel on the common <code>ForkJoinPool</code>. The
+     * search is parallel only when there are at least
+     * {@link #getParallelThreshold()} bins. This does not change the packing.
+     * @param parallel <code>true</code> to search in parallel
+     */
+    public void setParallel(boolean parallel){
+        this.parallel = parallel;
+    }
+    
+    public PackingListener getListener(){
+        return listener;
+    }
+    
+    /**
+     * Set the listener observing the packing methods of this solution and the
+     * bins they open. The bins already in the solution are not changed.
+     * @param listener the listener, or <code>null</code> (the default) to
+     * observe nothing
+     */
+    public void setListener(PackingListener listener){
+        this.listener = listener;
+    }
+    
+    public int getParallelThreshold(){
+        return parallelThreshold;
+    }
+    
+    /**
+     * Set the minimum number of bins for which the best bin is searched in
+     * parallel. Below that, the overhead of the tasks is larger than the gain.
+     * @param parallelThreshold the minimum number of bins
+     */
+    public void setParallelThreshold(int parallelThreshold){
+        this.parallelThreshold = parallelThreshold;
+    }
+    
     @Override
     public String toString(){
         for(Bin bin : binList) System.out.println(bin);
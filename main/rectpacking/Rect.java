@@ -4,7 +4,7 @@ package rectpacking;
  * A class implementing a rectangular item.
  * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
  */
-public class Rect {
+public class Rect implements Packable {
     /** the side of the rect that is parallel to x-axis (convention)*/
     public int width; 
     /** the side of the rect that is parallel to y-axis (convention)*/
@@ -17,6 +17,8 @@ public class Rect {
     public int y;
     /** associate a score with packing to quantify the "goodness" of packing */
     public double score; 
+    /** The identifier of the item placed by this rect, or -1 if it is not known (see {@link Item#id}) */
+    public int itemID;
 
     /**
      * Create a degenerate rect.
@@ -28,6 +30,7 @@ public class Rect {
         this.score = Double.POSITIVE_INFINITY;
         this.x = -1; //not packed yet
         this.y = -1;
+        this.itemID = -1;
     }
     
     /**
@@ -42,6 +45,7 @@ public class Rect {
         this.score = Double.POSITIVE_INFINITY;
         x = -1; //not packed yet
         y = -1;
+        itemID = -1;
     }
     
     /**
@@ -55,6 +59,27 @@ public class Rect {
         this.x = rect.x;
         this.y = rect.y;
         this.score = rect.score;
+        this.itemID = rect.itemID;
+    }
+    
+    @Override
+    public int getWidth(){
+        return width;
+    }
+    
+    @Override
+    public int getHeight(){
+        return height;
+    }
+    
+    @Override
+    public int getArea(){
+        return area;
+    }
+    
+    @Override
+    public int getItemID(){
+        return itemID;
     }
     
     public void removePackingInfo(){
@@ -6,11 +6,11 @@ import java.util.Comparator;
  *
  * @author ahmed
  */
-public class RectAreaComparator implements Comparator<Rect>{
+public class RectAreaComparator implements Comparator<Packable>{
 
     @Override
-    public int compare(Rect o1, Rect o2) {
-        return -Integer.compare(o1.area, o2.area);
+    public int compare(Packable o1, Packable o2) {
+        return -Integer.compare(o1.getArea(), o2.getArea());
     }
     
 }
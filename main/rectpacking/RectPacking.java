@@ -1,16 +1,15 @@
 package rectpacking;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
-import java.util.StringTokenizer;
 
 /**
  * The rectangular two-dimensional bin packing problem.
@@ -28,12 +27,44 @@ public class RectPacking {
         TopRightCornerDistance
     }
     
-    public static boolean canRotate = false;
+    /**
+     * The data structures that track the free spaces inside the bins.
+     */
+    public static enum BinType {
+        /** Maximal spaces kept in a list ({@link MaxSpaceBin}) */
+        MaxSpace,
+        /** Maximal spaces kept in a spatial index ({@link IndexedMaxSpaceBin}) */
+        IndexedMaxSpace,
+        /** Maximal spaces kept in primitive arrays ({@link PrimitiveMaxSpaceBin}) */
+        PrimitiveMaxSpace,
+        /** The upper contour of the packed items ({@link SkylineBin}) */
+        Skyline,
+        /** Disjoint free rects produced by guillotine cuts ({@link GuillotineBin}) */
+        Guillotine
+    }
+    
+    /**
+     * The ways of choosing the bin of each item.
+     */
+    public static enum PackMode {
+        /** Pack each item in the bin giving the best score ({@link RBPSolution#pack}) */
+        Pack,
+        /** Pack each item in the first bin that can hold it ({@link RBPSolution#packFirst}) */
+        PackFirst
+    }
+    
+    private final long seed;
     private final Random rng;
     /** Instance unique identifier */        
     private int instanceID;
     /** A list of instances. In each class (file), there are 50 instances*/
     ArrayList<Instance> instanceList;
+    /** The instance file read lazily (see {@link #readLazily(String, boolean)}) */
+    private InstanceFile instanceFile;
+    /** The cache of the instance files in binary form, or null if not used */
+    private InstanceCache instanceCache;
+    /** The configuration of the solutions created for the instances */
+    private PackingConfig config;
     
     
     /**
@@ -42,114 +73,114 @@ public class RectPacking {
      * @param seed 
      */
     public RectPacking(long seed){
+        this.seed = seed;
         rng = new Random(seed);
         instanceList = new ArrayList<>(50);
+        config = PackingConfig.DEFAULT;
     }     
     
         
     /**
      * Read problem instance from a file.
+     * <p>
+     * The file is parsed by {@link InstanceParser}. If an instance cache is set
+     * (see {@link #setInstanceCache(InstanceCache)}, there is none by default),
+     * the instances are read from their binary form in the cache when the file
+     * has not changed since it was cached.
      * @param pathToInstanceFile path to the instance file
      * @throws FileNotFoundException
-     * @throws IOException 
+     * @throws IOException if the file cannot be read or is malformed
      */
     public final void read(String pathToInstanceFile) throws FileNotFoundException, IOException{
-        int binWidth, binHeight;
-        instanceList = new ArrayList<>(50);
-        File f = new File(pathToInstanceFile);
-        FileInputStream fis = new FileInputStream(f);
-        BufferedReader br = new BufferedReader(new InputStreamReader(fis));
-        String line = null;
-        ArrayList<Rect> rectList = new ArrayList<>();
-        int numItems;
-        int headingLines = 0; //count the number of headings
-        boolean isNewInstance = false; //beginning of reading a new instance
-        Instance instance = new Instance();
-        //start reading!
-        while((line = br.readLine()) != null){
-            //System.out.println(line);
-            StringTokenizer tokens = new StringTokenizer(line);
-            if(tokens.countTokens()==0){//file contains new lines to separate instance
-                instance.loadRectToPack(rectList);
-                instanceList.add(instance);
-                //System.out.println("size = " + instance.size());
-                continue; 
-            } 
-            if(line.contains("PROBLEM")){
-                isNewInstance = true;
-                headingLines++;
-                //if(instance.isInitialized()) instanceList.add(instance);
-                instance = new Instance();
-                continue; //read the next 
-            }
-            if(isNewInstance){
-                switch (headingLines) {
-                    //first heading is number of items
-                    case 1:
-                        numItems = Integer.parseInt(tokens.nextToken());
-                        rectList = new ArrayList<>(numItems);
-                        headingLines++;
-                        break;
-                    //second heading is the numbering of the instances
-                    case 2:
-                        headingLines++;
-                        break; //not interesting
-                    //third heading is the bin dimensions
-                    case 3:
-                        binWidth = Integer.parseInt(tokens.nextToken());
-                        binHeight = Integer.parseInt(tokens.nextToken());
-                        instance.setBinDim(binWidth, binHeight);
-                        headingLines = 0; //heading lines are done. reset the count
-                        isNewInstance = false;
-                        break;
-                    default:
-                        break;
-                }
-            }
-            else{//not a new instance
-                int width = Integer.parseInt(tokens.nextToken().trim());
-                int height = Integer.parseInt(tokens.nextToken().trim());
-                Rect rect = new Rect(width, height);
-                //instance.loadRect(rect);
-                rectList.add(rect);
-            }
-        }
+        Path path = Paths.get(pathToInstanceFile);
+        instanceList = instanceCache == null ? InstanceParser.parse(path) : instanceCache.read(path);
+        instanceFile = null;
+    }
+    
+    /**
+     * Read problem instance from a file on demand.
+     * <p>
+     * Only the offsets of the instances are read from the file. An instance is
+     * parsed when it is needed (e.g., by {@link #getInstance(int)} or by solving
+     * the instance set by {@link #setInstance(int)}), see {@link InstanceFile}.
+     * @param pathToInstanceFile path to the instance file
+     * @param persistIndex whether the offsets are kept in an index file next to
+     * the instance file
+     * @throws IOException if the file cannot be read
+     */
+    public final void readLazily(String pathToInstanceFile, boolean persistIndex) throws IOException{
+        instanceFile = new InstanceFile(Paths.get(pathToInstanceFile), persistIndex);
+        instanceList = new ArrayList<>();
     }
 
     /**
      * Initialize a solution by packing randomly shuffled items into bins using 
-     * the best are fit heuristic.
+     * the heuristic and the packing mode of the configuration of this problem
+     * (the best area fit heuristic by default).
      * @return an initial solution
      */
     public RBPSolution initializeSolution(){
-        Instance instance = instanceList.get(instanceID);
-        //Get the list of rects to be packed
-        List<Rect> rectList = instance.queue;
-        //Shuffle
-        Collections.shuffle(rectList, rng);
+        Instance instance = getInstance(instanceID);
+        //Shuffle a copy of the items, the instance may be shared
+        List<Item> itemList = new ArrayList<>(instance.getItems());
+        Collections.shuffle(itemList, rng);
         //Create an empty solution
-        RBPSolution sol = new RBPSolution(instance.binWidth, instance.binHeight);
-        //Pack rects. Use best area fit as an initial heuristic.
-         sol.pack(rectList, PackingHeuristic.BestAreaFit);
+        RBPSolution sol = new RBPSolution(instance.binWidth, instance.binHeight, config);
+        //Pack the items using the configuration
+        sol.pack(itemList);
         return sol;
     }
     
+    /**
+     * Solve the instance with a {@link PortfolioSolver} seeded with the seed of
+     * this problem.
+     * @param numOrderings the number of orderings of the items
+     * @param numThreads the number of threads
+     * @return the solution with the fewest bins
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * for the packings
+     */
+    public RBPSolution solvePortfolio(int numOrderings, int numThreads) throws InterruptedException{
+        PortfolioSolver solver = new PortfolioSolver(getInstance(instanceID), seed);
+        solver.setNumberOfOrderings(numOrderings);
+        solver.setNumberOfThreads(numThreads);
+        solver.setConfig(config);
+        return solver.solve();
+    }
+    
     /**
      * Get an empty solution.
      * @return an empty solution that does not contain any bin (not initialized)
      */
     public RBPSolution getEmptySolution(){
-        Instance instance = instanceList.get(instanceID);
-        //Get the list of rects to be packed
-        List<Rect> rectList = instance.queue;
-        //Shuffle
-        Collections.shuffle(rectList, rng);
+        Instance instance = getInstance(instanceID);
         //Create an empty solution
-        return new RBPSolution(instance.binWidth, instance.binHeight);
+        return new RBPSolution(instance.binWidth, instance.binHeight, config);
     }
     
+    /**
+     * Get an instance of the file that was read.
+     * @param instanceID the index of the instance in the file
+     * @return the instance
+     * @throws UncheckedIOException if the file is read lazily and the instance
+     * cannot be read
+     */
     public Instance getInstance(int instanceID){
-        return instanceList.get(instanceID);
+        if(instanceFile == null) return instanceList.get(instanceID);
+        try{
+            return instanceFile.getInstance(instanceID);
+        }
+        catch(IOException ex){
+            throw new UncheckedIOException(ex);
+        }
+    }
+    
+    /**
+     * The number of instances in the file that was read.
+     * @return the number of instances
+     */
+    public int getNumberOfInstances(){
+        return instanceFile == null ? instanceList.size() : instanceFile.size();
     }
     
     /**
@@ -160,9 +191,48 @@ public class RectPacking {
        this.instanceID = instanceID; 
     }
     
+    public InstanceCache getInstanceCache(){
+        return instanceCache;
+    }
+    
+    /**
+     * Set the cache used by {@link #read(String)}, e.g.,
+     * {@link InstanceCache#getDefault()}.
+     * @param instanceCache the cache, or <code>null</code> (the default) to
+     * always parse the instance files
+     */
+    public void setInstanceCache(InstanceCache instanceCache){
+        this.instanceCache = instanceCache;
+    }
+    
+    public PackingConfig getConfig(){
+        return config;
+    }
+    
+    /**
+     * Set the configuration of the solutions created by this problem (see
+     * {@link #initializeSolution()}, {@link #getEmptySolution()} and
+     * {@link #solvePortfolio(int, int)}).
+     * @param config the configuration
+     */
+    public void setConfig(PackingConfig config){
+        this.config = Objects.requireNonNull(config);
+    }
+    
+    public long getSeed(){
+        return seed;
+    }
+    
+    /**
+     * Get the items of the instance to be solved as rects. The rects are
+     * created by every call, so they can be shuffled or modified without
+     * changing the instance (see {@link Instance#getItems()} for the items
+     * themselves).
+     * @return a new list of new rects, in the order of the instance
+     */
     public List<Rect> getPackingQueue(){
-        Instance instance = instanceList.get(instanceID);
-        return instance.queue;
+        Instance instance = getInstance(instanceID);
+        return instance.createRects();
     }
       
 }    
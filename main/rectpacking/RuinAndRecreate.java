@@ -0,0 +1,233 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A ruin-and-recreate local search improving the solution of
+ * {@link RBPSolution#pack(java.util.List, PackingHeuristic)}.
+ * <p>
+ * A move empties a few of the least-occupied bins (ruin) and reinserts their
+ * items, largest first, into the bin where they get the best score (recreate).
+ * Items that do not fit in any bin are packed in new bins. The move is kept if
+ * the solution uses fewer bins, or the same number of bins with a larger sum
+ * of squared occupancies (which favours moving items out of the least-occupied
+ * bins). Otherwise, it is undone.
+ * <p>
+ * A move only touches the ruined bins and the bins receiving an item. A
+ * checkpoint is set on a bin before it receives its first item in a move so
+ * that the move can be undone by rolling the bin back (see {@link Bin#checkpoint()}),
+ * and the objective is evaluated on the touched bins only. A bin shared with
+ * another solution is copied first. The bins are kept ordered by decreasing
+ * occupancy between moves: an accepted move only moves the touched and the new
+ * bins to their place, and an undone move puts the ruined bins back where they
+ * were, so the bins are never sorted again.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class RuinAndRecreate {
+    private final RBPSolution solution;
+    private final PackingHeuristic heur;
+    private final Random rng;
+    /** The bins of the solution, ordered by decreasing occupancy between moves */
+    private final ArrayList<Bin> bins;
+    private final int lowerBound;
+    private final BinAreaComparator binComparator;
+    private final RectAreaComparator rectComparator;
+    /** The maximum number of bins emptied by a move */
+    private int maxRuinedBins;
+    /** The ruined bins are chosen among this number of least-occupied bins */
+    private int candidatePoolSize;
+    private long numMoves;
+    private long numAcceptedMoves;
+    //Reused between moves
+    private final ArrayList<Bin> ruinedBins;
+    /** The indices of the ruined bins before they were removed */
+    private int[] ruinedIndices;
+    private final ArrayList<Rect> items;
+    private int[] touchedBins;
+    private int numTouched;
+    private final Placement candidate;
+    private final Placement best;
+
+    /**
+     * Create a local search improving <code>solution</code> in place.
+     * @param solution a packed solution
+     * @param heur the packing heuristic used to reinsert the items
+     * @param rng the random number generator choosing the ruined bins
+     */
+    public RuinAndRecreate(RBPSolution solution, PackingHeuristic heur, Random rng){
+        this.solution = solution;
+        this.heur = heur;
+        this.rng = rng;
+        bins = solution.getBins();
+        binComparator = new BinAreaComparator();
+        bins.sort(binComparator);
+        ArrayList<Rect> rectList = new ArrayList<>();
+        for(Bin bin : bins)
+            rectList.addAll(bin.getPackedRect());
+        lowerBound = solution.computeLowerBound(rectList);
+        rectComparator = new RectAreaComparator();
+        maxRuinedBins = 2;
+        candidatePoolSize = 4;
+        ruinedBins = new ArrayList<>();
+        ruinedIndices = new int[maxRuinedBins];
+        items = new ArrayList<>();
+        touchedBins = new int[bins.size()];
+        candidate = new Placement();
+        best = new Placement();
+    }
+
+    /**
+     * Apply moves until <code>maxMoves</code> moves are done or the number of
+     * bins reaches the lower bound.
+     * @param maxMoves the maximum number of moves
+     * @return the number of bins of the solution
+     */
+    public int run(long maxMoves){
+        for(long i=0; i<maxMoves && bins.size() > lowerBound; i++)
+            move();
+        solution.setBins(bins);
+        return bins.size();
+    }
+
+    /**
+     * Ruin and recreate the solution once.
+     * @return <code>true</code> if the move is accepted
+     */
+    public boolean move(){
+        if(bins.size() < 2) return false;
+        numMoves++;
+        //The least-occupied bins are at the end of the list
+        int numBefore = bins.size();
+        int numRuined = 1 + rng.nextInt(Integer.min(maxRuinedBins, numBefore - 1));
+        int poolSize = Integer.max(numRuined, Integer.min(candidatePoolSize, numBefore - 1));
+        if(ruinedIndices.length < numRuined)
+            ruinedIndices = new int[numRuined];
+        double oldValue = 0;
+        for(int k=0; k<numRuined; k++){
+            int index = bins.size() - 1 - rng.nextInt(poolSize - k);
+            Bin bin = bins.remove(index);
+            ruinedIndices[k] = index;
+            ruinedBins.add(bin);
+            items.addAll(bin.getPackedRect());
+            oldValue += square(bin.getOccupancy());
+        }
+        items.sort(rectComparator);
+        int numKept = bins.size();
+        if(touchedBins.length < numKept)
+            touchedBins = new int[numBefore];
+        for(Rect item : items){
+            int binIndex = RBPSolution.findBestBin(bins, 0, bins.size(), item.width, item.height, heur, candidate, best);
+            if(binIndex == -1){
+                //No bin can hold the item, open a new bin
+                Bin newBin = solution.openNewBin();
+                newBin.evaluatePacking(item.width, item.height, heur, best);
+                bins.add(newBin);
+                binIndex = bins.size() - 1;
+            }
+            else if(binIndex < numKept && !bins.get(binIndex).hasCheckpoint()){
+                //Record the changes to the bin so they can be undone
+                Bin bin = bins.get(binIndex);
+                if(bin.isShared()){
+                    bin = solution.copyBin(bin);
+                    bins.set(binIndex, bin);
+                }
+                bin.checkpoint();
+                touchedBins[numTouched++] = binIndex;
+                oldValue += square(bin.getOccupancy());
+            }
+            //The rect placing the item keeps recording the item
+            best.itemID = item.itemID;
+            bins.get(binIndex).insert(best);
+        }
+        //Evaluate the touched and the new bins only
+        double newValue = 0;
+        for(int i=0; i<numTouched; i++)
+            newValue += square(bins.get(touchedBins[i]).getOccupancy());
+        for(int i=numKept; i<bins.size(); i++)
+            newValue += square(bins.get(i).getOccupancy());
+        boolean isAccepted = bins.size() < numBefore || (bins.size() == numBefore && newValue >= oldValue);
+        if(isAccepted){
+            numAcceptedMoves++;
+            for(int i=0; i<numTouched; i++)
+                bins.get(touchedBins[i]).commit();
+            //Only the touched bins (which are fuller) and the new bins are out
+            //of order. Move them to their place, from the first one
+            Arrays.sort(touchedBins, 0, numTouched);
+            for(int i=0; i<numTouched; i++)
+                moveToPlace(touchedBins[i]);
+            for(int i=numKept; i<bins.size(); i++)
+                moveToPlace(i);
+        }
+        else{
+            //Undo the move
+            bins.subList(numKept, bins.size()).clear();
+            for(int i=0; i<numTouched; i++)
+                bins.get(touchedBins[i]).rollback();
+            //Put the ruined bins back where they were, the bins are ordered again
+            for(int k=numRuined-1; k>=0; k--)
+                bins.add(ruinedIndices[k], ruinedBins.get(k));
+        }
+        numTouched = 0;
+        ruinedBins.clear();
+        items.clear();
+        return isAccepted;
+    }
+
+    /**
+     * Move a bin towards the front of the list, after the bins that are at
+     * least as occupied. The bins before it must be ordered by decreasing
+     * occupancy.
+     * @param index the index of the bin
+     */
+    private void moveToPlace(int index){
+        Bin bin = bins.get(index);
+        double occupancy = bin.getOccupancy();
+        //Find the first bin that is less occupied
+        int low = 0, high = index;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(bins.get(mid).getOccupancy() >= occupancy) low = mid + 1;
+            else high = mid;
+        }
+        if(low < index){
+            bins.remove(index);
+            bins.add(low, bin);
+        }
+    }
+
+    private static double square(double value){
+        return value * value;
+    }
+
+    public long getNumberOfMoves(){
+        return numMoves;
+    }
+
+    public long getNumberOfAcceptedMoves(){
+        return numAcceptedMoves;
+    }
+
+    public int getMaxRuinedBins(){
+        return maxRuinedBins;
+    }
+
+    public void setMaxRuinedBins(int maxRuinedBins){
+        this.maxRuinedBins = maxRuinedBins;
+    }
+
+    public int getCandidatePoolSize(){
+        return candidatePoolSize;
+    }
+
+    /**
+     * Set the number of least-occupied bins among which the ruined bins are
+     * chosen at random.
+     * @param candidatePoolSize the number of candidate bins
+     */
+    public void setCandidatePoolSize(int candidatePoolSize){
+        this.candidatePoolSize = candidatePoolSize;
+    }
+}
@@ -0,0 +1,351 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * A class implementing the skyline data structure.
+ * <p>
+ * The free space is described by the skyline: the upper contour of the packed
+ * items. The skyline is a sequence of horizontal segments covering the width of
+ * the bin from left to right. Each segment is kept in <code>freeRects</code> as
+ * the free rect above it, i.e., a rect of the segment's width that extends from
+ * the segment to the top of the bin.
+ * <p>
+ * An item is always placed with its bottom-left corner at the left end of a
+ * segment and rests on the highest segment below it. The space below the item
+ * that is not covered by other items is lost. This yields lower quality packings
+ * than the maximal space data structure but placing an item costs time linear in
+ * the length of the skyline, which is at most the number of packed items plus one.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class SkylineBin extends Bin{
+    /**
+     * The skyline at the last checkpoint. A new skyline list is built after
+     * each insert, so keeping the old list is enough to undo the inserts
+     */
+    private ArrayList<Rect> checkpointSkyline;
+    /** The stack of segments used by updateCapacity, grown when needed */
+    private int[] segmentStack;
+
+    public SkylineBin(int binWidth, int binHeight){
+        super(binWidth, binHeight);
+    }
+
+    public SkylineBin(Bin newBin){
+        super(newBin);
+    }
+
+    @Override
+    public boolean evaluatePacking(int width, int height, PackingHeuristic heur, Placement placement){
+        switch(heur){
+            case TouchingPerimeter: return evaluateTouchingPerimeter(width, height, placement);
+            case BestAreaFit: return evaluateBestArea(width, height, placement);
+            case TopRightCornerDistance: return evaluateTopRightCornerDistance(width, height, placement);
+            default: return evaluateBestArea(width, height, placement); // Use best area fit as a default heuristic
+        }
+    }
+
+    @Override
+    public void checkpoint(){
+        super.checkpoint();
+        checkpointSkyline = freeRects;
+    }
+
+    @Override
+    public void rollback(){
+        super.rollback();
+        freeRects = checkpointSkyline;
+        checkpointSkyline = null;
+    }
+
+    @Override
+    public void commit(){
+        super.commit();
+        checkpointSkyline = null;
+    }
+
+    @Override
+    protected void placeRect(Rect rect){
+        //The rect can be packed in the bin.
+        packRect(rect);
+        //Raise the skyline over the packed rect.
+        generateFreeSpaces(rect);
+    }
+
+    /**
+     * Find the position on the skyline such that the area lost below it
+     * is minimized. Ties are broken by the lowest top side.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateBestArea(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        int bestWastedArea = Integer.MAX_VALUE;
+        int bestTop = Integer.MAX_VALUE;
+        int bestIndex = -1, bestX = -1, bestY = -1;
+        boolean isRotated = false;
+        for(int i=0; i<freeRects.size(); i++){
+            int y = computeRestingHeight(i, width, height);
+            if(y >= 0){
+                int wastedArea = computeWastedArea(i, width, y);
+                if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && y + height < bestTop)){
+                    bestWastedArea = wastedArea;
+                    bestTop = y + height;
+                    bestIndex = i;
+                    bestX = freeRects.get(i).x;
+                    bestY = y;
+                    isRotated = false;
+                }
+            }
+            if(canRotate){
+                y = computeRestingHeight(i, height, width);
+                if(y >= 0){
+                    int wastedArea = computeWastedArea(i, height, y);
+                    if(wastedArea < bestWastedArea || (wastedArea == bestWastedArea && y + width < bestTop)){
+                        bestWastedArea = wastedArea;
+                        bestTop = y + width;
+                        bestIndex = i;
+                        bestX = freeRects.get(i).x;
+                        bestY = y;
+                        isRotated = true;
+                    }
+                }
+            }
+        }
+        if(bestIndex == -1) return false;
+        placement.set(bestIndex, bestX, bestY, width, height, isRotated, bestWastedArea);
+        return true;
+    }
+
+    /**
+     * Find the position on the skyline such that the total touching
+     * perimeter is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTouchingPerimeter(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestTouchingPerimeter = -1;
+        int bestIndex = -1, bestX = -1, bestY = -1;
+        boolean isRotated = false;
+        for(int i=0; i<freeRects.size(); i++){
+            int x = freeRects.get(i).x;
+            int y = computeRestingHeight(i, width, height);
+            if(y >= 0){
+                double perimeter = computeTouchingPerimeter(x, y, width, height);
+                if(perimeter > largestTouchingPerimeter){
+                    largestTouchingPerimeter = perimeter;
+                    bestIndex = i;
+                    bestX = x;
+                    bestY = y;
+                    isRotated = false;
+                }
+            }
+            if(canRotate){
+                y = computeRestingHeight(i, height, width);
+                if(y >= 0){
+                    double perimeter = computeTouchingPerimeter(x, y, height, width);
+                    if(perimeter > largestTouchingPerimeter){
+                        largestTouchingPerimeter = perimeter;
+                        bestIndex = i;
+                        bestX = x;
+                        bestY = y;
+                        isRotated = true;
+                    }
+                }
+            }
+        }
+        if(bestIndex == -1) return false;
+        placement.set(bestIndex, bestX, bestY, width, height, isRotated, -largestTouchingPerimeter); //smaller is better
+        return true;
+    }
+
+    /**
+     * Find the position on the skyline such that the distance between
+     * the top-right corner of the item and that of the bin is maximized.
+     * @param width the item's width
+     * @param height the item's height
+     * @param placement receives the (x,y) coordinate of the item inside the bin.
+     * @return <code>true</code> if the item can be packed in the bin
+     */
+    private boolean evaluateTopRightCornerDistance(int width, int height, Placement placement){
+        boolean canRotate = config.canRotate();
+        double largestDist = -1;
+        int bestIndex = -1, bestX = -1, bestY = -1;
+        boolean isRotated = false;
+        for(int i=0; i<freeRects.size(); i++){
+            int x = freeRects.get(i).x;
+            int y = computeRestingHeight(i, width, height);
+            if(y >= 0){
+                double dist = computeDistance(x + width, y + height, binWidth, binHeight);
+                if(dist > largestDist){
+                    largestDist = dist;
+                    bestIndex = i;
+                    bestX = x;
+                    bestY = y;
+                    isRotated = false;
+                }
+            }
+            if(canRotate){
+                y = computeRestingHeight(i, height, width);
+                if(y >= 0){
+                    double dist = computeDistance(x + height, y + width, binWidth, binHeight);
+                    if(dist > largestDist){
+                        largestDist = dist;
+                        bestIndex = i;
+                        bestX = x;
+                        bestY = y;
+                        isRotated = true;
+                    }
+                }
+            }
+        }
+        if(bestIndex == -1) return false;
+        placement.set(bestIndex, bestX, bestY, width, height, isRotated, -largestDist); //smaller is better
+        return true;
+    }
+
+    /**
+     * Compute the height at which an item of the given width rests when its
+     * left side is aligned with the left end of segment <code>index</code>.
+     * @param index the index of the skyline segment
+     * @param width the item's width
+     * @param height the item's height
+     * @return the y-coordinate of the item, or -1 if the item does not fit there
+     */
+    private int computeRestingHeight(int index, int width, int height){
+        Rect segment = freeRects.get(index);
+        if(segment.x + width > binWidth) return -1;
+        int y = segment.y;
+        int widthLeft = width;
+        for(int i=index; widthLeft > 0; i++){
+            segment = freeRects.get(i);
+            y = Integer.max(y, segment.y);
+            if(y + height > binHeight) return -1;
+            widthLeft -= segment.width;
+        }
+        return y;
+    }
+
+    /**
+     * Compute the area between the skyline and the bottom of an item resting at
+     * height <code>y</code> on segment <code>index</code>.
+     */
+    private int computeWastedArea(int index, int width, int y){
+        int wastedArea = 0;
+        int widthLeft = width;
+        for(int i=index; widthLeft > 0; i++){
+            Rect segment = freeRects.get(i);
+            int coveredWidth = Integer.min(widthLeft, segment.width);
+            wastedArea += coveredWidth * (y - segment.y);
+            widthLeft -= coveredWidth;
+        }
+        return wastedArea;
+    }
+
+    /**
+     * Raise the skyline over <code>rect</code>.
+     * <p>
+     * The part of the skyline below <code>rect</code> is replaced with a single
+     * segment at the top of <code>rect</code>, then adjacent segments of equal
+     * heights are merged.
+     * @param rect the last rect inserted in the bin.
+     */
+    @Override
+    protected void generateFreeSpaces(Rect rect){
+        int x1 = Integer.max(0, rect.x);
+        int x2 = Integer.min(binWidth, rect.x + rect.width);
+        if(x1 >= x2) return;
+        ArrayList<Rect> skyline = new ArrayList<>(freeRects.size() + 2);
+        boolean isAdded = false;
+        for(Rect segment : freeRects){
+            int segmentX2 = segment.x + segment.width;
+            //Segment is to the left of rect
+            if(segmentX2 <= x1){
+                skyline.add(segment);
+                continue;
+            }
+            //Segment is partially to the left of rect
+            if(segment.x < x1)
+                addSegment(skyline, segment.x, segment.y, x1 - segment.x);
+            if(!isAdded){
+                addSegment(skyline, x1, rect.y + rect.height, x2 - x1);
+                isAdded = true;
+            }
+            //Segment is to the right of rect
+            if(segment.x >= x2){
+                Rect last = skyline.get(skyline.size() - 1);
+                if(last.y == segment.y) addSegment(skyline, segment.x, segment.y, segment.width);
+                else skyline.add(segment);
+            }
+            //Segment is partially to the right of rect
+            else if(segmentX2 > x2)
+                addSegment(skyline, x2, segment.y, segmentX2 - x2);
+        }
+        freeRects = skyline;
+    }
+
+    /**
+     * Update the capacity summary from the skyline.
+     * <p>
+     * An item may rest on several segments, so the summary is not taken from
+     * the free rects above the segments: the largest free width is the longest
+     * run of segments below the top of the bin and the largest free area is the
+     * largest rect fitting above the skyline (found with a stack of segments of
+     * increasing heights).
+     */
+    @Override
+    protected void updateCapacity(){
+        maxFreeWidth = 0;
+        maxFreeHeight = 0;
+        maxFreeArea = 0;
+        int runWidth = 0;
+        int numSegments = freeRects.size();
+        if(segmentStack == null || segmentStack.length < numSegments + 1)
+            segmentStack = new int[Integer.max(16, 2*(numSegments + 1))];
+        int[] stack = segmentStack;
+        int top = 0;
+        for(int i=0; i<=numSegments; i++){
+            int height = i < numSegments ? freeRects.get(i).height : 0;
+            if(i < numSegments){
+                maxFreeHeight = Integer.max(maxFreeHeight, height);
+                runWidth = height > 0 ? runWidth + freeRects.get(i).width : 0;
+                maxFreeWidth = Integer.max(maxFreeWidth, runWidth);
+            }
+            //Segments higher than the current one cannot be extended to the right
+            while(top > 0 && freeRects.get(stack[top - 1]).height >= height){
+                int spaceHeight = freeRects.get(stack[--top]).height;
+                int x1 = top > 0 ? freeRects.get(stack[top - 1]).x + freeRects.get(stack[top - 1]).width : 0;
+                int x2 = i < numSegments ? freeRects.get(i).x : binWidth;
+                maxFreeArea = Integer.max(maxFreeArea, (x2 - x1) * spaceHeight);
+            }
+            stack[top++] = i;
+        }
+    }
+
+    /**
+     * Append a segment to the skyline merging it with the last segment when
+     * both are at the same height.
+     */
+    private void addSegment(ArrayList<Rect> skyline, int x, int y, int width){
+        if(!skyline.isEmpty()){
+            Rect last = skyline.get(skyline.size() - 1);
+            if(last.y == y && last.x + last.width == x){
+                Rect merged = new Rect(last.width + width, binHeight - y);
+                merged.x = last.x;
+                merged.y = y;
+                skyline.set(skyline.size() - 1, merged);
+                return;
+            }
+        }
+        Rect segment = new Rect(width, binHeight - y);
+        segment.x = x;
+        segment.y = y;
+        skyline.add(segment);
+    }
+}
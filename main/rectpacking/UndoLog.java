@@ -0,0 +1,114 @@
+package rectpacking;
+
+import java.util.Arrays;
+
+/**
+ * A log of the changes made to the free list of a bin since a checkpoint (see
+ * {@link Bin#checkpoint()}).
+ * <p>
+ * Every change is recorded as one of three operations on the free list: a free
+ * rect removed at an index, a free rect appended at the end of the list and a
+ * free rect replaced at an index. Undoing the operations from the last one to
+ * the first one restores the free list exactly, including its order. A pass
+ * that removes several free rects at once is recorded as removals in increasing
+ * order of their positions, each position being the one the free rect has once
+ * the free rects before it are removed.
+ * <p>
+ * The log also keeps the state of the bin at the checkpoint that is cheap to
+ * save: the number of packed rects, the occupied area and the capacity summary.
+ * @author Ahmed Hassan (ahmedhasssan@aims.ac.za)
+ */
+public class UndoLog {
+    /** A free rect was removed from the free list */
+    public static final int REMOVED = 0;
+    /** A free rect was appended to the free list */
+    public static final int ADDED = 1;
+    /** A free rect was replaced by another one */
+    public static final int REPLACED = 2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] operations;
+    private int[] indices;
+    /** The removed or the replaced free rects (<code>null</code> for an append) */
+    private Rect[] rects;
+    private int size;
+    //The state of the bin at the checkpoint
+    int numPackedRects;
+    int occupiedArea;
+    int maxFreeWidth;
+    int maxFreeHeight;
+    int maxFreeArea;
+
+    public UndoLog(){
+        operations = new int[INITIAL_CAPACITY];
+        indices = new int[INITIAL_CAPACITY];
+        rects = new Rect[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Record that <code>rect</code> was removed from the position <code>index</code>.
+     * @param index the position of the free rect before its removal
+     * @param rect the removed free rect
+     */
+    public void logRemoved(int index, Rect rect){
+        log(REMOVED, index, rect);
+    }
+
+    /**
+     * Record that a free rect was appended to the free list.
+     */
+    public void logAdded(){
+        log(ADDED, -1, null);
+    }
+
+    /**
+     * Record that the free rect at the position <code>index</code> was replaced.
+     * @param index the position of the free rect
+     * @param oldRect the free rect before the replacement
+     */
+    public void logReplaced(int index, Rect oldRect){
+        log(REPLACED, index, oldRect);
+    }
+
+    private void log(int operation, int index, Rect rect){
+        if(size == operations.length){
+            int capacity = 2*operations.length;
+            operations = Arrays.copyOf(operations, capacity);
+            indices = Arrays.copyOf(indices, capacity);
+            rects = Arrays.copyOf(rects, capacity);
+        }
+        operations[size] = operation;
+        indices[size] = index;
+        rects[size] = rect;
+        size++;
+    }
+
+    /**
+     * Forget all the recorded operations.
+     */
+    public void clear(){
+        Arrays.fill(rects, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * The number of recorded operations.
+     * @return the number of recorded operations
+     */
+    public int size(){
+        return size;
+    }
+
+    public int getOperation(int i){
+        return operations[i];
+    }
+
+    public int getIndex(int i){
+        return indices[i];
+    }
+
+    public Rect getRect(int i){
+        return rects[i];
+    }
+}
@@ -0,0 +1,94 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rectpacking.RectPacking.PackMode;
+import rectpacking.RectPacking.PackingHeuristic;
+
+/**
+ * Testing the BatchRunner class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class BatchRunnerTest {
+
+    /**
+     * Test of run method, of class BatchRunner.
+     * Every instance of every class file is packed with every heuristic and
+     * mode, the results are in order and they are the same with one thread and
+     * when the class files are cached.
+     * @param directory
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Test
+    public void testRun(@TempDir Path directory) throws IOException, InterruptedException {
+        System.out.println("Testing BatchRunner run ...");
+        Files.write(directory.resolve("Class_02.2bp"), createContent(3, 20).getBytes(StandardCharsets.US_ASCII));
+        Files.write(directory.resolve("Class_01.2bp"), createContent(2, 10).getBytes(StandardCharsets.US_ASCII));
+        BatchRunner runner = new BatchRunner(directory);
+        runner.setHeuristics(Arrays.asList(PackingHeuristic.BestAreaFit, PackingHeuristic.TouchingPerimeter));
+        runner.setNumberOfThreads(4);
+        List<BatchRunner.Result> results = runner.run();
+        int numModes = PackMode.values().length;
+        assertEquals((2 + 3)*2*numModes, results.size());
+        int k = 0;
+        for(int c=1; c<=2; c++)
+            for(int i=0; i<(c == 1 ? 2 : 3); i++)
+                for(PackingHeuristic heur : runner.getHeuristics())
+                    for(PackMode mode : runner.getPackModes()){
+                        BatchRunner.Result result = results.get(k++);
+                        assertEquals("Class_0" + c, result.className);
+                        assertEquals(i, result.instanceID);
+                        assertEquals(heur, result.heur);
+                        assertEquals(mode, result.mode);
+                        assertEquals(c == 1 ? 10 : 20, result.numItems);
+                        assertTrue(result.numBins >= result.lowerBound);
+                        assertTrue(result.getGap() >= 0);
+                    }
+        //The class files are read through a cache in the temporary directory
+        Path cacheDirectory = directory.resolve("cache");
+        runner.setInstanceCache(new InstanceCache(cacheDirectory));
+        runner.setNumberOfThreads(1);
+        List<BatchRunner.Result> sequential = runner.run();
+        for(int i=0; i<results.size(); i++)
+            assertEquals(results.get(i).numBins, sequential.get(i).numBins);
+        try(Stream<Path> entries = Files.list(cacheDirectory)){
+            assertEquals(2, entries.count());
+        }
+        Path csv = directory.resolve("results.csv");
+        BatchRunner.writeCsv(results, csv);
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(results.size() + 1, lines.size());
+        assertTrue(lines.get(1).startsWith("Class_01,0,BestAreaFit,"));
+    }
+
+    /**
+     * Create the content of an instance file with items of pseudo-random
+     * dimensions.
+     */
+    private String createContent(int numInstances, int numItems){
+        StringBuilder content = new StringBuilder();
+        int seed = numItems;
+        for(int k=0; k<numInstances; k++){
+            content.append(" 1 PROBLEM CLASS\n");
+            content.append(numItems).append(" N. OF ITEMS\n");
+            content.append(k + 1).append(" ").append(k + 1).append(" RELATIVE AND ABSOLUTE N. OF INSTANCE\n");
+            content.append("10 10 HBIN,WBIN\n");
+            for(int i=0; i<numItems; i++){
+                seed = (31*seed + 17) % 1000;
+                content.append(1 + seed % 10).append(" ").append(1 + (seed/10) % 10).append(" H(I),W(I),I=1,...,N\n");
+            }
+            content.append("\n");
+        }
+        return content.toString();
+    }
+}
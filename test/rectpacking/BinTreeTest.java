@@ -0,0 +1,49 @@
+package rectpacking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing the BinTree class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class BinTreeTest {
+
+    /**
+     * Test of findFirst method, of class BinTree.
+     * The tree returns the first bin, from a given index on, whose capacity
+     * summary accepts the item, and it follows the updates of the bins.
+     */
+    @Test
+    public void testFindFirst() {
+        System.out.println("Testing BinTree findFirst ...");
+        RectPacking.PackingHeuristic heur = RectPacking.PackingHeuristic.BestAreaFit;
+        BinTree tree = new BinTree();
+        Bin[] bins = new Bin[40];
+        for(int i=0; i<bins.length; i++){
+            bins[i] = openBin();
+            //Fill all the bins but every tenth one
+            if(i % 10 != 9) bins[i].insert(new Rect(10, 8), heur);
+            tree.add(bins[i]);
+        }
+        assertEquals(0, tree.findFirst(0, 10, 2));
+        assertEquals(9, tree.findFirst(0, 10, 3));
+        assertEquals(19, tree.findFirst(10, 10, 3));
+        assertEquals(-1, tree.findFirst(40, 1, 1));
+        //Fill the bin 19 and the search goes on to the bin 29
+        bins[19].insert(new Rect(10, 10), heur);
+        tree.update(19);
+        assertEquals(29, tree.findFirst(10, 10, 3));
+        assertEquals(-1, tree.findFirst(0, 10, 11));
+    }
+
+    /**
+     * Open a bin and initialize it.
+     * @return
+     */
+    private Bin openBin(){
+        Bin bin = new MaxSpaceBin(10, 10);
+        bin.init();
+        return bin;
+    }
+}
@@ -0,0 +1,85 @@
+package rectpacking;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the EdgeIndex class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class EdgeIndexTest {
+
+    /**
+     * Test of the touching perimeters computed with the index, of class
+     * EdgeIndex.
+     * On random packings, the touching perimeter of the bin, the touching
+     * perimeter of a rect placed at every free space and the score of the
+     * touching perimeter heuristic are the ones computed by looping over all
+     * the packed rects.
+     * @param binType
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.BinType.class)
+    public void testTouchingPerimeter(RectPacking.BinType binType) {
+        System.out.println("Testing EdgeIndex touching perimeter with " + binType + " ...");
+        Random rng = new Random(12345);
+        for(int k=0; k<20; k++){
+            RBPSolution solution = new RBPSolution(100, 80, PackingConfig.DEFAULT.withBinType(binType));
+            Bin bin = solution.openNewBin();
+            Placement placement = new Placement();
+            for(int i=0; i<40; i++){
+                int width = 1 + rng.nextInt(30), height = 1 + rng.nextInt(30);
+                placement.clear();
+                if(bin.evaluatePacking(width, height, RectPacking.PackingHeuristic.TouchingPerimeter, placement)){
+                    assertEquals(computeTouchingPerimeter(bin, placement.x, placement.y, placement.width, placement.height),
+                            -placement.score, 1e-9);
+                    bin.insert(placement);
+                }
+                for(Rect freeRect : bin.freeRects)
+                    assertEquals(computeTouchingPerimeter(bin, freeRect.x, freeRect.y, width, height),
+                            bin.computeTouchingPerimeter(freeRect.x, freeRect.y, width, height), 1e-9);
+            }
+            assertEquals(computeTouchingPerimeter(bin), bin.getTouchingPerimeter(), 1e-9);
+            //A copy of the bin indexes the same edges
+            Bin copy = solution.copyBin(bin);
+            assertEquals(bin.getTouchingPerimeter(), copy.getTouchingPerimeter(), 1e-9);
+            bin.init();
+            assertEquals(0, bin.computeTouchingPerimeter(10, 10, 5, 5), 1e-9);
+        }
+    }
+
+    /**
+     * The touching perimeter of a bin computed by looping over all the packed
+     * rects.
+     */
+    private static double computeTouchingPerimeter(Bin bin){
+        double touchingPerimeter = 0;
+        double totalPer = 0;
+        for(Rect rect : bin.getPackedRect()){
+            touchingPerimeter += computeTouchingPerimeter(bin, rect.x, rect.y, rect.width, rect.height);
+            totalPer += 2*(rect.width + rect.height);
+        }
+        return touchingPerimeter/totalPer;
+    }
+
+    /**
+     * The touching perimeter of a rect placed at (x,y) computed by looping over
+     * all the packed rects.
+     */
+    private static double computeTouchingPerimeter(Bin bin, int x, int y, int width, int height){
+        double perimeter = 0;
+        if(x == 0 || x + width == bin.binWidth)
+            perimeter += height;
+        if(y == 0 || y + height == bin.binHeight)
+            perimeter += width;
+        for(Rect rect : bin.getPackedRect()){
+            if(rect.x + rect.width == x || x + width == rect.x)
+                perimeter += bin.computeCommonLength(y, y + height, rect.y, rect.y + rect.height);
+            if(rect.y == y + height || rect.y + rect.height == y)
+                perimeter += bin.computeCommonLength(x, x + width, rect.x, rect.x + rect.width);
+        }
+        return perimeter;
+    }
+}
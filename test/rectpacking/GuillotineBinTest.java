@@ -0,0 +1,169 @@
+package rectpacking;
+
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the GuillotineBin class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class GuillotineBinTest {
+
+    /**
+     * Test of the split rules.
+     * Packing a 4x6 item in an empty 10x10 bin leaves a width of 6 and a height
+     * of 4. Cutting along the shorter leftover axis gives a vertical cut: the
+     * free rect to the right spans the whole height of the bin. Cutting along
+     * the longer leftover axis gives a horizontal cut: the free rect on top
+     * spans the whole width of the bin.
+     */
+    @Test
+    public void testSplitRule() {
+        System.out.println("Testing GuillotineBin split rules ...");
+        Bin bin = openBin(GuillotineBin.SplitRule.ShorterLeftoverAxis, false);
+        bin.insert(new Rect(4, 6), RectPacking.PackingHeuristic.BestAreaFit);
+        assertEquals(2, bin.freeRects.size());
+        assertTrue(bin.freeRects.contains(createRect(4, 0, 6, 10)));
+        assertTrue(bin.freeRects.contains(createRect(0, 6, 4, 4)));
+
+        bin = openBin(GuillotineBin.SplitRule.LongerLeftoverAxis, false);
+        bin.insert(new Rect(4, 6), RectPacking.PackingHeuristic.BestAreaFit);
+        assertEquals(2, bin.freeRects.size());
+        assertTrue(bin.freeRects.contains(createRect(4, 0, 6, 6)));
+        assertTrue(bin.freeRects.contains(createRect(0, 6, 10, 4)));
+    }
+
+    /**
+     * Test that a solution opens guillotine bins with the split rule and the
+     * merging of its configuration.
+     */
+    @Test
+    public void testSolutionConfig() {
+        System.out.println("Testing GuillotineBin split rules of a solution ...");
+        PackingConfig config = PackingConfig.DEFAULT.withBinType(RectPacking.BinType.Guillotine)
+                .withSplitRule(GuillotineBin.SplitRule.LongerLeftoverAxis).withMerge(true);
+        RBPSolution sol = new RBPSolution(10, 10, config);
+        sol.pack(List.of(new Rect(4, 6)));
+        Bin bin = sol.getBin(0);
+        assertEquals(2, bin.freeRects.size());
+        assertTrue(bin.freeRects.contains(createRect(4, 0, 6, 6)));
+        assertTrue(bin.freeRects.contains(createRect(0, 6, 10, 4)));
+        //The copy of a bin keeps the split rule
+        Bin copy = sol.copyBin(bin);
+        copy.insert(new Rect(2, 2), RectPacking.PackingHeuristic.BestAreaFit);
+        Bin expected = openBin(GuillotineBin.SplitRule.LongerLeftoverAxis, true);
+        expected.insert(new Rect(4, 6), RectPacking.PackingHeuristic.BestAreaFit);
+        expected.insert(new Rect(2, 2), RectPacking.PackingHeuristic.BestAreaFit);
+        assertEquals(expected.freeRects, copy.freeRects);
+    }
+
+    /**
+     * Test that the free rects stay disjoint and the packing stays feasible for
+     * every split rule with and without merging.
+     * @param splitRule
+     */
+    @ParameterizedTest
+    @EnumSource(GuillotineBin.SplitRule.class)
+    public void testIsFeasible(GuillotineBin.SplitRule splitRule) {
+        System.out.println("Testing GuillotineBin isFeasible with " + splitRule + " ...");
+        for(boolean merge : new boolean[]{false, true}){
+            Random rng = new Random(12345);
+            for(RectPacking.PackingHeuristic heur : RectPacking.PackingHeuristic.values()){
+                Bin bin = openBin(splitRule, merge);
+                int packedArea = 0;
+                for(int i=0; i<100; i++){
+                    Rect rect = new Rect(1 + rng.nextInt(4), 1 + rng.nextInt(4));
+                    if(bin.insert(rect, heur)) packedArea += rect.area;
+                }
+                assertTrue(bin.isFeasible());
+                assertEquals(packedArea, bin.getPackedArea());
+            }
+        }
+    }
+
+    private Rect createRect(int x, int y, int width, int height){
+        Rect rect = new Rect(width, height);
+        rect.x = x;
+        rect.y = y;
+        return rect;
+    }
+
+    /**
+     * Test of checkpoint and rollback methods, of class GuillotineBin.
+     * Rolling back the inserts made after a checkpoint restores the packed
+     * items, the free rects (in the same order, also when they are merged) and
+     * the capacity summary of the bin at the checkpoint, and the bin then
+     * packs the next item as if they never happened.
+     * @param splitRule
+     */
+    @ParameterizedTest
+    @EnumSource(GuillotineBin.SplitRule.class)
+    public void testRollback(GuillotineBin.SplitRule splitRule) {
+        System.out.println("Testing GuillotineBin rollback with " + splitRule + " ...");
+        for(boolean merge : new boolean[]{false, true}){
+            Random rng = new Random(12345);
+            for(RectPacking.PackingHeuristic heur : RectPacking.PackingHeuristic.values()){
+                Bin bin = new GuillotineBin(100, 80, splitRule, merge);
+                bin.init();
+                for(int i=0; i<100; i++){
+                    Bin copy = new GuillotineBin(bin);
+                    bin.checkpoint();
+                    for(int k=0; k<3; k++)
+                        bin.insert(new Rect(1 + rng.nextInt(25), 1 + rng.nextInt(25)), heur);
+                    bin.rollback();
+                    assertFalse(bin.hasCheckpoint());
+                    assertEquals(copy.packedRects, bin.packedRects);
+                    assertEquals(copy.freeRects, bin.freeRects);
+                    assertEquals(copy.getPackedArea(), bin.getPackedArea());
+                    assertEquals(copy.getMaxFreeArea(), bin.getMaxFreeArea());
+                    Rect rect = new Rect(1 + rng.nextInt(25), 1 + rng.nextInt(25));
+                    assertEquals(copy.insert(new Rect(rect), heur), bin.insert(rect, heur));
+                    assertEquals(copy.packedRects, bin.packedRects);
+                    assertEquals(copy.freeRects, bin.freeRects);
+                }
+                assertTrue(bin.isFeasible());
+            }
+        }
+    }
+
+    /**
+     * Test of mergeFreeRects method, of class GuillotineBin.
+     * A free rect grown by a merge is merged again with a free rect before it.
+     */
+    @Test
+    public void testMergeFreeRects() {
+        System.out.println("Testing GuillotineBin mergeFreeRects ...");
+        GuillotineBin bin = new GuillotineBin(15, 10, GuillotineBin.SplitRule.ShorterLeftoverAxis, true);
+        bin.init();
+        bin.freeRects.clear();
+        bin.freeRects.add(createFreeRect(0, 0, 10, 10));
+        bin.freeRects.add(createFreeRect(10, 0, 5, 5));
+        bin.freeRects.add(createFreeRect(10, 5, 5, 5));
+        bin.mergeFreeRects();
+        assertEquals(List.of(createFreeRect(0, 0, 15, 10)), bin.freeRects);
+    }
+
+    private Rect createFreeRect(int x, int y, int width, int height){
+        Rect freeRect = new Rect(width, height);
+        freeRect.x = x;
+        freeRect.y = y;
+        return freeRect;
+    }
+
+
+    /**
+     * Open a bin and initialize it.
+     * @return
+     */
+    private Bin openBin(GuillotineBin.SplitRule splitRule, boolean merge){
+        Bin bin = new GuillotineBin(10, 10, splitRule, merge);
+        bin.init();
+        return bin;
+    }
+}
@@ -0,0 +1,77 @@
+package rectpacking;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the IndexedMaxSpaceBin class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class IndexedMaxSpaceBinTest {
+
+    /**
+     * The indexed bin must pack the items exactly as the maximal space bin does.
+     * We insert the same random sequence of items in both bins and compare the
+     * packed items, the free maximal spaces and the capacity summary (taken
+     * from the index) after each insertion.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testSamePackingAsMaxSpaceBin(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing IndexedMaxSpaceBin against MaxSpaceBin with " + heur + " ...");
+        Random rng = new Random(12345);
+        Bin bin = new MaxSpaceBin(100, 80);
+        bin.init();
+        Bin indexedBin = new IndexedMaxSpaceBin(100, 80);
+        indexedBin.init();
+        for(int i=0; i<200; i++){
+            int width = 1 + rng.nextInt(25);
+            int height = 1 + rng.nextInt(25);
+            boolean success = bin.insert(new Rect(width, height), heur);
+            assertEquals(success, indexedBin.insert(new Rect(width, height), heur));
+            assertEquals(bin.packedRects, indexedBin.packedRects);
+            assertEquals(bin.freeRects, indexedBin.freeRects);
+            assertEquals(bin.getMaxFreeWidth(), indexedBin.getMaxFreeWidth());
+            assertEquals(bin.getMaxFreeHeight(), indexedBin.getMaxFreeHeight());
+            assertEquals(bin.getMaxFreeArea(), indexedBin.getMaxFreeArea());
+        }
+        assertTrue(indexedBin.isFeasible());
+    }
+
+    /**
+     * Rolling back trial inserts keeps the index in line with the free list.
+     * Every item is first inserted on trial and rolled back, then inserted for
+     * real, and the bin must still pack the items as the maximal space bin does.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testRollback(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing IndexedMaxSpaceBin rollback with " + heur + " ...");
+        Random rng = new Random(12345);
+        Bin bin = new MaxSpaceBin(100, 80);
+        bin.init();
+        Bin indexedBin = new IndexedMaxSpaceBin(100, 80);
+        indexedBin.init();
+        for(int i=0; i<200; i++){
+            int width = 1 + rng.nextInt(25);
+            int height = 1 + rng.nextInt(25);
+            indexedBin.checkpoint();
+            indexedBin.insert(new Rect(height, width), heur);
+            indexedBin.insert(new Rect(width, height), heur);
+            indexedBin.rollback();
+            boolean success = bin.insert(new Rect(width, height), heur);
+            assertEquals(success, indexedBin.insert(new Rect(width, height), heur));
+            assertEquals(bin.packedRects, indexedBin.packedRects);
+            assertEquals(bin.freeRects, indexedBin.freeRects);
+            assertEquals(bin.getMaxFreeWidth(), indexedBin.getMaxFreeWidth());
+            assertEquals(bin.getMaxFreeHeight(), indexedBin.getMaxFreeHeight());
+            assertEquals(bin.getMaxFreeArea(), indexedBin.getMaxFreeArea());
+        }
+        assertTrue(indexedBin.isFeasible());
+    }
+}
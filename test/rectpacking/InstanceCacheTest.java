@@ -0,0 +1,124 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testing the InstanceCache class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class InstanceCacheTest {
+
+    /**
+     * Test of read method, of class InstanceCache.
+     * The first read of a file writes an entry and the next reads use it
+     * without reading the file while its size and modification time do not
+     * change. A file that is only touched keeps its entry and a file whose
+     * content changes gets its entry written again.
+     * @param directory
+     * @throws IOException
+     */
+    @Test
+    public void testRead(@TempDir Path directory) throws IOException {
+        System.out.println("Testing InstanceCache read ...");
+        Path file = directory.resolve("Class_01.2bp");
+        Path cacheDirectory = directory.resolve("cache");
+        InstanceCache cache = new InstanceCache(cacheDirectory);
+        Files.write(file, createContent(7).getBytes(StandardCharsets.US_ASCII));
+        FileTime modified = Files.getLastModifiedTime(file);
+        List<Instance> instances = cache.read(file);
+        assertEquals(1, countEntries(cacheDirectory));
+        //The entry is used
+        instances = cache.read(file);
+        assertEquals(1, instances.size());
+        assertEquals(7, instances.get(0).getItem(0).width);
+        assertEquals(1, countEntries(cacheDirectory));
+        //The content is not read while the size and the modification time are the same
+        Files.write(file, createContent(8).getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(file, modified);
+        assertEquals(7, cache.read(file).get(0).getItem(0).width);
+        //The content changes
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 2000));
+        assertEquals(8, cache.read(file).get(0).getItem(0).width);
+        assertEquals(1, countEntries(cacheDirectory));
+        //The file is touched, the entry is kept with the new modification time
+        FileTime touched = FileTime.fromMillis(modified.toMillis() + 4000);
+        Files.setLastModifiedTime(file, touched);
+        assertEquals(8, cache.read(file).get(0).getItem(0).width);
+        Files.write(file, createContent(9).getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(file, touched);
+        assertEquals(8, cache.read(file).get(0).getItem(0).width);
+        assertEquals(1, countEntries(cacheDirectory));
+    }
+
+    /**
+     * Test of read method, of class InstanceCache.
+     * An entry written for another file or planted without the header of the
+     * file is not used, and the directory of the cache is private to its owner.
+     * @param directory
+     * @throws IOException
+     */
+    @Test
+    public void testForeignEntry(@TempDir Path directory) throws IOException {
+        System.out.println("Testing InstanceCache foreign entries ...");
+        Path file = directory.resolve("Class_01.2bp");
+        Path otherFile = directory.resolve("Class_02.2bp");
+        Path cacheDirectory = directory.resolve("cache");
+        InstanceCache cache = new InstanceCache(cacheDirectory);
+        Files.write(file, createContent(7).getBytes(StandardCharsets.US_ASCII));
+        Files.write(otherFile, createContent(8).getBytes(StandardCharsets.US_ASCII));
+        cache.read(file);
+        Path entry = getEntry(cacheDirectory);
+        cache.read(otherFile);
+        Path otherEntry;
+        try(Stream<Path> entries = Files.list(cacheDirectory)){
+            otherEntry = entries.filter(path -> !path.equals(entry)).findFirst().get();
+        }
+        //The entry of the other file is renamed after the file
+        Files.copy(otherEntry, entry, StandardCopyOption.REPLACE_EXISTING);
+        assertEquals(7, cache.read(file).get(0).getItem(0).width);
+        //An entry planted without the header of the file
+        InstanceCodec.write(List.of(new Instance(10, 10, List.of(new Item(0, 9, 2)))), entry);
+        assertEquals(7, cache.read(file).get(0).getItem(0).width);
+        //The entry is written again for the file
+        assertEquals(7, cache.read(file).get(0).getItem(0).width);
+        assertEquals(2, countEntries(cacheDirectory));
+        if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(cacheDirectory));
+    }
+
+    private Path getEntry(Path cacheDirectory) throws IOException{
+        try(Stream<Path> entries = Files.list(cacheDirectory)){
+            return entries.findFirst().get();
+        }
+    }
+
+    private long countEntries(Path cacheDirectory) throws IOException{
+        try(Stream<Path> entries = Files.list(cacheDirectory)){
+            return entries.count();
+        }
+    }
+
+    /**
+     * Create the content of an instance file holding one item of width <code>width</code>.
+     * @return
+     */
+    private String createContent(int width){
+        return "   1 PROBLEM CLASS\n"
+             + "   1 N. OF ITEMS\n"
+             + "   1   1 RELATIVE AND ABSOLUTE N. OF INSTANCE\n"
+             + "  10  10 HBIN,WBIN\n"
+             + "   " + width + "   2\n";
+    }
+}
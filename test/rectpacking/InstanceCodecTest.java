@@ -0,0 +1,67 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testing the InstanceCodec class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class InstanceCodecTest {
+
+    /**
+     * Test of write and read methods, of class InstanceCodec.
+     * The instances read back are the ones written, including the instances
+     * whose items do not fit in two bytes. A truncated encoding is rejected.
+     * @param directory
+     * @throws IOException
+     */
+    @Test
+    public void testWriteRead(@TempDir Path directory) throws IOException {
+        System.out.println("Testing InstanceCodec write and read ...");
+        List<Instance> instances = new ArrayList<>();
+        instances.add(Instance.of(10, 12, new int[]{3, 10}, new int[]{4, 12}));
+        instances.add(Instance.of(100000, 70000, new int[]{65536, 2}, new int[]{1, 70000}));
+        instances.add(Instance.of(5, 5, new int[0], new int[0]));
+        Path file = directory.resolve("instances.2bpb");
+        InstanceCodec.write(instances, file);
+        List<Instance> readInstances = InstanceCodec.read(file);
+        assertEquals(instances.size(), readInstances.size());
+        for(int k=0; k<instances.size(); k++){
+            Instance expected = instances.get(k), actual = readInstances.get(k);
+            assertEquals(expected.binWidth, actual.binWidth);
+            assertEquals(expected.binHeight, actual.binHeight);
+            assertEquals(expected.size(), actual.size());
+            for(int i=0; i<expected.size(); i++){
+                assertEquals(expected.getItem(i).width, actual.getItem(i).width);
+                assertEquals(expected.getItem(i).height, actual.getItem(i).height);
+            }
+        }
+        ByteBuffer encoding = InstanceCodec.encode(instances);
+        encoding.limit(encoding.limit() - 1);
+        assertThrows(IOException.class, () -> InstanceCodec.decode(encoding));
+    }
+
+    /**
+     * Test of decode method, of class InstanceCodec.
+     * A corrupted number of instances is rejected before anything is allocated.
+     */
+    @Test
+    public void testDecodeCorruptedCount() {
+        System.out.println("Testing InstanceCodec decode with a corrupted number of instances ...");
+        List<Instance> instances = new ArrayList<>();
+        instances.add(Instance.of(10, 12, new int[]{3, 10}, new int[]{4, 12}));
+        for(int numInstances : new int[]{-1, 2, Integer.MAX_VALUE}){
+            ByteBuffer encoding = InstanceCodec.encode(instances);
+            encoding.putInt(8, numInstances);
+            assertThrows(IOException.class, () -> InstanceCodec.decode(encoding));
+        }
+    }
+}
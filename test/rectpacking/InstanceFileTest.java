@@ -0,0 +1,105 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testing the InstanceFile class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class InstanceFileTest {
+
+    /**
+     * Test of getInstance method, of class InstanceFile.
+     * The instances read on demand are the same as those read at once, with or
+     * without an index file, and an index file that does not match the instance
+     * file is written again.
+     * @param directory
+     * @throws IOException
+     */
+    @Test
+    public void testGetInstance(@TempDir Path directory) throws IOException {
+        System.out.println("Testing InstanceFile getInstance ...");
+        Path file = directory.resolve("Class_01.2bp");
+        Files.write(file, createContent(5).getBytes(StandardCharsets.US_ASCII));
+        List<Instance> expected = InstanceParser.parse(file);
+        for(boolean persistIndex : new boolean[]{false, true, true}){
+            InstanceFile instanceFile = new InstanceFile(file, persistIndex);
+            assertEquals(expected.size(), instanceFile.size());
+            for(int i=instanceFile.size()-1; i>=0; i--)
+                assertSameInstance(expected.get(i), instanceFile.getInstance(i));
+            assertSame(instanceFile.getInstance(0), instanceFile.getInstance(0));
+        }
+        assertTrue(Files.exists(directory.resolve("Class_01.2bp.idx")));
+        //The instance file changes, so the index file is stale
+        Files.write(file, createContent(3).getBytes(StandardCharsets.US_ASCII));
+        InstanceFile instanceFile = new InstanceFile(file, true);
+        assertEquals(3, instanceFile.size());
+        assertSameInstance(InstanceParser.parse(file).get(2), instanceFile.getInstance(2));
+    }
+
+    /**
+     * Test of findInstances method, of class InstanceParser.
+     * Reading a file in windows finds the same instances as reading it at once,
+     * whether a window ends in the middle of a line, of an instance or between
+     * two instances, and an instance larger than a window is rejected.
+     * @param directory
+     * @throws IOException
+     */
+    @Test
+    public void testFindInstancesInWindows(@TempDir Path directory) throws IOException {
+        System.out.println("Testing InstanceParser findInstances in windows ...");
+        Path file = directory.resolve("Class_01.2bp");
+        byte[] content = createContent(8).getBytes(StandardCharsets.US_ASCII);
+        Files.write(file, content);
+        long[] expected = InstanceParser.findInstances(ByteBuffer.wrap(content));
+        int maxInstanceSize = content.length - (int) expected[expected.length - 1];
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            for(int windowSize=maxInstanceSize; windowSize<=content.length+1; windowSize++)
+                assertArrayEquals(expected, InstanceParser.findInstances(channel, 0, content.length, windowSize));
+            assertThrows(IOException.class,
+                    () -> InstanceParser.findInstances(channel, 0, content.length, maxInstanceSize/2));
+        }
+    }
+
+    private void assertSameInstance(Instance expected, Instance actual){
+        assertEquals(expected.binWidth, actual.binWidth);
+        assertEquals(expected.binHeight, actual.binHeight);
+        assertEquals(expected.size(), actual.size());
+        for(int i=0; i<expected.size(); i++){
+            assertEquals(expected.getItem(i).width, actual.getItem(i).width);
+            assertEquals(expected.getItem(i).height, actual.getItem(i).height);
+        }
+    }
+
+    /**
+     * Create the content of an instance file where the instance k has k+1 items.
+     * @return
+     */
+    private String createContent(int numInstances){
+        StringBuilder content = new StringBuilder();
+        for(int k=0; k<numInstances; k++){
+            content.append("   1 PROBLEM CLASS\n");
+            content.append("   ").append(k + 1).append(" N. OF ITEMS\n");
+            content.append("   1   ").append(k + 1).append(" RELATIVE AND ABSOLUTE N. OF INSTANCE\n");
+            content.append("  10  ").append(10 + k).append(" HBIN,WBIN\n");
+            for(int i=0; i<=k; i++)
+                content.append("   ").append(i + 1).append("   ").append(k + 1).append('\n');
+            content.append('\n');
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testing the InstanceParser class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class InstanceParserTest {
+    private static final String INSTANCE_1 =
+              "   1 PROBLEM CLASS\n"
+            + "   3 N. OF ITEMS\n"
+            + "   1   1 RELATIVE AND ABSOLUTE N. OF INSTANCE\n"
+            + "  10  12 HBIN,WBIN\n"
+            + "   3   4 H(I),W(I),I=1,...,N\n"
+            + "   5   6\n"
+            + "   7   8\n";
+    private static final String INSTANCE_2 =
+              "   1 PROBLEM CLASS\n"
+            + "   2 N. OF ITEMS\n"
+            + "   2   2 RELATIVE AND ABSOLUTE N. OF INSTANCE\n"
+            + "  20  20 HBIN,WBIN\n"
+            + "   9  10 H(I),W(I),I=1,...,N\n"
+            + "  11  12\n";
+
+    /**
+     * Test of parse method, of class InstanceParser.
+     * The last instance is read although the file does not end with a blank
+     * line, and <code>\r\n</code> line endings are accepted.
+     * @param directory
+     * @throws IOException
+     */
+    @Test
+    public void testParse(@TempDir Path directory) throws IOException {
+        System.out.println("Testing InstanceParser parse ...");
+        Path file = directory.resolve("Class_01.2bp");
+        Files.write(file, (INSTANCE_1 + "\n" + INSTANCE_2.replace("\n", "\r\n").trim()).getBytes(StandardCharsets.US_ASCII));
+        List<Instance> instances = InstanceParser.parse(file);
+        assertEquals(2, instances.size());
+        Instance instance = instances.get(0);
+        assertEquals(10, instance.binWidth);
+        assertEquals(12, instance.binHeight);
+        assertEquals(3, instance.size());
+        assertEquals(7, instance.getItem(2).width);
+        assertEquals(8, instance.getItem(2).height);
+        instance = instances.get(1);
+        assertEquals(20, instance.binWidth);
+        assertEquals(2, instance.size());
+        assertEquals(11, instance.getItem(1).width);
+        assertEquals(12, instance.getItem(1).height);
+
+        //An instance that has fewer items than announced is rejected
+        ByteBuffer truncated = ByteBuffer.wrap(INSTANCE_1.substring(0, INSTANCE_1.lastIndexOf("   7")).getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> InstanceParser.parse(truncated));
+    }
+}
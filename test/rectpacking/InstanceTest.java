@@ -0,0 +1,122 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the Instance class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class InstanceTest {
+
+    /**
+     * Test of getItems and createRects methods, of class Instance.
+     * The items are numbered in the order of the instance and cannot be
+     * modified. The rects are new at every call.
+     */
+    @Test
+    public void testGetItems() {
+        System.out.println("Testing Instance getItems ...");
+        Instance instance = Instance.of(10, 10, new int[]{3, 4, 5}, new int[]{6, 7, 8});
+        assertEquals(3, instance.size());
+        for(int i=0; i<instance.size(); i++){
+            assertEquals(i, instance.getItem(i).id);
+            assertEquals(instance.getItem(i).width*instance.getItem(i).height, instance.getItem(i).area);
+        }
+        assertThrows(UnsupportedOperationException.class, () -> instance.getItems().add(new Item(3, 1, 1)));
+        assertThrows(UnsupportedOperationException.class, () -> Collections.shuffle(instance.getItems()));
+        List<Rect> rects = instance.createRects();
+        assertEquals(1, rects.get(1).itemID);
+        assertEquals(4, rects.get(1).width);
+        rects.get(1).rotate();
+        Collections.reverse(rects);
+        assertEquals(4, instance.createRects().get(1).width);
+        assertEquals(4, instance.getItem(1).width);
+    }
+
+    /**
+     * Test of packing a shared instance by several threads.
+     * The packings running at the same time give the same bins as when they
+     * run alone, every item is placed once by a rect recording its identifier,
+     * and the instance is not changed.
+     * @param binType
+     * @throws Exception
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.BinType.class)
+    public void testConcurrentPacking(RectPacking.BinType binType) throws Exception {
+        System.out.println("Testing Instance concurrent packing with " + binType + " ...");
+        Random rng = new Random(12345);
+        int numItems = 150;
+        int[] widths = new int[numItems], heights = new int[numItems];
+        for(int i=0; i<numItems; i++){
+            widths[i] = 5 + rng.nextInt(40);
+            heights[i] = 5 + rng.nextInt(40);
+        }
+        Instance instance = Instance.of(100, 100, widths, heights);
+        List<Item> snapshot = new ArrayList<>(instance.getItems());
+        //Every packing uses its own ordering of the shared items
+        List<PackingConfig> configs = new ArrayList<>();
+        List<List<Item>> orderings = new ArrayList<>();
+        for(RectPacking.PackingHeuristic heur : RectPacking.PackingHeuristic.values()){
+            for(RectPacking.PackMode mode : RectPacking.PackMode.values()){
+                configs.add(new PackingConfig(false, heur, mode, binType));
+                List<Item> ordering = new ArrayList<>(instance.getItems());
+                Collections.shuffle(ordering, new Random(configs.size()));
+                orderings.add(ordering);
+            }
+        }
+        List<RBPSolution> expected = new ArrayList<>();
+        for(int k=0; k<configs.size(); k++)
+            expected.add(pack(instance, configs.get(k), orderings.get(k)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<RBPSolution>> futures = new ArrayList<>();
+            for(int k=0; k<configs.size(); k++){
+                PackingConfig config = configs.get(k);
+                List<Item> ordering = orderings.get(k);
+                futures.add(executor.submit(() -> pack(instance, config, ordering)));
+            }
+            for(int k=0; k<configs.size(); k++){
+                RBPSolution sol = futures.get(k).get();
+                assertTrue(sol.isFeasible());
+                assertEquals(expected.get(k).getNumberOfBin(), sol.getNumberOfBin());
+                for(int b=0; b<sol.getNumberOfBin(); b++)
+                    assertEquals(expected.get(k).getBin(b).getPackedRect(), sol.getBin(b).getPackedRect());
+                //Every item is placed once, by a rect of its dimensions
+                boolean[] isPlaced = new boolean[numItems];
+                for(int b=0; b<sol.getNumberOfBin(); b++){
+                    for(Rect rect : sol.getBin(b).getPackedRect()){
+                        assertTrue(!isPlaced[rect.itemID]);
+                        isPlaced[rect.itemID] = true;
+                        assertEquals(widths[rect.itemID], rect.width);
+                        assertEquals(heights[rect.itemID], rect.height);
+                    }
+                }
+                for(int i=0; i<numItems; i++)
+                    assertTrue(isPlaced[i]);
+            }
+        }
+        finally{
+            executor.shutdownNow();
+        }
+        assertEquals(snapshot, instance.getItems());
+    }
+
+    private RBPSolution pack(Instance instance, PackingConfig config, List<Item> ordering){
+        RBPSolution sol = new RBPSolution(instance.binWidth, instance.binHeight, config);
+        sol.pack(ordering);
+        return sol;
+    }
+}
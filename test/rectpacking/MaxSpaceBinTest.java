@@ -5,6 +5,8 @@
  */
 package rectpacking;
 
+import java.util.HashSet;
+import java.util.Random;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.AfterAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -109,6 +111,108 @@ public class MaxSpaceBinTest {
         success = bin.insert(r3, heur);
         assertFalse(success);
         assertEquals(2, bin.size());
+        
+        //The packed rect records the item it places
+        success = bin.insert(new Item(3, 2, 2).createRect(), heur);
+        assertTrue(success);
+        assertEquals(3, bin.getPackedRect().get(2).itemID);
+    }
+
+    /**
+     * Test of the allocation-free evaluation, of class MaxSpaceBin.
+     * The placement holds the same position and score as the rect returned by
+     * <code>evaluatePacking(Rect, PackingHeuristic)</code> and inserting it
+     * packs the item at that position. A placement that holds no position is
+     * rejected.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testInsertPlacement(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing insert with placement and " + heur + " ....");
+        Bin bin = openBin();
+        bin.insert(new Rect(5, 3), heur);
+        Rect r2 = bin.evaluatePacking(new Rect(3, 6), heur);
+        Placement placement = new Placement();
+        assertTrue(bin.evaluatePacking(3, 6, heur, placement));
+        assertEquals(r2.x, placement.x);
+        assertEquals(r2.y, placement.y);
+        assertEquals(r2.score, placement.score, 0.01);
+        assertTrue(bin.insert(placement));
+        assertEquals(2, bin.size());
+
+        placement.clear();
+        assertFalse(bin.evaluatePacking(8, 9, heur, placement));
+        assertFalse(bin.insert(placement));
+        assertEquals(2, bin.size());
+        assertTrue(bin.isFeasible());
+    }
+
+    /**
+     * Test of checkpoint and rollback methods, of class MaxSpaceBin.
+     * Rolling back the inserts made after a checkpoint restores the packed
+     * items, the free maximal spaces (in the same order) and the capacity
+     * summary of the bin at the checkpoint.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testRollback(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing rollback with " + heur + " ....");
+        Bin bin = openBin();
+        bin.insert(new Rect(5, 3), heur);
+        bin.insert(new Rect(2, 4), heur);
+        bin.checkpoint();
+        Bin copy = new MaxSpaceBin(bin);
+        assertTrue(bin.insert(new Rect(3, 6), heur));
+        assertTrue(bin.insert(new Rect(4, 2), heur));
+        assertTrue(bin.insert(new Rect(1, 1), heur));
+        bin.rollback();
+        assertFalse(bin.hasCheckpoint());
+        assertEquals(copy.packedRects, bin.packedRects);
+        assertEquals(copy.freeRects, bin.freeRects);
+        assertEquals(copy.getPackedArea(), bin.getPackedArea());
+        assertEquals(copy.getMaxFreeArea(), bin.getMaxFreeArea());
+        //The bin packs the next item as if the rolled back inserts never happened
+        assertTrue(bin.insert(new Rect(3, 6), heur));
+        assertTrue(copy.insert(new Rect(3, 6), heur));
+        assertEquals(copy.packedRects, bin.packedRects);
+        assertEquals(copy.freeRects, bin.freeRects);
+        assertTrue(bin.isFeasible());
+    }
+
+    /**
+     * Test of canFit method, of class MaxSpaceBin.
+     * After packing a 5x3 and a 5x4 item side by side in a 10x10 bin, the free
+     * maximal spaces are 5x7 and 10x6. The summary rejects an item that is
+     * wider, taller or larger than every free space, or larger than the area
+     * left in the bin.
+     */
+    @Test
+    public void testCanFit() {
+        System.out.println("Testing canFit ...");
+        Bin bin = openBin();
+        RectPacking.PackingHeuristic heur = RectPacking.PackingHeuristic.BestAreaFit;
+        assertTrue(bin.canFit(10, 10));
+        Rect r1 = new Rect(5, 3);
+        r1.x = 0; r1.y = 0;
+        Rect r2 = new Rect(5, 4);
+        r2.x = 5; r2.y = 0;
+        bin.insert(r1, heur);
+        bin.insert(r2, heur);
+        assertEquals(65, bin.getRemainingArea());
+        assertTrue(bin.canFit(10, 6));
+        assertTrue(bin.canFit(5, 7));
+        assertFalse(bin.canFit(11, 1));
+        assertFalse(bin.canFit(5, 8));
+        assertFalse(bin.canFit(9, 7));
+        //Packing 10x6 on top leaves the 5x1 strip above the first item
+        Rect r3 = new Rect(10, 6);
+        r3.x = 0; r3.y = 4;
+        bin.insert(r3, heur);
+        assertEquals(5, bin.getRemainingArea());
+        assertFalse(bin.canFit(5, 2));
+        assertTrue(bin.canFit(5, 1));
     }
 
     /**
@@ -203,6 +307,83 @@ public class MaxSpaceBinTest {
         //if any assertion above does not hold the test will fail.
     }
     
+    /**
+     * Test of remove method, of class MaxSpaceBin.
+     * After removing a packed item, the free maximal spaces are the same as
+     * those of a bin where the remaining items are inserted again.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testRemove(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing remove with " + heur + " ....");
+        Random rng = new Random(12345);
+        MaxSpaceBin bin = new MaxSpaceBin(100, 80);
+        bin.init();
+        for(int i=0; i<100; i++)
+            bin.insert(new Rect(1 + rng.nextInt(20), 1 + rng.nextInt(20)), heur);
+        int numRects = bin.size();
+        for(int k=0; k<10; k++){
+            Rect rect = new Rect(bin.getPackedRect().get(rng.nextInt(bin.size())));
+            assertTrue(bin.remove(rect));
+            assertFalse(bin.remove(rect));
+            Bin expectedBin = new MaxSpaceBin(100, 80);
+            expectedBin.init();
+            for(Rect packedRect : bin.getPackedRect())
+                expectedBin.insert(new Rect(packedRect), heur);
+            assertEquals(new HashSet<>(expectedBin.freeRects), new HashSet<>(bin.freeRects));
+            assertEquals(expectedBin.getPackedArea(), bin.getPackedArea());
+            assertEquals(expectedBin.getMaxFreeArea(), bin.getMaxFreeArea());
+            assertTrue(bin.isFeasible());
+        }
+        assertEquals(numRects - 10, bin.size());
+    }
+
+    /**
+     * Test of rebuild method, of class MaxSpaceBin.
+     * The sweep line finds the same free maximal spaces as the inserts.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testRebuild(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing rebuild with " + heur + " ....");
+        Random rng = new Random(12345);
+        Bin bin = new MaxSpaceBin(100, 80);
+        bin.init();
+        for(int i=0; i<100; i++)
+            bin.insert(new Rect(1 + rng.nextInt(20), 1 + rng.nextInt(20)), heur);
+        MaxSpaceBin rebuiltBin = new MaxSpaceBin(100, 80);
+        rebuiltBin.init();
+        rebuiltBin.rebuild(bin.getPackedRect());
+        assertEquals(bin.size(), rebuiltBin.size());
+        assertEquals(bin.freeRects.size(), rebuiltBin.freeRects.size());
+        assertEquals(new HashSet<>(bin.freeRects), new HashSet<>(rebuiltBin.freeRects));
+        assertEquals(bin.getMaxFreeArea(), rebuiltBin.getMaxFreeArea());
+        assertTrue(rebuiltBin.isFeasible());
+    }
+
+    /**
+     * Test of the copy constructor, of class MaxSpaceBin.
+     * A copy keeps the pruning of the bin it copies, and a copy of another
+     * kind of bin uses the incremental pruning.
+     */
+    @Test
+    public void testCopy() {
+        System.out.println("Testing the copy constructor ....");
+        for(boolean incrementalPruning : new boolean[]{false, true}){
+            MaxSpaceBin bin = new MaxSpaceBin(100, 80);
+            bin.setIncrementalPruning(incrementalPruning);
+            bin.init();
+            bin.insert(new Rect(30, 20), RectPacking.PackingHeuristic.BestAreaFit);
+            assertEquals(incrementalPruning, new MaxSpaceBin(bin).isIncrementalPruning());
+            assertEquals(incrementalPruning, new IndexedMaxSpaceBin(bin).isIncrementalPruning());
+        }
+        SkylineBin skylineBin = new SkylineBin(100, 80);
+        skylineBin.init();
+        assertTrue(new MaxSpaceBin(skylineBin).isIncrementalPruning());
+    }
+
     /**
      * Open a bin and initialize it.
      * @return 
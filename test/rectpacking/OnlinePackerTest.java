@@ -0,0 +1,50 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the OnlinePacker class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class OnlinePackerTest {
+
+    /**
+     * Test of add and flush methods, of class OnlinePacker.
+     * The number of open bins never exceeds the window, the closed bins are
+     * feasible and, once the packer is flushed, every item is in a closed bin.
+     * @param mode
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackMode.class)
+    public void testAdd(RectPacking.PackMode mode) {
+        System.out.println("Testing OnlinePacker with " + mode + " ...");
+        List<Bin> closedBins = new ArrayList<>();
+        OnlinePacker packer = new OnlinePacker(100, 100, RectPacking.PackingHeuristic.BestAreaFit, closedBins::add);
+        packer.setPackMode(mode);
+        packer.setMaxOpenBins(4);
+        packer.setClosingOccupancy(0.9);
+        packer.setMaxAge(200);
+        Random rng = new Random(12345);
+        for(int i=0; i<2000; i++){
+            packer.add(new Rect(1 + rng.nextInt(50), 1 + rng.nextInt(50)));
+            assertTrue(packer.getNumberOfOpenBins() <= 4);
+        }
+        packer.flush();
+        assertEquals(0, packer.getNumberOfOpenBins());
+        assertEquals(closedBins.size(), packer.getNumberOfClosedBins());
+        int numItems = 0;
+        for(Bin bin : closedBins){
+            assertTrue(bin.isFeasible());
+            numItems += bin.size();
+        }
+        assertEquals(2000, numItems);
+        assertThrows(IllegalArgumentException.class, () -> packer.add(new Rect(101, 101)));
+    }
+}
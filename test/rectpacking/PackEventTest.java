@@ -0,0 +1,86 @@
+package rectpacking;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testing the Java Flight Recorder events PackEvent, InsertEvent and PruneEvent.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class PackEventTest {
+
+    /**
+     * Test of the events emitted while packing.
+     * With no threshold, every packing, every insertion and every pruning is
+     * recorded with its fields; with the default thresholds, the fast ones are
+     * not.
+     * @param directory
+     * @throws IOException
+     */
+    @Test
+    public void testEvents(@TempDir Path directory) throws IOException {
+        System.out.println("Testing PackEvent, InsertEvent and PruneEvent ...");
+        Random rng = new Random(12345);
+        List<Rect> rectList = RBPSolutionGeneratedTest.createRects(rng, 50, 50);
+        RBPSolution sol = new RBPSolution(100, 100);
+        Path file = directory.resolve("all.jfr");
+        try(Recording recording = new Recording()){
+            recording.enable("rectpacking.Pack").withThreshold(Duration.ZERO);
+            recording.enable("rectpacking.Insert").withThreshold(Duration.ZERO);
+            recording.enable("rectpacking.Prune").withThreshold(Duration.ZERO);
+            recording.start();
+            sol.pack(rectList, RectPacking.PackingHeuristic.BestAreaFit, RectPacking.PackMode.PackFirst);
+            recording.stop();
+            recording.dump(file);
+        }
+        int numPacks = 0, numInserts = 0, numPrunes = 0;
+        for(RecordedEvent event : RecordingFile.readAllEvents(file)){
+            switch(event.getEventType().getName()){
+                case "rectpacking.Pack":
+                    numPacks++;
+                    assertEquals(50, event.getInt("numItems"));
+                    assertEquals(sol.getNumberOfBin(), event.getInt("numBins"));
+                    assertEquals(sol.computeLowerBound(rectList), event.getInt("lowerBound"));
+                    assertEquals("BestAreaFit", event.getString("heuristic"));
+                    assertEquals("PackFirst", event.getString("mode"));
+                    assertEquals("MaxSpace", event.getString("binType"));
+                    break;
+                case "rectpacking.Insert":
+                    numInserts++;
+                    assertTrue(event.getInt("freeSpacesBefore") > 0);
+                    break;
+                case "rectpacking.Prune":
+                    numPrunes++;
+                    assertTrue(event.getInt("numRemovals") <= event.getInt("numFreeSpaces"));
+                    break;
+                default:
+                    break;
+            }
+        }
+        assertEquals(1, numPacks);
+        assertEquals(50, numInserts);
+        assertTrue(numPrunes > 0 && numPrunes <= 50);
+        //The default threshold of an insertion is far above the time it takes here
+        file = directory.resolve("slow.jfr");
+        try(Recording recording = new Recording()){
+            recording.enable("rectpacking.Insert");
+            recording.start();
+            new RBPSolution(100, 100).pack(rectList, RectPacking.PackingHeuristic.BestAreaFit);
+            recording.stop();
+            recording.dump(file);
+        }
+        long numSlowInserts = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("rectpacking.Insert")).count();
+        assertTrue(numSlowInserts < 50);
+    }
+}
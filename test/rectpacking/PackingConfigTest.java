@@ -0,0 +1,138 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the PackingConfig class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class PackingConfigTest {
+
+    /**
+     * Test of the with methods, of class PackingConfig.
+     */
+    @Test
+    public void testWith() {
+        System.out.println("Testing PackingConfig with ...");
+        PackingConfig config = PackingConfig.DEFAULT.withRotation(true)
+                .withHeuristic(RectPacking.PackingHeuristic.TouchingPerimeter)
+                .withPackMode(RectPacking.PackMode.PackFirst)
+                .withBinType(RectPacking.BinType.Skyline);
+        assertTrue(config.canRotate());
+        assertEquals(GuillotineBin.SplitRule.ShorterLeftoverAxis, config.getSplitRule());
+        assertEquals(false, config.isMerge());
+        assertEquals(RectPacking.PackingHeuristic.TouchingPerimeter, config.getHeuristic());
+        assertEquals(RectPacking.PackMode.PackFirst, config.getPackMode());
+        assertEquals(RectPacking.BinType.Skyline, config.getBinType());
+        assertEquals(new PackingConfig(true, RectPacking.PackingHeuristic.TouchingPerimeter,
+                RectPacking.PackMode.PackFirst, RectPacking.BinType.Skyline), config);
+        assertNotEquals(PackingConfig.DEFAULT, config);
+        PackingConfig guillotine = config.withSplitRule(GuillotineBin.SplitRule.MaximizeArea).withMerge(true);
+        assertEquals(GuillotineBin.SplitRule.MaximizeArea, guillotine.getSplitRule());
+        assertTrue(guillotine.isMerge());
+        assertEquals(new PackingConfig(true, RectPacking.PackingHeuristic.TouchingPerimeter,
+                RectPacking.PackMode.PackFirst, RectPacking.BinType.Skyline,
+                GuillotineBin.SplitRule.MaximizeArea, true), guillotine);
+        assertEquals(guillotine.hashCode(), config.withMerge(true)
+                .withSplitRule(GuillotineBin.SplitRule.MaximizeArea).hashCode());
+        assertNotEquals(config, guillotine);
+        assertNotEquals(config, config.withMerge(true));
+        //The default configuration is not changed
+        assertEquals(false, PackingConfig.DEFAULT.canRotate());
+    }
+
+    /**
+     * Test of the rotation carried by a solution and its bins.
+     * Packings with and without rotation run at the same time on a shared
+     * thread pool give the same bins as when they run alone, and only the
+     * packings allowing the rotation rotate items.
+     * @param binType
+     * @throws Exception
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.BinType.class)
+    public void testRotation(RectPacking.BinType binType) throws Exception {
+        System.out.println("Testing PackingConfig rotation with " + binType + " ...");
+        Random rng = new Random(12345);
+        List<Rect> rectList = new ArrayList<>();
+        for(int i=0; i<100; i++)
+            rectList.add(new Rect(5 + rng.nextInt(20), 10 + rng.nextInt(31)));
+        PackingConfig[] configs = new PackingConfig[4];
+        for(int i=0; i<configs.length; i++)
+            configs[i] = PackingConfig.DEFAULT.withBinType(binType).withRotation(i%2 == 1)
+                    .withPackMode(RectPacking.PackMode.values()[i/2]);
+        int[] expectedBins = new int[configs.length];
+        for(int i=0; i<configs.length; i++){
+            RBPSolution sol = new RBPSolution(100, 40, configs[i]);
+            sol.pack(rectList);
+            assertTrue(sol.isFeasible());
+            assertEquals(configs[i], sol.getBin(0).getConfig());
+            assertEquals(rectList.size(), countPacked(sol));
+            if(configs[i].canRotate())
+                assertTrue(countRotated(rectList, sol) > 0);
+            else
+                assertEquals(0, countRotated(rectList, sol));
+            expectedBins[i] = sol.getNumberOfBin();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<Integer>> futures = new ArrayList<>();
+            for(int k=0; k<40; k++){
+                PackingConfig config = configs[k%configs.length];
+                futures.add(executor.submit(() -> {
+                    RBPSolution sol = new RBPSolution(100, 40, config);
+                    sol.pack(rectList);
+                    return sol.getNumberOfBin();
+                }));
+            }
+            for(int k=0; k<futures.size(); k++)
+                assertEquals(expectedBins[k%configs.length], futures.get(k).get());
+        }
+        finally{
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The number of packed items whose dimensions are not those of an item of
+     * <code>rectList</code>, i.e., the rotated items.
+     */
+    private int countRotated(List<Rect> rectList, RBPSolution sol){
+        Map<Long, Integer> counts = new HashMap<>();
+        for(Rect rect : rectList)
+            counts.merge(key(rect.width, rect.height), 1, Integer::sum);
+        int numRotated = 0;
+        for(Bin bin : sol.getBins()){
+            for(Rect rect : bin.getPackedRect()){
+                Integer count = counts.get(key(rect.width, rect.height));
+                if(count == null || count == 0) numRotated++;
+                else counts.put(key(rect.width, rect.height), count - 1);
+            }
+        }
+        return numRotated;
+    }
+
+    private int countPacked(RBPSolution sol){
+        int numPacked = 0;
+        for(Bin bin : sol.getBins())
+            numPacked += bin.size();
+        return numPacked;
+    }
+
+    private static long key(int width, int height){
+        return ((long) width << 32) | height;
+    }
+}
@@ -0,0 +1,155 @@
+package rectpacking;
+
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import rectpacking.PackingListener.Phase;
+
+/**
+ * Testing the PackingMetrics class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class PackingMetricsTest {
+
+    /**
+     * Test of the metrics gathered while packing, of class PackingMetrics.
+     * Observing a packing does not change it, every item and every phase is
+     * reported and the metrics are reset.
+     * @param mode
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackMode.class)
+    public void testPack(RectPacking.PackMode mode) {
+        System.out.println("Testing PackingMetrics with " + mode + " ...");
+        Random rng = new Random(12345);
+        List<Rect> rectList = RBPSolutionGeneratedTest.createRects(rng, 200, 50);
+        RBPSolution expected = new RBPSolution(100, 100);
+        expected.pack(rectList, RectPacking.PackingHeuristic.TouchingPerimeter, mode);
+        PackingMetrics metrics = new PackingMetrics(true);
+        RBPSolution sol = new RBPSolution(100, 100);
+        sol.setListener(metrics);
+        sol.pack(rectList, RectPacking.PackingHeuristic.TouchingPerimeter, mode);
+        assertTrue(sol.isFeasible());
+        assertEquals(expected.getNumberOfBin(), sol.getNumberOfBin());
+        assertEquals(200, metrics.getNumberOfItems());
+        assertTrue(metrics.getBinsEvaluatedPerItem() >= 1);
+        assertEquals(sol.getNumberOfBin() - sol.computeLowerBound(rectList), metrics.getBinsBeyondLowerBound());
+        assertTrue(metrics.getFreeSpacesScanned() >= metrics.getNumberOfEvaluations());
+        assertTrue(metrics.getFreeSpacesCreated() >= metrics.getFreeSpacesPruned());
+        assertTrue(metrics.getContainmentChecks() > 0);
+        //The free spaces left are the initial ones plus the ones created and not removed
+        int numFreeRects = 0;
+        for(Bin bin : sol.getBins())
+            numFreeRects += bin.freeRects.size();
+        assertTrue(numFreeRects <= sol.getNumberOfBin() + metrics.getFreeSpacesCreated() - metrics.getFreeSpacesPruned());
+        assertEquals(1, metrics.getCount(Phase.Pack));
+        assertEquals(200, metrics.getCount(Phase.Search));
+        assertEquals(200, metrics.getCount(Phase.Generate));
+        assertEquals(200, metrics.getCount(Phase.Prune));
+        assertTrue(metrics.getTime(Phase.Pack) >= metrics.getTime(Phase.Search));
+        metrics.reset();
+        assertEquals(0, metrics.getNumberOfItems());
+        assertEquals(0, metrics.getTime(Phase.Pack));
+    }
+
+    /**
+     * Test of the bins evaluated per item.
+     * Every packing method counts the bins on which a packing is evaluated: the
+     * evaluations are those of the bins counted plus one per bin opened for an
+     * item, and the linear and the indexed first fit, as well as the sequential
+     * and the parallel search, count the same bins.
+     * @param mode
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackMode.class)
+    public void testBinsEvaluated(RectPacking.PackMode mode) {
+        System.out.println("Testing the bins evaluated with " + mode + " ...");
+        Random rng = new Random(12345);
+        List<Rect> rectList = RBPSolutionGeneratedTest.createRects(rng, 200, 50);
+        long expectedBinsEvaluated = -1;
+        for(boolean indexed : new boolean[]{false, true}){
+            for(boolean parallel : new boolean[]{false, true}){
+                PackingMetrics metrics = new PackingMetrics(false);
+                RBPSolution sol = new RBPSolution(100, 100);
+                sol.setIndexedFirstFit(indexed);
+                sol.setParallel(parallel);
+                sol.setParallelThreshold(1);
+                sol.setListener(metrics);
+                sol.pack(rectList, RectPacking.PackingHeuristic.BestAreaFit, mode);
+                //pack starts with the lower bound of bins and packFirst with one bin
+                int numInitialBins = mode == RectPacking.PackMode.Pack ? sol.computeLowerBound(rectList) : 1;
+                assertEquals(metrics.getNumberOfEvaluations(),
+                        metrics.getBinsEvaluated() + sol.getNumberOfBin() - numInitialBins);
+                if(expectedBinsEvaluated != -1)
+                    assertEquals(expectedBinsEvaluated, metrics.getBinsEvaluated());
+                expectedBinsEvaluated = metrics.getBinsEvaluated();
+            }
+        }
+    }
+
+    /**
+     * Test of the free spaces scanned by IndexedMaxSpaceBin.
+     * The packing is the one of MaxSpaceBin, every evaluation is reported and
+     * the index visits at most the free spaces scanned by MaxSpaceBin.
+     */
+    @Test
+    public void testIndexedScan() {
+        System.out.println("Testing the free spaces scanned by IndexedMaxSpaceBin ...");
+        Random rng = new Random(12345);
+        List<Rect> rectList = RBPSolutionGeneratedTest.createRects(rng, 200, 50);
+        PackingMetrics expected = new PackingMetrics(false);
+        RBPSolution expectedSol = new RBPSolution(100, 100);
+        expectedSol.setListener(expected);
+        expectedSol.pack(rectList);
+        PackingMetrics metrics = new PackingMetrics(false);
+        RBPSolution sol = new RBPSolution(100, 100,
+                PackingConfig.DEFAULT.withBinType(RectPacking.BinType.IndexedMaxSpace));
+        sol.setListener(metrics);
+        sol.pack(rectList);
+        assertEquals(expectedSol.getNumberOfBin(), sol.getNumberOfBin());
+        assertEquals(expected.getNumberOfEvaluations(), metrics.getNumberOfEvaluations());
+        assertTrue(metrics.getFreeSpacesScanned() > 0);
+        assertTrue(metrics.getFreeSpacesScanned() <= expected.getFreeSpacesScanned());
+    }
+
+    /**
+     * Test of the containment checks reported by the full pruning, of class
+     * MaxSpaceBin. Every pair of free spaces left after a pruning has been
+     * checked and no pair has been checked twice.
+     */
+    @Test
+    public void testFullPruning() {
+        System.out.println("Testing the containment checks of the full pruning ...");
+        int[] counts = new int[2];
+        MaxSpaceBin bin = new MaxSpaceBin(100, 100);
+        bin.init();
+        bin.setIncrementalPruning(false);
+        bin.setListener(new PackingListener(){
+            @Override
+            public void freeSpacesPruned(int numFreeSpaces){
+                counts[0] = numFreeSpaces;
+            }
+
+            @Override
+            public void containmentChecked(int numChecks){
+                counts[1] = numChecks;
+            }
+        });
+        Random rng = new Random(12345);
+        int numPacked = 0;
+        for(int i=0; i<100; i++){
+            if(!bin.insert(new Rect(1 + rng.nextInt(30), 1 + rng.nextInt(30)), RectPacking.PackingHeuristic.BestAreaFit))
+                continue;
+            numPacked++;
+            int numLeft = bin.freeRects.size();
+            int numBefore = numLeft + counts[0];
+            assertTrue(counts[1] >= numLeft * (numLeft - 1) / 2);
+            assertTrue(counts[1] <= numBefore * (numBefore - 1) / 2);
+        }
+        assertTrue(numPacked > 1);
+    }
+}
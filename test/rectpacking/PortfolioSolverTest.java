@@ -0,0 +1,97 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing the PortfolioSolver class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class PortfolioSolverTest {
+
+    /**
+     * Test of solve method, of class PortfolioSolver.
+     * The best solution is feasible, packs every item and does not depend on
+     * the number of threads.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testSolve() throws InterruptedException {
+        System.out.println("Testing PortfolioSolver solve ...");
+        Instance instance = createInstance(new Random(12345), 60);
+        RBPSolution sol1 = createSolver(instance, 1).solve();
+        RBPSolution sol4 = createSolver(instance, 4).solve();
+        assertTrue(sol1.isFeasible());
+        assertTrue(sol4.isFeasible());
+        assertEquals(sol1.getNumberOfBin(), sol4.getNumberOfBin());
+        assertTrue(sol1.getNumberOfBin() >= sol1.computeLowerBound(instance.getItems()));
+        int numItems = 0;
+        for(int i=0; i<sol1.getNumberOfBin(); i++)
+            numItems += sol1.getBin(i).size();
+        assertEquals(instance.size(), numItems);
+    }
+
+    /**
+     * Test of the lower bound.
+     * Items filling exactly one bin have a lower bound of one bin, and the
+     * solver stops at and returns the packing into a single bin.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testLowerBound() throws InterruptedException {
+        System.out.println("Testing PortfolioSolver lower bound ...");
+        List<Item> items = new ArrayList<>();
+        for(int i=0; i<4; i++)
+            items.add(new Item(i, 50, 50));
+        Instance instance = new Instance(100, 100, items);
+        assertEquals(1, new RBPSolution(100, 100).computeLowerBound(items));
+        RBPSolution sol = createSolver(instance, 2).solve();
+        assertEquals(1, sol.getNumberOfBin());
+        assertTrue(sol.isFeasible());
+        //The area of the items does not overflow an int
+        List<Item> large = new ArrayList<>();
+        for(int i=0; i<3; i++)
+            large.add(new Item(i, 40000, 40000));
+        assertEquals(3, new RBPSolution(40000, 40000).computeLowerBound(large));
+    }
+
+    /**
+     * Test of the errors of solve method, of class PortfolioSolver.
+     * An item that does not fit in an empty bin is reported by the exception
+     * of the packing, and there must be at least one ordering and one thread.
+     */
+    @Test
+    public void testErrors() {
+        System.out.println("Testing PortfolioSolver errors ...");
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(0, 50, 50));
+        items.add(new Item(1, 150, 50));
+        PortfolioSolver solver = createSolver(new Instance(100, 100, items), 2);
+        assertThrows(IllegalArgumentException.class, solver::solve);
+        assertThrows(IllegalArgumentException.class, () -> solver.setNumberOfOrderings(0));
+        assertThrows(IllegalArgumentException.class, () -> solver.setNumberOfThreads(0));
+    }
+
+    private PortfolioSolver createSolver(Instance instance, int numThreads){
+        PortfolioSolver solver = new PortfolioSolver(instance, 12345);
+        solver.setNumberOfOrderings(4);
+        solver.setNumberOfThreads(numThreads);
+        return solver;
+    }
+
+    /**
+     * Create an instance of random items in bins of size 100x100.
+     * @return
+     */
+    private Instance createInstance(Random rng, int numItems){
+        List<Item> items = new ArrayList<>(numItems);
+        for(int i=0; i<numItems; i++)
+            items.add(new Item(i, 1 + rng.nextInt(60), 1 + rng.nextInt(60)));
+        return new Instance(100, 100, items);
+    }
+}
@@ -0,0 +1,118 @@
+package rectpacking;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the PrimitiveMaxSpaceBin class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class PrimitiveMaxSpaceBinTest {
+
+    /**
+     * The primitive bin must pack the items exactly as the maximal space bin
+     * does. We insert the same random sequence of items in both bins and
+     * compare the packed items, the free maximal spaces (in the same order) and
+     * the placements evaluated after each insertion. The compaction of the
+     * free spaces must not change their order.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testSamePackingAsMaxSpaceBin(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing PrimitiveMaxSpaceBin against MaxSpaceBin with " + heur + " ...");
+        Random rng = new Random(12345);
+        Bin bin = new MaxSpaceBin(100, 80);
+        bin.init();
+        PrimitiveMaxSpaceBin primitiveBin = new PrimitiveMaxSpaceBin(100, 80);
+        primitiveBin.init();
+        Placement expected = new Placement();
+        Placement actual = new Placement();
+        for(int i=0; i<200; i++){
+            int width = 1 + rng.nextInt(25);
+            int height = 1 + rng.nextInt(25);
+            expected.clear();
+            actual.clear();
+            boolean canPack = bin.evaluatePacking(width, height, heur, expected);
+            assertEquals(canPack, primitiveBin.evaluatePacking(width, height, heur, actual));
+            assertEquals(expected.x, actual.x);
+            assertEquals(expected.y, actual.y);
+            assertEquals(expected.rotated, actual.rotated);
+            assertEquals(expected.score, actual.score, 1e-9);
+            assertEquals(bin.insert(expected), primitiveBin.insert(actual));
+            assertEquals(bin.packedRects, primitiveBin.packedRects);
+            assertEquals(bin.freeRects, primitiveBin.getFreeRects());
+            assertEquals(bin.freeRects.size(), primitiveBin.getNumberOfFreeSpaces());
+            assertEquals(bin.getMaxFreeArea(), primitiveBin.getMaxFreeArea());
+        }
+        assertTrue(primitiveBin.isFeasible());
+        //A copy holds the same free spaces
+        assertEquals(primitiveBin.getFreeRects(), new PrimitiveMaxSpaceBin(primitiveBin).getFreeRects());
+    }
+
+    /**
+     * Test of equals and hashCode methods, of class PrimitiveMaxSpaceBin.
+     * Empty bins of different sizes hold no packed rects but different free
+     * spaces, so they are not equal. A copy is equal to its bin.
+     */
+    @Test
+    public void testEquals() {
+        System.out.println("Testing PrimitiveMaxSpaceBin equals ...");
+        PrimitiveMaxSpaceBin bin = new PrimitiveMaxSpaceBin(100, 80);
+        bin.init();
+        PrimitiveMaxSpaceBin smallBin = new PrimitiveMaxSpaceBin(50, 80);
+        smallBin.init();
+        assertNotEquals(bin, smallBin);
+        bin.insert(new Rect(20, 30), RectPacking.PackingHeuristic.BestAreaFit);
+        PrimitiveMaxSpaceBin copy = new PrimitiveMaxSpaceBin(bin);
+        assertEquals(bin, copy);
+        assertEquals(bin.hashCode(), copy.hashCode());
+        copy.insert(new Rect(10, 10), RectPacking.PackingHeuristic.BestAreaFit);
+        assertNotEquals(bin, copy);
+    }
+
+    /**
+     * Test of checkpoint and rollback methods, of class PrimitiveMaxSpaceBin.
+     * The removed free spaces are tombstones until the next compaction, so a
+     * rollback has to restore them. Rolling back the inserts made after a
+     * checkpoint restores the packed items, the free spaces (in the same
+     * order) and the capacity summary at the checkpoint, and the bin then
+     * packs the items as the maximal space bin does.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testRollback(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing PrimitiveMaxSpaceBin rollback with " + heur + " ...");
+        Random rng = new Random(12345);
+        Bin bin = new MaxSpaceBin(100, 80);
+        bin.init();
+        PrimitiveMaxSpaceBin primitiveBin = new PrimitiveMaxSpaceBin(100, 80);
+        primitiveBin.init();
+        for(int i=0; i<200; i++){
+            PrimitiveMaxSpaceBin copy = new PrimitiveMaxSpaceBin(primitiveBin);
+            primitiveBin.checkpoint();
+            for(int k=0; k<3; k++)
+                primitiveBin.insert(new Rect(1 + rng.nextInt(25), 1 + rng.nextInt(25)), heur);
+            primitiveBin.rollback();
+            assertFalse(primitiveBin.hasCheckpoint());
+            assertEquals(copy.packedRects, primitiveBin.packedRects);
+            assertEquals(copy.getFreeRects(), primitiveBin.getFreeRects());
+            assertEquals(copy.getPackedArea(), primitiveBin.getPackedArea());
+            assertEquals(copy.getMaxFreeArea(), primitiveBin.getMaxFreeArea());
+            int width = 1 + rng.nextInt(25);
+            int height = 1 + rng.nextInt(25);
+            boolean success = bin.insert(new Rect(width, height), heur);
+            assertEquals(success, primitiveBin.insert(new Rect(width, height), heur));
+            assertEquals(bin.packedRects, primitiveBin.packedRects);
+            assertEquals(bin.freeRects, primitiveBin.getFreeRects());
+        }
+        assertTrue(primitiveBin.isFeasible());
+    }
+}
@@ -0,0 +1,164 @@
+package rectpacking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the RBPSolution class on generated items. Unlike RBPSolutionTest,
+ * these tests do not need the dataset.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class RBPSolutionGeneratedTest {
+
+    /**
+     * Test of pack method, of class RBPSolution, with an item that does not
+     * fit in an empty bin. The packing is rejected instead of packing the item
+     * at the position of the previous item.
+     * @param mode
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackMode.class)
+    public void testPackOversizedItem(RectPacking.PackMode mode) {
+        System.out.println("Testing RBPSolution pack of an oversized item with " + mode + " ...");
+        for(RectPacking.BinType binType : RectPacking.BinType.values()){
+            RBPSolution sol = new RBPSolution(10, 10, PackingConfig.DEFAULT.withBinType(binType));
+            List<Rect> rectList = new ArrayList<>(Arrays.asList(new Rect(5, 5), new Rect(20, 3)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> sol.pack(rectList, RectPacking.PackingHeuristic.BestAreaFit, mode));
+        }
+    }
+
+    /**
+     * Test of packFirst method, of class RBPSolution, with the indexed first
+     * fit and an item that does not fit in an empty bin.
+     * @param binType
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.BinType.class)
+    public void testPackFirstIndexedOversizedItem(RectPacking.BinType binType) {
+        System.out.println("Testing RBPSolution indexed packFirst of an oversized item with " + binType + " ...");
+        RBPSolution sol = new RBPSolution(10, 10, PackingConfig.DEFAULT.withBinType(binType));
+        sol.setIndexedFirstFit(true);
+        List<Rect> rectList = new ArrayList<>(Arrays.asList(new Rect(5, 5), new Rect(20, 3)));
+        assertThrows(IllegalArgumentException.class,
+                () -> sol.packFirst(rectList, RectPacking.PackingHeuristic.BestAreaFit));
+    }
+
+    /**
+     * Test of the copy constructor, of class RBPSolution.
+     * The copy shares the bins of the solution. Modifying a bin of the copy
+     * replaces it with a new bin and leaves the solution unchanged, and a
+     * shared bin can neither be modified nor rolled back.
+     * @param binType
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.BinType.class)
+    public void testCopy(RectPacking.BinType binType) {
+        System.out.println("Testing RBPSolution copy with " + binType + " ...");
+        RBPSolution solution = new RBPSolution(100, 100, PackingConfig.DEFAULT.withBinType(binType));
+        solution.pack(createRects(new Random(12345), 100, 40), RectPacking.PackingHeuristic.BestAreaFit);
+        Bin shared = solution.getBin(0);
+        shared.checkpoint();
+        RBPSolution copy = new RBPSolution(solution);
+        assertSame(shared, copy.getBin(0));
+        List<Rect> packedRects = new ArrayList<>(shared.getPackedRect());
+        Bin bin = copy.getMutableBin(0);
+        assertNotSame(shared, bin);
+        assertTrue(bin.insert(new Rect(1, 1), RectPacking.PackingHeuristic.BestAreaFit));
+        assertEquals(packedRects, shared.getPackedRect());
+        assertThrows(IllegalStateException.class, () -> shared.insert(new Rect(1, 1), RectPacking.PackingHeuristic.BestAreaFit));
+        assertThrows(IllegalStateException.class, () -> shared.rollback());
+        assertEquals(packedRects, shared.getPackedRect());
+        assertTrue(copy.isFeasible());
+        assertTrue(solution.isFeasible());
+    }
+
+    /**
+     * Test of the parallel best-bin search, of class RBPSolution.
+     * Searching the best bin in parallel gives the same packing as searching it
+     * sequentially, whatever the number of bins searched in parallel.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testParallelPack(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing RBPSolution parallel pack with " + heur + " ...");
+        List<Rect> rectList = createRects(new Random(12345), 400, 40);
+        for(RectPacking.BinType binType : RectPacking.BinType.values()){
+            RBPSolution solution = new RBPSolution(100, 100, PackingConfig.DEFAULT.withBinType(binType));
+            solution.pack(rectList, heur);
+            for(int threshold : new int[]{1, 8}){
+                RBPSolution parallelSolution = new RBPSolution(100, 100, PackingConfig.DEFAULT.withBinType(binType));
+                parallelSolution.setParallel(true);
+                parallelSolution.setParallelThreshold(threshold);
+                parallelSolution.pack(rectList, heur);
+                assertEquals(solution.getNumberOfBin(), parallelSolution.getNumberOfBin());
+                for(int i=0; i<solution.getNumberOfBin(); i++)
+                    assertEquals(solution.getBin(i).getPackedRect(), parallelSolution.getBin(i).getPackedRect());
+            }
+        }
+    }
+
+    /**
+     * Test of packFirst method, of class RBPSolution, with the indexed first fit.
+     * Looking up the first bin in a BinTree gives the same packing as the
+     * linear scan, for every bin type, with and without rotation.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testIndexedPackFirst(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing RBPSolution indexed packFirst with " + heur + " ...");
+        List<Rect> rectList = createRects(new Random(12345), 400, 40);
+        for(RectPacking.BinType binType : RectPacking.BinType.values()){
+            for(boolean canRotate : new boolean[]{false, true}){
+                PackingConfig config = PackingConfig.DEFAULT.withBinType(binType).withRotation(canRotate);
+                RBPSolution solution = new RBPSolution(100, 100, config);
+                solution.packFirst(rectList, heur);
+                RBPSolution indexedSolution = new RBPSolution(100, 100, config);
+                indexedSolution.setIndexedFirstFit(true);
+                indexedSolution.packFirst(rectList, heur);
+                assertEquals(solution.getNumberOfBin(), indexedSolution.getNumberOfBin());
+                for(int i=0; i<solution.getNumberOfBin(); i++)
+                    assertEquals(solution.getBin(i).getPackedRect(), indexedSolution.getBin(i).getPackedRect());
+            }
+        }
+    }
+
+    /**
+     * Create random rects.
+     * @param rng the random number generator
+     * @param numItems the number of rects
+     * @param maxSide the maximum width and height of the rects
+     * @return the rects
+     */
+    static List<Rect> createRects(Random rng, int numItems, int maxSide){
+        List<Rect> rectList = new ArrayList<>(numItems);
+        for(int i=0; i<numItems; i++)
+            rectList.add(new Rect(1 + rng.nextInt(maxSide), 1 + rng.nextInt(maxSide)));
+        return rectList;
+    }
+
+    /**
+     * Create random items whose identifiers are their indices.
+     * @param rng the random number generator
+     * @param numItems the number of items
+     * @param maxSide the maximum width and height of the items
+     * @return the items
+     */
+    static List<Item> createItems(Random rng, int numItems, int maxSide){
+        List<Item> itemList = new ArrayList<>(numItems);
+        for(int i=0; i<numItems; i++)
+            itemList.add(new Item(i, 1 + rng.nextInt(maxSide), 1 + rng.nextInt(maxSide)));
+        return itemList;
+    }
+}
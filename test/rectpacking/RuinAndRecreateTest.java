@@ -0,0 +1,98 @@
+package rectpacking;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing the RuinAndRecreate class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class RuinAndRecreateTest {
+
+    /**
+     * Test of run method, of class RuinAndRecreate.
+     * The local search never increases the number of bins, keeps the packing
+     * feasible and keeps every item.
+     */
+    @Test
+    public void testRun() {
+        System.out.println("Testing RuinAndRecreate run ...");
+        Random rng = new Random(12345);
+        List<Rect> rectList = RBPSolutionGeneratedTest.createRects(rng, 200, 50);
+        Collections.shuffle(rectList, rng);
+        RBPSolution solution = new RBPSolution(100, 100);
+        solution.pack(rectList, RectPacking.PackingHeuristic.BestAreaFit);
+        int numBins = solution.getNumberOfBin();
+
+        RuinAndRecreate search = new RuinAndRecreate(solution, RectPacking.PackingHeuristic.BestAreaFit, rng);
+        int newNumBins = search.run(1000);
+        assertEquals(newNumBins, solution.getNumberOfBin());
+        assertTrue(newNumBins <= numBins);
+        assertTrue(newNumBins >= solution.computeLowerBound(rectList));
+        assertTrue(solution.isFeasible());
+        int numItems = 0;
+        for(int i=0; i<newNumBins; i++){
+            assertTrue(solution.getBin(i).size() > 0);
+            numItems += solution.getBin(i).size();
+        }
+        assertEquals(rectList.size(), numItems);
+    }
+
+    /**
+     * Test of the item identifiers, of class RuinAndRecreate.
+     * After the local search, every item of the instance is still placed by
+     * exactly one rect recording its identifier.
+     */
+    @Test
+    public void testItemIDs() {
+        System.out.println("Testing RuinAndRecreate item identifiers ...");
+        Random rng = new Random(12345);
+        List<Item> itemList = RBPSolutionGeneratedTest.createItems(rng, 200, 50);
+        Collections.shuffle(itemList, rng);
+        RBPSolution solution = new RBPSolution(100, 100);
+        solution.pack(itemList, RectPacking.PackingHeuristic.BestAreaFit);
+
+        RuinAndRecreate search = new RuinAndRecreate(solution, RectPacking.PackingHeuristic.BestAreaFit, rng);
+        search.run(2000);
+        assertTrue(search.getNumberOfAcceptedMoves() > 0);
+        boolean[] isPlaced = new boolean[itemList.size()];
+        for(int i=0; i<solution.getNumberOfBin(); i++){
+            for(Rect rect : solution.getBin(i).getPackedRect()){
+                assertTrue(rect.itemID >= 0);
+                assertFalse(isPlaced[rect.itemID]);
+                isPlaced[rect.itemID] = true;
+            }
+        }
+        for(Item item : itemList)
+            assertTrue(isPlaced[item.id]);
+    }
+
+    /**
+     * Test of the order of the bins, of class RuinAndRecreate.
+     * The bins stay ordered by decreasing occupancy after every move, whether
+     * it is accepted or undone.
+     */
+    @Test
+    public void testBinOrder() {
+        System.out.println("Testing RuinAndRecreate bin order ...");
+        Random rng = new Random(12345);
+        List<Rect> rectList = RBPSolutionGeneratedTest.createRects(rng, 300, 50);
+        RBPSolution solution = new RBPSolution(100, 100);
+        solution.pack(rectList, RectPacking.PackingHeuristic.BestAreaFit);
+
+        RuinAndRecreate search = new RuinAndRecreate(solution, RectPacking.PackingHeuristic.BestAreaFit, rng);
+        for(int k=0; k<500; k++){
+            search.move();
+            List<Bin> bins = solution.getBins();
+            for(int i=1; i<bins.size(); i++)
+                assertTrue(bins.get(i - 1).getOccupancy() >= bins.get(i).getOccupancy());
+        }
+        assertTrue(search.getNumberOfAcceptedMoves() > 0);
+        assertTrue(search.getNumberOfAcceptedMoves() < search.getNumberOfMoves());
+    }
+}
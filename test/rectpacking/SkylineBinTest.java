@@ -0,0 +1,133 @@
+package rectpacking;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Testing the SkylineBin class.
+ * @author Ahmed Hassan (ahmedhassan@aims.ac.za)
+ */
+public class SkylineBinTest {
+
+    /**
+     * Test of insert method, of class SkylineBin.
+     * Items that fit on the skyline are inserted and the bin size grows. An
+     * item that is taller than the space left above the skyline is rejected.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testInsert(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing SkylineBin insert with " + heur + " ....");
+        Bin bin = openBin();
+        assertTrue(bin.insert(new Rect(5, 3), heur));
+        assertTrue(bin.insert(new Rect(5, 4), heur));
+        assertTrue(bin.insert(new Rect(10, 3), heur));
+        assertEquals(3, bin.size());
+        //At most 3 units are left above the skyline
+        assertFalse(bin.insert(new Rect(1, 4), heur));
+        assertEquals(3, bin.size());
+        assertTrue(bin.isFeasible());
+    }
+
+    /**
+     * Test of the placement chosen by the best area fit heuristic.
+     * The first item is placed at the bottom-left corner. The second item fits
+     * on top of the first one or next to it without wasting any area, the tie
+     * is broken by the lowest top side. The third item spans the whole width
+     * and rests on the highest segment below it.
+     */
+    @Test
+    public void testBestAreaFitPlacement() {
+        System.out.println("Testing SkylineBin placement ...");
+        Bin bin = openBin();
+        RectPacking.PackingHeuristic heur = RectPacking.PackingHeuristic.BestAreaFit;
+        bin.insert(new Rect(5, 3), heur);
+        Rect r2 = bin.evaluatePacking(new Rect(5, 4), heur);
+        assertEquals(5, r2.x);
+        assertEquals(0, r2.y);
+        assertEquals(0, r2.score, 0.01);
+        bin.insert(r2, heur);
+        Rect r3 = bin.evaluatePacking(new Rect(10, 3), heur);
+        assertEquals(0, r3.x);
+        assertEquals(4, r3.y);
+        //The area between the first item and the third one is lost
+        assertEquals(5, r3.score, 0.01);
+    }
+
+    /**
+     * Test of the capacity summary, of class SkylineBin.
+     * With segments at heights 3, 4 and 0 (from left to right), the largest
+     * free rect above the skyline is either 10x6 or 3x10.
+     */
+    @Test
+    public void testCanFit() {
+        System.out.println("Testing SkylineBin canFit ...");
+        Bin bin = openBin();
+        RectPacking.PackingHeuristic heur = RectPacking.PackingHeuristic.BestAreaFit;
+        Rect r1 = new Rect(4, 3);
+        r1.x = 0; r1.y = 0;
+        Rect r2 = new Rect(3, 4);
+        r2.x = 4; r2.y = 0;
+        bin.insert(r1, heur);
+        bin.insert(r2, heur);
+        assertTrue(bin.canFit(10, 6));
+        assertTrue(bin.canFit(3, 10));
+        assertTrue(bin.canFit(7, 7));
+        assertFalse(bin.canFit(10, 7));
+        assertFalse(bin.canFit(7, 9));
+        assertFalse(bin.canFit(11, 1));
+        //The summary may accept an item that does not fit
+        assertNull(bin.evaluatePacking(new Rect(7, 7), heur));
+    }
+
+    /**
+     * Test of checkpoint and rollback methods, of class SkylineBin.
+     * Rolling back the inserts made after a checkpoint restores the packed
+     * items, the skyline and the capacity summary of the bin at the checkpoint,
+     * and the bin then packs the next item as if they never happened.
+     * @param heur
+     */
+    @ParameterizedTest
+    @EnumSource(RectPacking.PackingHeuristic.class)
+    public void testRollback(RectPacking.PackingHeuristic heur) {
+        System.out.println("Testing SkylineBin rollback with " + heur + " ...");
+        Random rng = new Random(12345);
+        Bin bin = new SkylineBin(100, 80);
+        bin.init();
+        for(int i=0; i<100; i++){
+            Bin copy = new SkylineBin(bin);
+            bin.checkpoint();
+            for(int k=0; k<3; k++)
+                bin.insert(new Rect(1 + rng.nextInt(25), 1 + rng.nextInt(25)), heur);
+            bin.rollback();
+            assertFalse(bin.hasCheckpoint());
+            assertEquals(copy.packedRects, bin.packedRects);
+            assertEquals(copy.freeRects, bin.freeRects);
+            assertEquals(copy.getPackedArea(), bin.getPackedArea());
+            assertEquals(copy.getMaxFreeArea(), bin.getMaxFreeArea());
+            Rect rect = new Rect(1 + rng.nextInt(25), 1 + rng.nextInt(25));
+            assertEquals(copy.insert(new Rect(rect), heur), bin.insert(rect, heur));
+            assertEquals(copy.packedRects, bin.packedRects);
+            assertEquals(copy.freeRects, bin.freeRects);
+        }
+        assertTrue(bin.isFeasible());
+    }
+
+
+    /**
+     * Open a bin and initialize it.
+     * @return
+     */
+    private Bin openBin(){
+        Bin bin = new SkylineBin(10, 10);
+        bin.init();
+        return bin;
+    }
+}